@@ -6,12 +6,12 @@ import g1t1.features.logger.LogLevel;
 import g1t1.models.scenes.Page;
 import g1t1.models.scenes.PageName;
 import g1t1.models.scenes.Router;
+import g1t1.opencv.services.FaceDetectorProvider;
 import g1t1.utils.events.routing.OnNavigateEvent;
 import javafx.application.Application;
 import javafx.scene.Scene;
 import javafx.scene.text.Font;
 import javafx.stage.Stage;
-import nu.pattern.OpenCV;
 
 import java.net.URL;
 
@@ -39,7 +39,7 @@ public class App extends Application {
 
         try {
             AppLogger.log("Loading OpenCV library...");
-            OpenCV.loadLocally();
+            FaceDetectorProvider.getInstance().warmUp();
             AppLogger.log("OpenCV loaded successfully");
         } catch (Exception e) {
             AppLogger.logf(LogLevel.Error, "Failed to load OpenCV: %s", e.getMessage());
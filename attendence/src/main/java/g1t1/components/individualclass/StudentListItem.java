@@ -9,6 +9,7 @@ import org.kordamp.ikonli.javafx.FontIcon;
 import g1t1.db.DSLInstance;
 import g1t1.db.students.StudentRepository;
 import g1t1.db.students.StudentRepositoryJooq;
+import g1t1.features.attendencetaking.AttendanceTaker;
 import g1t1.features.authentication.AuthenticationContext;
 import g1t1.models.users.FaceData;
 import g1t1.models.users.Student;
@@ -192,5 +193,6 @@ public class StudentListItem extends HBox {
         }
 
         AuthenticationContext.triggerUserUpdate();
+        AttendanceTaker.refreshStudent(student);
     }
 }
\ No newline at end of file
@@ -13,8 +13,10 @@ import g1t1.models.users.FaceData;
 import g1t1.models.users.RegisterTeacher;
 import g1t1.opencv.models.FaceInFrame;
 import g1t1.opencv.services.FaceDetector;
+import g1t1.opencv.services.FaceDetectorProvider;
 import g1t1.utils.EventEmitter;
 import g1t1.utils.ImageUtils;
+import g1t1.utils.PixelBufferRenderer;
 import g1t1.utils.ThreadWithRunnable;
 import g1t1.utils.events.onboarding.PictureTakenEvent;
 import g1t1.utils.events.routing.OnNavigateEvent;
@@ -53,24 +55,23 @@ class CameraRunnable implements Runnable {
 
     public final EventEmitter<Object> emitter = new EventEmitter<>();
     private final VideoCapture camera;
-    private final ImageView display;
+    private final PixelBufferRenderer display;
     private final Object frameLock = new Object();
     private final Mat currentFrame = new Mat();
     private final BooleanProperty cameraFailure;
     private final BooleanProperty isTakingPictures;
     private final BooleanProperty isFaceValid;
-    private final FaceDetector faceDetector;
     private final FaceStepTracker tracker;
+    private FaceDetector faceDetector; // held by the camera thread while it runs, guarded by frameLock
     private long lastTimeTaken = 0;
 
 
     public CameraRunnable(ImageView display, BooleanProperty cameraFailure, BooleanProperty isTakingPictures, BooleanProperty isFaceValid, FaceStepTracker tracker) {
         this.camera = SettingsManager.getInstance().getConfiguredCamera();
-        this.display = display;
+        this.display = new PixelBufferRenderer(display);
         this.cameraFailure = cameraFailure;
         this.isTakingPictures = isTakingPictures;
         this.isFaceValid = isFaceValid;
-        this.faceDetector = new FaceDetector();
         this.tracker = tracker;
     }
 
@@ -86,6 +87,12 @@ class CameraRunnable implements Runnable {
             return;
         }
 
+        // Acquired here rather than in the constructor so the JavaFX thread never waits on detector warm-up
+        FaceDetector detector = FaceDetectorProvider.getInstance().acquire();
+        synchronized (frameLock) {
+            this.faceDetector = detector;
+        }
+
         while (camera.isOpened()) {
             if (Thread.currentThread().isInterrupted()) {
                 break;
@@ -106,10 +113,10 @@ class CameraRunnable implements Runnable {
             synchronized (frameLock) {
                 croppedFrame.copyTo(currentFrame);
             }
+            display.present(croppedFrame);
+            croppedFrame.release();
 
             Platform.runLater(() -> {
-                display.setImage(ImageUtils.matToImage(croppedFrame));
-
                 if (!isTakingPictures.getValue()) {
                     return;
                 }
@@ -129,7 +136,13 @@ class CameraRunnable implements Runnable {
                 }
             });
         }
+        synchronized (frameLock) {
+            this.faceDetector = null;
+        }
+        FaceDetectorProvider.getInstance().release(detector);
         camera.release();
+        frame.release();
+        display.release();
         if (consecutiveFailures >= MAX_FAILS) {
             this.cameraFailure.set(true);
         }
@@ -149,7 +162,7 @@ class CameraRunnable implements Runnable {
 
     public byte[] getFaceInFrame() {
         synchronized (frameLock) {
-            if (currentFrame.empty()) {
+            if (currentFrame.empty() || faceDetector == null) {
                 return new byte[]{};
             }
 
@@ -194,7 +207,6 @@ public class FaceDetails extends Tab implements RegistrationStep<HasFaces> {
     private final ListProperty<byte[]> photosTaken = new SimpleListProperty<>(FXCollections.observableArrayList());
 
     private final FileChooser fileChooser = new FileChooser();
-    private final FaceDetector faceDetector = new FaceDetector();
     private final FaceStepTracker stepTracker;
     private ThreadWithRunnable<CameraRunnable> cameraDaemon;
     private byte[] thumbnailImage;
@@ -347,6 +359,7 @@ public class FaceDetails extends Tab implements RegistrationStep<HasFaces> {
             return;
         }
         AppLogger.logf("Processing %d imported image(s)", filesSelected.size());
+        FaceDetector faceDetector = FaceDetectorProvider.getInstance().acquire();
         int imported = 0;
         for (File file : filesSelected) {
             Mat imageMat = null;
@@ -396,6 +409,7 @@ public class FaceDetails extends Tab implements RegistrationStep<HasFaces> {
                     buffer.release();
             }
         }
+        FaceDetectorProvider.getInstance().release(faceDetector);
         AppLogger.logf("Manual image import completed: %d/%d images successfully imported",
                 imported, filesSelected.size());
         Toast.show(String.format("Successfully imported %d images!", imported), ToastType.SUCCESS);
@@ -5,8 +5,10 @@ import com.google.gson.GsonBuilder;
 import g1t1.components.Toast;
 import g1t1.features.logger.AppLogger;
 import g1t1.features.logger.LogLevel;
+import g1t1.opencv.config.FaceConfig;
 import javafx.application.Platform;
 import org.opencv.videoio.VideoCapture;
+import org.opencv.videoio.Videoio;
 
 import java.io.File;
 import java.io.FileReader;
@@ -161,6 +163,20 @@ public class SettingsManager {
         } else {
             AppLogger.logf("Camera device %d opened successfully", configuredDevice);
         }
+        if (camera.isOpened()) {
+            applyResolution(camera);
+        }
         return camera;
     }
+
+    /**
+     * Request the capture resolution from face-recognition.properties; the camera may pick the nearest it supports.
+     */
+    private void applyResolution(VideoCapture camera) {
+        FaceConfig config = FaceConfig.getInstance();
+        camera.set(Videoio.CAP_PROP_FRAME_WIDTH, config.getCameraWidth());
+        camera.set(Videoio.CAP_PROP_FRAME_HEIGHT, config.getCameraHeight());
+        AppLogger.logf("Camera resolution: %.0fx%.0f", camera.get(Videoio.CAP_PROP_FRAME_WIDTH),
+                camera.get(Videoio.CAP_PROP_FRAME_HEIGHT));
+    }
 }
@@ -30,6 +30,9 @@ public class DatabaseInitializer {
                 createStudentsTable(context);
                 createUserFaceImagesTable(context);
                 createStudentFaceImagesTable(context);
+                createFaceFeaturesTable(context);
+                createHogProjectionsTable(context);
+                createFacePrototypesTable(context);
                 createModuleSectionsTable(context);
                 createEnrollmentsTable(context);
                 createSessionsTable(context);
@@ -217,6 +220,111 @@ public class DatabaseInitializer {
                 .execute();
     }
 
+    private void createFaceFeaturesTable(DSLContext context) {
+        /**
+         * Create the `face_features` table if missing.
+         *
+         * Columns
+         * - image_hash        VARCHAR(64), not null. SHA-256 hex of the encoded face image bytes.
+         * - region            VARCHAR(16), not null. Face region the features describe ("full", "upper").
+         * - pipeline_version  INTEGER, not null. Recognizer.PIPELINE_VERSION the features were extracted with.
+         * - features          BLOB, not null. Packed float32 histogram, LBP and HOG descriptors, or a face
+         *                     embedding for "emb-" regions.
+         *
+         * Constraints
+         * - pk_face_features: primary key on (image_hash, region, pipeline_version).
+         *
+         * Notes
+         * - Cache of extracted recognition features, so session start only processes new or changed images.
+         * - Keyed by content hash rather than face_image_id, so students and teachers share the same cache
+         *   and identical images are only processed once.
+         * - Safe to delete at any time; rows are recomputed on the next session start.
+         *
+         */
+
+        context.createTableIfNotExists("face_features")
+                .column("image_hash", SQLDataType.VARCHAR(64).notNull())
+                .column("region", SQLDataType.VARCHAR(16).notNull())
+                .column("pipeline_version", SQLDataType.INTEGER.notNull())
+                .column("features", SQLDataType.BLOB.notNull())
+                .constraints(
+                        DSL.constraint("pk_face_features").primaryKey("image_hash", "region", "pipeline_version")
+                )
+                .execute();
+    }
+
+    private void createHogProjectionsTable(DSLContext context) {
+        /**
+         * Create the `hog_projections` table if missing.
+         *
+         * Columns
+         * - region            VARCHAR(16), not null. Face region the projected HOG describes ("full", "upper").
+         * - dimensions        INTEGER, not null. Configured projected length.
+         * - pipeline_version  INTEGER, not null. Recognizer.PIPELINE_VERSION of the HOG it was learned from.
+         * - gallery_key       VARCHAR(64), not null. SHA-256 hex of the gallery HOG rows it was learned from.
+         * - input_length      INTEGER, not null. HOG descriptor length.
+         * - mean              BLOB, not null. Packed float32 mean descriptor.
+         * - basis             BLOB, not null. Packed float32 principal components, one per row.
+         *
+         * Constraints
+         * - pk_hog_projections: primary key on (region, dimensions).
+         *
+         * Notes
+         * - One PCA basis per region and length, replaced whenever the enrolled gallery changes, so
+         *   superseded bases do not pile up.
+         * - Safe to delete at any time; the basis is relearned on the next session start.
+         *
+         */
+
+        context.createTableIfNotExists("hog_projections")
+                .column("region", SQLDataType.VARCHAR(16).notNull())
+                .column("dimensions", SQLDataType.INTEGER.notNull())
+                .column("pipeline_version", SQLDataType.INTEGER.notNull())
+                .column("gallery_key", SQLDataType.VARCHAR(64).notNull())
+                .column("input_length", SQLDataType.INTEGER.notNull())
+                .column("mean", SQLDataType.BLOB.notNull())
+                .column("basis", SQLDataType.BLOB.notNull())
+                .constraints(
+                        DSL.constraint("pk_hog_projections").primaryKey("region", "dimensions")
+                )
+                .execute();
+    }
+
+    private void createFacePrototypesTable(DSLContext context) {
+        /**
+         * Create the `face_prototypes` table if missing.
+         *
+         * Columns
+         * - recognition_id    VARCHAR(36), not null. Student or user id the prototypes were chosen for.
+         * - region            VARCHAR(16), not null. Face region of the gallery rows ("full", "upper").
+         * - pipeline_version  INTEGER, not null. Recognizer.PIPELINE_VERSION of the rows they were chosen from.
+         * - per_student       INTEGER, not null. Configured prototypes per student.
+         * - rows_key          VARCHAR(64), not null. SHA-256 hex of the student's image hashes, in row order.
+         * - row_offsets       BLOB, not null. Packed int32 offsets of the chosen rows within the student's rows.
+         *
+         * Constraints
+         * - pk_face_prototypes: primary key on (recognition_id, region).
+         *
+         * Notes
+         * - One choice per student and region, replaced when the student's rows change, so superseded
+         *   choices do not pile up.
+         * - Safe to delete at any time; prototypes are chosen again on the next session start.
+         *
+         */
+
+        context.createTableIfNotExists("face_prototypes")
+                .column("recognition_id", SQLDataType.VARCHAR(36).notNull())
+                .column("region", SQLDataType.VARCHAR(16).notNull())
+                .column("pipeline_version", SQLDataType.INTEGER.notNull())
+                .column("per_student", SQLDataType.INTEGER.notNull())
+                .column("rows_key", SQLDataType.VARCHAR(64).notNull())
+                .column("row_offsets", SQLDataType.BLOB.notNull())
+                .constraints(
+                        DSL.constraint("pk_face_prototypes").primaryKey("recognition_id", "region")
+                )
+                .execute();
+    }
+
     private void createModuleSectionsTable(DSLContext context) {
         /**
          * Create the `module_sections` table if missing.
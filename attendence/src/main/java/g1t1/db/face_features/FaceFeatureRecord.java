@@ -0,0 +1,9 @@
+package g1t1.db.face_features;
+
+public record FaceFeatureRecord(
+        String imageHash,
+        String region,
+        int pipelineVersion,
+        byte[] features
+) {
+}
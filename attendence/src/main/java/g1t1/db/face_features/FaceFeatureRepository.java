@@ -0,0 +1,12 @@
+package g1t1.db.face_features;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface FaceFeatureRepository {
+    List<FaceFeatureRecord> fetchByImageHashes(Collection<String> imageHashes, String region, int pipelineVersion);
+
+    int createAll(Collection<FaceFeatureRecord> records);
+
+    int deleteOtherPipelineVersions(int pipelineVersion);
+}
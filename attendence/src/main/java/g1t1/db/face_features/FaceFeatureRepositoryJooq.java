@@ -0,0 +1,74 @@
+package g1t1.db.face_features;
+
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.InsertValuesStep4;
+import org.jooq.Record;
+import org.jooq.Table;
+import org.jooq.impl.DSL;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+public class FaceFeatureRepositoryJooq implements FaceFeatureRepository {
+    // Stay well below SQLite's bound parameter limit per statement
+    private static final int BATCH_SIZE = 500;
+
+    private final DSLContext dsl;
+
+    private final Table<Record> FACE_FEATURES_TABLE = DSL.table("face_features");
+    private final Field<String> IMAGE_HASH = DSL.field("image_hash", String.class);
+    private final Field<String> REGION = DSL.field("region", String.class);
+    private final Field<Integer> PIPELINE_VERSION = DSL.field("pipeline_version", Integer.class);
+    private final Field<byte[]> FEATURES = DSL.field("features", byte[].class);
+
+    public FaceFeatureRepositoryJooq(DSLContext dsl) {
+        this.dsl = dsl;
+    }
+
+    @Override
+    public List<FaceFeatureRecord> fetchByImageHashes(Collection<String> imageHashes, String region, int pipelineVersion) {
+        List<FaceFeatureRecord> records = new ArrayList<>();
+        List<String> hashes = new ArrayList<>(imageHashes);
+
+        for (int start = 0; start < hashes.size(); start += BATCH_SIZE) {
+            List<String> batch = hashes.subList(start, Math.min(start + BATCH_SIZE, hashes.size()));
+            records.addAll(dsl.select(IMAGE_HASH, REGION, PIPELINE_VERSION, FEATURES)
+                    .from(FACE_FEATURES_TABLE)
+                    .where(IMAGE_HASH.in(batch)
+                            .and(REGION.eq(region))
+                            .and(PIPELINE_VERSION.eq(pipelineVersion)))
+                    .fetch(record -> new FaceFeatureRecord(
+                            record.get(IMAGE_HASH),
+                            record.get(REGION),
+                            record.get(PIPELINE_VERSION),
+                            record.get(FEATURES)
+                    )));
+        }
+        return records;
+    }
+
+    @Override
+    public int createAll(Collection<FaceFeatureRecord> records) {
+        List<FaceFeatureRecord> pending = new ArrayList<>(records);
+        int inserted = 0;
+
+        for (int start = 0; start < pending.size(); start += BATCH_SIZE) {
+            InsertValuesStep4<Record, String, String, Integer, byte[]> insert = dsl
+                    .insertInto(FACE_FEATURES_TABLE, IMAGE_HASH, REGION, PIPELINE_VERSION, FEATURES);
+            for (FaceFeatureRecord record : pending.subList(start, Math.min(start + BATCH_SIZE, pending.size()))) {
+                insert = insert.values(record.imageHash(), record.region(), record.pipelineVersion(), record.features());
+            }
+            inserted += insert.onConflictDoNothing().execute();
+        }
+        return inserted;
+    }
+
+    @Override
+    public int deleteOtherPipelineVersions(int pipelineVersion) {
+        return dsl.deleteFrom(FACE_FEATURES_TABLE)
+                .where(PIPELINE_VERSION.ne(pipelineVersion))
+                .execute();
+    }
+}
@@ -0,0 +1,11 @@
+package g1t1.db.face_prototypes;
+
+public record FacePrototypeRecord(
+        String recognitionId,
+        String region,
+        int pipelineVersion,
+        int perStudent,
+        String rowsKey,
+        byte[] rowOffsets
+) {
+}
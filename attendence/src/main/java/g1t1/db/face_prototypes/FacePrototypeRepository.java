@@ -0,0 +1,10 @@
+package g1t1.db.face_prototypes;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface FacePrototypeRepository {
+    List<FacePrototypeRecord> fetchByRecognitionIds(Collection<String> recognitionIds, String region);
+
+    void replaceAll(Collection<FacePrototypeRecord> records);
+}
@@ -0,0 +1,72 @@
+package g1t1.db.face_prototypes;
+
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record;
+import org.jooq.Table;
+import org.jooq.impl.DSL;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+public class FacePrototypeRepositoryJooq implements FacePrototypeRepository {
+    // Stay well below SQLite's bound parameter limit per statement
+    private static final int BATCH_SIZE = 500;
+
+    private final DSLContext dsl;
+
+    private final Table<Record> FACE_PROTOTYPES_TABLE = DSL.table("face_prototypes");
+    private final Field<String> RECOGNITION_ID = DSL.field("recognition_id", String.class);
+    private final Field<String> REGION = DSL.field("region", String.class);
+    private final Field<Integer> PIPELINE_VERSION = DSL.field("pipeline_version", Integer.class);
+    private final Field<Integer> PER_STUDENT = DSL.field("per_student", Integer.class);
+    private final Field<String> ROWS_KEY = DSL.field("rows_key", String.class);
+    private final Field<byte[]> ROW_OFFSETS = DSL.field("row_offsets", byte[].class);
+
+    public FacePrototypeRepositoryJooq(DSLContext dsl) {
+        this.dsl = dsl;
+    }
+
+    @Override
+    public List<FacePrototypeRecord> fetchByRecognitionIds(Collection<String> recognitionIds, String region) {
+        List<FacePrototypeRecord> records = new ArrayList<>();
+        List<String> ids = new ArrayList<>(recognitionIds);
+
+        for (int start = 0; start < ids.size(); start += BATCH_SIZE) {
+            List<String> batch = ids.subList(start, Math.min(start + BATCH_SIZE, ids.size()));
+            records.addAll(dsl.select(RECOGNITION_ID, REGION, PIPELINE_VERSION, PER_STUDENT, ROWS_KEY, ROW_OFFSETS)
+                    .from(FACE_PROTOTYPES_TABLE)
+                    .where(RECOGNITION_ID.in(batch).and(REGION.eq(region)))
+                    .fetch(record -> new FacePrototypeRecord(
+                            record.get(RECOGNITION_ID),
+                            record.get(REGION),
+                            record.get(PIPELINE_VERSION),
+                            record.get(PER_STUDENT),
+                            record.get(ROWS_KEY),
+                            record.get(ROW_OFFSETS)
+                    )));
+        }
+        return records;
+    }
+
+    /**
+     * Stores each record as the only prototypes of its student and region; run in a transaction.
+     */
+    @Override
+    public void replaceAll(Collection<FacePrototypeRecord> records) {
+        for (FacePrototypeRecord record : records) {
+            dsl.deleteFrom(FACE_PROTOTYPES_TABLE)
+                    .where(RECOGNITION_ID.eq(record.recognitionId()).and(REGION.eq(record.region())))
+                    .execute();
+            dsl.insertInto(FACE_PROTOTYPES_TABLE)
+                    .set(RECOGNITION_ID, record.recognitionId())
+                    .set(REGION, record.region())
+                    .set(PIPELINE_VERSION, record.pipelineVersion())
+                    .set(PER_STUDENT, record.perStudent())
+                    .set(ROWS_KEY, record.rowsKey())
+                    .set(ROW_OFFSETS, record.rowOffsets())
+                    .execute();
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package g1t1.db.hog_projections;
+
+public record HogProjectionRecord(
+        String region,
+        int dimensions,
+        int pipelineVersion,
+        String galleryKey,
+        int inputLength,
+        byte[] mean,
+        byte[] basis
+) {
+}
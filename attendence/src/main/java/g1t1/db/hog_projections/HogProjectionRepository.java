@@ -0,0 +1,7 @@
+package g1t1.db.hog_projections;
+
+public interface HogProjectionRepository {
+    HogProjectionRecord fetch(String region, int dimensions);
+
+    void replace(HogProjectionRecord record);
+}
@@ -0,0 +1,59 @@
+package g1t1.db.hog_projections;
+
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record;
+import org.jooq.Table;
+import org.jooq.impl.DSL;
+
+public class HogProjectionRepositoryJooq implements HogProjectionRepository {
+    private final DSLContext dsl;
+
+    private final Table<Record> HOG_PROJECTIONS_TABLE = DSL.table("hog_projections");
+    private final Field<String> REGION = DSL.field("region", String.class);
+    private final Field<Integer> DIMENSIONS = DSL.field("dimensions", Integer.class);
+    private final Field<Integer> PIPELINE_VERSION = DSL.field("pipeline_version", Integer.class);
+    private final Field<String> GALLERY_KEY = DSL.field("gallery_key", String.class);
+    private final Field<Integer> INPUT_LENGTH = DSL.field("input_length", Integer.class);
+    private final Field<byte[]> MEAN = DSL.field("mean", byte[].class);
+    private final Field<byte[]> BASIS = DSL.field("basis", byte[].class);
+
+    public HogProjectionRepositoryJooq(DSLContext dsl) {
+        this.dsl = dsl;
+    }
+
+    @Override
+    public HogProjectionRecord fetch(String region, int dimensions) {
+        return dsl.select(REGION, DIMENSIONS, PIPELINE_VERSION, GALLERY_KEY, INPUT_LENGTH, MEAN, BASIS)
+                .from(HOG_PROJECTIONS_TABLE)
+                .where(REGION.eq(region).and(DIMENSIONS.eq(dimensions)))
+                .fetchOne(record -> new HogProjectionRecord(
+                        record.get(REGION),
+                        record.get(DIMENSIONS),
+                        record.get(PIPELINE_VERSION),
+                        record.get(GALLERY_KEY),
+                        record.get(INPUT_LENGTH),
+                        record.get(MEAN),
+                        record.get(BASIS)
+                ));
+    }
+
+    /**
+     * Stores the record as the only projection of its region and dimensions; run in a transaction.
+     */
+    @Override
+    public void replace(HogProjectionRecord record) {
+        dsl.deleteFrom(HOG_PROJECTIONS_TABLE)
+                .where(REGION.eq(record.region()).and(DIMENSIONS.eq(record.dimensions())))
+                .execute();
+        dsl.insertInto(HOG_PROJECTIONS_TABLE)
+                .set(REGION, record.region())
+                .set(DIMENSIONS, record.dimensions())
+                .set(PIPELINE_VERSION, record.pipelineVersion())
+                .set(GALLERY_KEY, record.galleryKey())
+                .set(INPUT_LENGTH, record.inputLength())
+                .set(MEAN, record.mean())
+                .set(BASIS, record.basis())
+                .execute();
+    }
+}
@@ -24,6 +24,7 @@ import g1t1.models.sessions.ClassSession;
 import g1t1.models.sessions.ModuleSection;
 import g1t1.models.sessions.SessionAttendance;
 import g1t1.models.sessions.SessionStatus;
+import g1t1.models.users.Student;
 import g1t1.opencv.FaceRecognitionService;
 import g1t1.opencv.models.Recognisable;
 import g1t1.utils.events.opencv.StudentDetectedEvent;
@@ -46,12 +47,37 @@ public class AttendanceTaker {
 
     private static ClassSession currentSession;
 
-    public static void start(ModuleSection moduleSection, int week, LocalDateTime startTime) {
+    /**
+     * Starts an attendance session. Enrollment features are pre-computed on a background
+     * thread; once recognition is ready the session is opened and onReady runs on the JavaFX
+     * thread. If recognition fails to start, an error toast is shown and onFailed runs on the
+     * JavaFX thread instead, with no session opened.
+     */
+    public static void start(ModuleSection moduleSection, int week, LocalDateTime startTime, Runnable onReady,
+            Runnable onFailed) {
         AppLogger.logf("Starting attendance session: %s %s (Week %d) with %d students", moduleSection.getModule(),
                 moduleSection.getSection(), week, moduleSection.getActiveStudents().size());
-        initializeRecognitionSystem(moduleSection);
-        initializeSession(moduleSection, week, startTime);
-        subscribeToDetectionEvents();
+
+        Thread precomputeThread = new Thread(() -> {
+            try {
+                initializeRecognitionSystem(moduleSection);
+            } catch (RuntimeException e) {
+                AppLogger.logf(LogLevel.Error, "Could not start attendance session: %s", e.getMessage());
+                Platform.runLater(() -> {
+                    Toast.show("Could not start face recognition!", 3000, Toast.ToastType.ERROR);
+                    onFailed.run();
+                });
+                return;
+            }
+
+            Platform.runLater(() -> {
+                initializeSession(moduleSection, week, startTime);
+                subscribeToDetectionEvents();
+                onReady.run();
+            });
+        }, "enrollment-precompute");
+        precomputeThread.setDaemon(true);
+        precomputeThread.start();
     }
 
     public static void stop() {
@@ -73,6 +99,34 @@ public class AttendanceTaker {
         currentSession = null;
     }
 
+    /**
+     * Brings a running session up to date with a student of its class who was onboarded,
+     * deactivated or restored, without restarting recognition. Call on the JavaFX thread;
+     * the student's faces are processed in the background.
+     */
+    public static void refreshStudent(Student student) {
+        ClassSession session = currentSession;
+        if (session == null || student == null || student.getModuleSection() == null
+                || !session.getModuleSection().getId().equals(student.getModuleSection().getId())) {
+            return;
+        }
+        if (student.getIsActive() && !session.getStudentAttendance().containsKey(student.getId())) {
+            SessionAttendance attendance = new SessionAttendance(student);
+            session.getStudentAttendance().put(student.getId(), attendance);
+            watchForReverts(attendance);
+        }
+
+        Thread updateThread = new Thread(() -> {
+            if (student.getIsActive()) {
+                FaceRecognitionService.getInstance().updateRecognisable(student);
+            } else {
+                FaceRecognitionService.getInstance().removeRecognisable(student.getRecognitionId());
+            }
+        }, "gallery-update");
+        updateThread.setDaemon(true);
+        updateThread.start();
+    }
+
     public static ClassSession getCurrentSession() {
         return currentSession;
     }
@@ -112,6 +166,20 @@ public class AttendanceTaker {
     private static void initializeSession(ModuleSection moduleSection, int week, LocalDateTime startTime) {
         currentSession = new ClassSession(moduleSection, week, startTime, SessionStatus.Active);
         recentlyMarked.clear();
+        for (SessionAttendance attendance : currentSession.getStudentAttendance().values()) {
+            watchForReverts(attendance);
+        }
+    }
+
+    /**
+     * A student whose mark is changed back to pending or absent is searched for first again.
+     */
+    private static void watchForReverts(SessionAttendance attendance) {
+        attendance.getAttendanceProperty().addListener((obs, oldStatus, newStatus) -> {
+            if (newStatus == AttendanceStatus.PENDING || newStatus == AttendanceStatus.ABSENT) {
+                FaceRecognitionService.getInstance().unsettle(attendance.getStudent().getRecognitionId());
+            }
+        });
     }
 
     private static void subscribeToDetectionEvents() {
@@ -149,6 +217,8 @@ public class AttendanceTaker {
                 attendance.getStudent().getId(), event.getConfidence());
 
         markAttendance(attendance, currentSession.getCurrentStatus(), event.getConfidence(), MarkingMethod.AUTOMATIC);
+        // Found with high confidence, so later faces are matched against the students still missing first
+        FaceRecognitionService.getInstance().markSettled(event.getStudent().getRecognitionId());
 
         clearConfirmationIfMatches(event.getStudent().getId());
 
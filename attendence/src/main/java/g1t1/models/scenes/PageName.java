@@ -12,5 +12,6 @@ public enum PageName {
     StartSession,
     DuringSession,
 
-    Settings
+    Settings,
+    Debug
 }
@@ -22,7 +22,8 @@ public class Router {
                 entry(PageName.Onboard, "scenes/OnboardView.fxml"),
                 entry(PageName.StartSession, "scenes/StartSessionView.fxml"),
                 entry(PageName.DuringSession, "scenes/DuringSessionView.fxml"),
-                entry(PageName.Settings, "scenes/SettingsView.fxml"));
+                entry(PageName.Settings, "scenes/SettingsView.fxml"),
+                entry(PageName.Debug, "scenes/DebugView.fxml"));
 
         scenePaths.forEach((key, value) -> {
             try {
@@ -2,17 +2,33 @@ package g1t1.opencv;
 
 import g1t1.config.SettingsManager;
 import g1t1.features.logger.AppLogger;
+import g1t1.features.logger.LogLevel;
 import g1t1.models.users.Student;
 import g1t1.opencv.config.FaceConfig;
 import g1t1.opencv.models.*;
+import g1t1.opencv.services.AdaptiveFrameController;
 import g1t1.opencv.services.FaceDetector;
+import g1t1.opencv.services.FaceDetectorProvider;
+import g1t1.opencv.services.FaceQuality;
+import g1t1.opencv.services.FaceTracker;
 import g1t1.opencv.services.MaskDetector;
+import g1t1.opencv.services.MotionGate;
+import g1t1.opencv.services.TrackEvidence;
+import g1t1.opencv.services.liveness.BlinkLivenessTracker;
 import g1t1.opencv.services.liveness.LivenessChecker;
+import g1t1.opencv.services.preprocessing.FaceAligner;
+import g1t1.opencv.services.preprocessing.FaceAnalysis;
+import g1t1.opencv.services.recognition.EmbeddingGallery;
+import g1t1.opencv.services.recognition.EmbeddingRecognizer;
+import g1t1.opencv.services.recognition.EnrollmentPrecomputer;
+import g1t1.opencv.services.recognition.FeatureGallery;
 import g1t1.opencv.services.recognition.HistogramRecognizer;
 import g1t1.opencv.services.recognition.MaskAwareRecognizer;
 import g1t1.opencv.services.recognition.Recognizer;
 import g1t1.utils.EventEmitter;
+import g1t1.utils.ExpiringCache;
 import g1t1.utils.events.opencv.AttendanceSessionEvent;
+import g1t1.utils.events.opencv.FrameControlEvent;
 import g1t1.utils.events.opencv.StudentDetectedEvent;
 import org.opencv.core.Mat;
 import org.opencv.core.Point;
@@ -22,42 +38,63 @@ import org.opencv.imgproc.Imgproc;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Main entry point for face recognition system. Frontend calls start() and
  * stop() methods. Provides global event emitter for system-wide event
  * listening.
+ * <p>
+ * Thread-safe: frames may be processed from several threads (cameras) at once. Each calling
+ * thread gets its own detector, tracker, motion gate and frame skip counter; per-face caches
+ * are shared and keyed by track IDs that are unique across threads. The enrolled students
+ * and their galleries are immutable snapshots, replaced whole by {@link #start} or per student
+ * by {@link #updateRecognisable} and {@link #removeRecognisable}.
  */
 public class FaceRecognitionService {
     private static FaceRecognitionService instance;
     private final int FRAME_SKIP_INTERVAL = 2;
-    private final long RECOGNITION_CACHE_DURATION = 2000;
-
-    private EventEmitter<Object> eventEmitter;
-    private boolean isRunning;
-    private List<? extends Recognisable> recognisableObjects;
-    private FaceDetector faceDetector;
+    private final long MASK_CHECK_INTERVAL = 500; // 500ms - more responsive
+
+    private final EventEmitter<Object> eventEmitter;
+    private final Object lifecycleLock = new Object();
+    private volatile boolean isRunning;
+    private volatile List<? extends Recognisable> recognisableObjects;
+    private volatile CandidateTiers candidateTiers; // null while not running
+    private final Set<String> settledIds = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger trackIds = new AtomicInteger(1);
+    private final ThreadLocal<FrameStream> streams = new ThreadLocal<>();
+    private final Set<FrameStream> openStreams = ConcurrentHashMap.newKeySet();
+    private AdaptiveFrameController frameController;
     private HistogramRecognizer histogramRecognizer;
     private MaskAwareRecognizer maskAwareRecognizer;
+    private EmbeddingRecognizer embeddingRecognizer; // null unless configured and the model loaded
     private MaskDetector maskDetector;
     private LivenessChecker livenessChecker;
-    private AttendanceSession currentSession;
-    private Set<String> loggedUsers;
-    private Map<String, Boolean> maskCache;
-    private Map<String, Long> lastMaskCheckTime;
-    private int frameSkipCounter = 0;
-    private List<DetectedFace> cachedFaces = new ArrayList<>();
-    private Map<String, RecognitionResult> recognitionCache = new ConcurrentHashMap<>();
-    private Map<String, Long> recognitionCacheTime = new ConcurrentHashMap<>();
+    private final BlinkLivenessTracker blinkTracker; // null unless liveness mode is blink
+    private volatile AttendanceSession currentSession;
+    private volatile Set<String> loggedUsers;
+    private final ExpiringCache<String, Boolean> maskCache;
+    private final ExpiringCache<String, LivenessResult> livenessCache;
+    private final ExpiringCache<String, TrackEvidence> evidenceCache;
 
     private FaceRecognitionService() {
         this.eventEmitter = new EventEmitter<>();
         this.isRunning = false;
-        this.faceDetector = new FaceDetector();
+        this.frameController = createFrameController();
         this.histogramRecognizer = new HistogramRecognizer();
         this.maskAwareRecognizer = new MaskAwareRecognizer();
+        this.embeddingRecognizer = createEmbeddingRecognizer();
         this.maskDetector = new MaskDetector();
 
+        // Per-face state, keyed by track ID and bounded so long sessions keep a flat footprint
+        FaceConfig config = FaceConfig.getInstance();
+        int maxEntries = config.getFaceCacheMaxEntries();
+        this.maskCache = new ExpiringCache<>("mask", maxEntries, MASK_CHECK_INTERVAL);
+        this.livenessCache = new ExpiringCache<>("liveness", maxEntries, config.getLivenessRefreshMs());
+        this.evidenceCache = new ExpiringCache<>("evidence", maxEntries, config.getTrackingRecognitionRefreshMs());
+        this.blinkTracker = createBlinkTracker(maxEntries);
+
         // Initialize LivenessChecker with configurable thresholds from settings
         try {
             double varianceThreshold = SettingsManager.getInstance().getSettings().getLaplacianVarianceThreshold();
@@ -69,10 +106,71 @@ public class FaceRecognitionService {
         }
     }
 
+    private AdaptiveFrameController createFrameController() {
+        FaceConfig config = FaceConfig.getInstance();
+        return new AdaptiveFrameController(config.isAdaptiveFrameControlEnabled(), 1000.0 / config.getTargetFps(),
+                FRAME_SKIP_INTERVAL, config.getAdaptiveMinScale(), config.getAdaptiveMaxInterval(),
+                config.getAdaptiveManyFaces(), decision -> {
+                    if (config.isLoggingEnabled()) {
+                        AppLogger.logf("Frame control: %s", decision);
+                    }
+                    eventEmitter.emit(new FrameControlEvent(decision));
+                });
+    }
+
+    /**
+     * @return Gate restricting detection to changed regions, or null if motion gating is disabled
+     */
+    private MotionGate createMotionGate() {
+        FaceConfig config = FaceConfig.getInstance();
+        if (!config.isMotionGatingEnabled()) {
+            return null;
+        }
+        return new MotionGate(config.getMotionThreshold(), config.getMotionFullSweepMs(),
+                config.getMotionMaxCoverage(), config.getMinSize());
+    }
+
+    /**
+     * Builds the DNN recognizer for unmasked faces if FaceConfig selects it.
+     *
+     * @return Recognizer, or null to keep the histogram recognizer
+     */
+    private EmbeddingRecognizer createEmbeddingRecognizer() {
+        if (!"embedding".equalsIgnoreCase(FaceConfig.getInstance().getRecognizerType())) {
+            return null;
+        }
+
+        EmbeddingRecognizer recognizer = new EmbeddingRecognizer();
+        if (!recognizer.isAvailable()) {
+            AppLogger.log(LogLevel.Warning, "Embedding recognizer unavailable, using histogram recognizer");
+            return null;
+        }
+        return recognizer;
+    }
+
+    /**
+     * @return Blink tracker when liveness mode is blink, or null for texture liveness, also
+     * used when the landmark model that locates the eyes cannot be loaded
+     */
+    private static BlinkLivenessTracker createBlinkTracker(int maxTracks) {
+        FaceConfig config = FaceConfig.getInstance();
+        if (!"blink".equalsIgnoreCase(config.getLivenessMode())) {
+            return null;
+        }
+
+        FaceAligner aligner = FaceAligner.create();
+        if (aligner == null) {
+            AppLogger.log(LogLevel.Warning, "Blink liveness unavailable, using texture liveness");
+            return null;
+        }
+        return new BlinkLivenessTracker(aligner, config.getBlinkLocateInterval(), config.getBlinkThreshold(),
+                config.getBlinkClosedDrop(), config.getBlinkMaxMs(), config.getBlinkTimeoutMs(), maxTracks);
+    }
+
     /**
      * Get singleton instance.
      */
-    public static FaceRecognitionService getInstance() {
+    public static synchronized FaceRecognitionService getInstance() {
         if (instance == null) {
             instance = new FaceRecognitionService();
         }
@@ -81,60 +179,232 @@ public class FaceRecognitionService {
 
     /**
      * Start face recognition with enrolled students. Frontend calls this to begin
-     * attendance session.
+     * attendance session. Blocks while enrollment features are pre-computed, emitting
+     * EnrollmentProgressEvent along the way, so call it off the JavaFX thread.
+     *
+     * @throws RuntimeException If the enrollment features could not be computed; the service
+     *                          is left stopped, so start can be called again
      */
     public void start(List<? extends Recognisable> recognisableObjects) {
-        if (isRunning) {
-            return;
+        synchronized (lifecycleLock) {
+            if (isRunning) {
+                return;
+            }
+
+            List<Recognisable> snapshot = List.copyOf(recognisableObjects);
+            settledIds.clear();
+
+            if (FaceConfig.getInstance().isLoggingEnabled()) {
+                AppLogger.logf("Face recognition started with %d recognisable objects", snapshot.size());
+            }
+
+            try {
+                EnrollmentPrecomputer.Enrollment enrollment = new EnrollmentPrecomputer().precompute(snapshot,
+                        List.of(histogramRecognizer, maskAwareRecognizer), embeddingRecognizer, eventEmitter::emit);
+                histogramRecognizer.setGallery(enrollment.galleries().get(0));
+                maskAwareRecognizer.setGallery(enrollment.galleries().get(1));
+                if (embeddingRecognizer != null) {
+                    embeddingRecognizer.setGallery(enrollment.embeddings());
+                }
+            } catch (RuntimeException e) {
+                AppLogger.logf(LogLevel.Error, "Face recognition failed to start: %s", e.getMessage());
+                histogramRecognizer.cleanup();
+                maskAwareRecognizer.cleanup();
+                if (embeddingRecognizer != null) {
+                    embeddingRecognizer.cleanup();
+                }
+                throw e;
+            }
+
+            // Published last, so recognition only starts once every gallery is in place
+            this.currentSession = new AttendanceSession();
+            this.loggedUsers = ConcurrentHashMap.newKeySet();
+            this.recognisableObjects = snapshot;
+            rebuildCandidateTiers();
+            this.isRunning = true;
+
+            // Emit session started event
+            eventEmitter.emit(new AttendanceSessionEvent(currentSession, AttendanceSessionEvent.SESSION_STARTED));
         }
+    }
+
+    /**
+     * Adds a student to the running session, or replaces their enrolled faces, without pausing
+     * recognition. Only this student's images are processed; frames already being recognised
+     * finish against the previous galleries and later frames see the update. Blocks while the
+     * images are processed, so call it off the JavaFX thread. Does nothing when not running.
+     */
+    public void updateRecognisable(Recognisable recognisable) {
+        synchronized (lifecycleLock) {
+            if (!isRunning) {
+                return;
+            }
 
-        this.recognisableObjects = recognisableObjects;
-        this.isRunning = true;
-        this.currentSession = new AttendanceSession();
-        this.loggedUsers = new HashSet<>();
-        this.maskCache = new HashMap<>();
-        this.lastMaskCheckTime = new HashMap<>();
+            long startTime = System.currentTimeMillis();
+            String recognitionId = recognisable.getRecognitionId();
+            EnrollmentPrecomputer.Enrollment rows = new EnrollmentPrecomputer().precomputeStudent(recognisable,
+                    List.of(histogramRecognizer, maskAwareRecognizer), embeddingRecognizer,
+                    List.of(histogramRecognizer.getGallery(), maskAwareRecognizer.getGallery()));
+            histogramRecognizer.updateStudent(recognitionId, rows.galleries().get(0));
+            maskAwareRecognizer.updateStudent(recognitionId, rows.galleries().get(1));
+            if (embeddingRecognizer != null) {
+                embeddingRecognizer.updateStudent(recognitionId, rows.embeddings());
+            }
+            replaceRecognisable(recognitionId, recognisable);
 
-        if (FaceConfig.getInstance().isLoggingEnabled()) {
-            AppLogger.logf("Face recognition started with %d recognisable objects", recognisableObjects.size());
+            if (FaceConfig.getInstance().isLoggingEnabled()) {
+                AppLogger.logf("Updated gallery for %s (ID: %s) in %dms", recognisable.getName(), recognitionId,
+                        System.currentTimeMillis() - startTime);
+            }
         }
+    }
+
+    /**
+     * Stops recognising a student in the running session, e.g. once they are deactivated,
+     * without pausing recognition. Does nothing when not running.
+     */
+    public void removeRecognisable(String recognitionId) {
+        synchronized (lifecycleLock) {
+            if (!isRunning) {
+                return;
+            }
 
-        histogramRecognizer.precomputeEnrollmentData(recognisableObjects);
-        maskAwareRecognizer.precomputeEnrollmentData(recognisableObjects);
+            histogramRecognizer.updateStudent(recognitionId, FeatureGallery.empty());
+            maskAwareRecognizer.updateStudent(recognitionId, FeatureGallery.empty());
+            if (embeddingRecognizer != null) {
+                embeddingRecognizer.updateStudent(recognitionId, EmbeddingGallery.empty());
+            }
+            replaceRecognisable(recognitionId, null);
 
-        // Emit session started event
-        eventEmitter.emit(new AttendanceSessionEvent(currentSession, AttendanceSessionEvent.SESSION_STARTED));
+            if (FaceConfig.getInstance().isLoggingEnabled()) {
+                AppLogger.logf("Removed %s from the gallery", recognitionId);
+            }
+        }
     }
 
     /**
-     * Stop face recognition and cleanup resources. Frontend calls this to end
-     * attendance session.
+     * Publishes a copy of the enrolled list with one entry replaced, added or removed, and drops
+     * track evidence gathered against the old gallery so faces in view are recognised afresh.
+     *
+     * @param replacement New entry, or null to remove it
      */
-    public void stop() {
-        if (!isRunning) {
+    private void replaceRecognisable(String recognitionId, Recognisable replacement) {
+        List<Recognisable> updated = new ArrayList<>();
+        for (Recognisable recognisable : recognisableObjects) {
+            if (!recognisable.getRecognitionId().equals(recognitionId)) {
+                updated.add(recognisable);
+            }
+        }
+        if (replacement != null) {
+            updated.add(replacement);
+        }
+        this.recognisableObjects = List.copyOf(updated);
+        rebuildCandidateTiers();
+        evidenceCache.clear();
+    }
+
+    /**
+     * Moves a student who has been marked present with high confidence to the settled tier.
+     * Faces are scored against the unmarked students first, and the settled students are only
+     * scored when none of them reaches the detection threshold, so each face costs less as the
+     * room fills. A track whose fused result is a settled student above the auto-mark threshold
+     * is pinned to them and not recognised again, so the rest of that track cannot be credited
+     * to a student still missing. Does nothing when candidate tiers are disabled.
+     */
+    public void markSettled(String recognitionId) {
+        if (!FaceConfig.getInstance().isCandidateTiersEnabled() || !settledIds.add(recognitionId)) {
             return;
         }
+        rebuildCandidateTiers();
+    }
 
-        this.isRunning = false;
-        this.recognisableObjects = null;
+    /**
+     * Moves a student whose mark was reverted back to the unmarked tier, so faces are scored
+     * against them first again. Tracks pinned to them are recognised afresh.
+     */
+    public void unsettle(String recognitionId) {
+        if (settledIds.remove(recognitionId)) {
+            rebuildCandidateTiers();
+        }
+    }
 
-        // End current session
-        if (currentSession != null) {
-            currentSession.endSession();
-            eventEmitter.emit(new AttendanceSessionEvent(currentSession, AttendanceSessionEvent.SESSION_ENDED));
+    /**
+     * Splits the enrolled list into unmarked and settled students, published as one snapshot.
+     */
+    private synchronized void rebuildCandidateTiers() {
+        List<? extends Recognisable> enrolled = recognisableObjects;
+        if (enrolled == null) {
+            candidateTiers = null;
+            return;
+        }
 
-            if (FaceConfig.getInstance().isLoggingEnabled()) {
-                AppLogger.logf("Face recognition stopped - Session summary: %d unique faces detected",
-                    loggedUsers != null ? loggedUsers.size() : 0);
+        List<Recognisable> unmarked = new ArrayList<>();
+        List<Recognisable> settled = new ArrayList<>();
+        for (Recognisable recognisable : enrolled) {
+            if (settledIds.contains(recognisable.getRecognitionId())) {
+                settled.add(recognisable);
+            } else {
+                unmarked.add(recognisable);
             }
         }
+        candidateTiers = new CandidateTiers(List.copyOf(unmarked), List.copyOf(settled));
+    }
+
+    /**
+     * Stop face recognition and cleanup resources. Frontend calls this to end
+     * attendance session. Frames still being processed on other threads finish
+     * without marking anyone present.
+     */
+    public void stop() {
+        synchronized (lifecycleLock) {
+            if (!isRunning) {
+                return;
+            }
 
-        histogramRecognizer.cleanup();
-        maskAwareRecognizer.cleanup();
-        cachedFaces.clear();
-        recognitionCache.clear();
-        recognitionCacheTime.clear();
-        frameSkipCounter = 0;
+            this.isRunning = false;
+            this.recognisableObjects = null;
+            rebuildCandidateTiers();
+
+            // End current session
+            if (currentSession != null) {
+                currentSession.endSession();
+                eventEmitter.emit(new AttendanceSessionEvent(currentSession, AttendanceSessionEvent.SESSION_ENDED));
+
+                if (FaceConfig.getInstance().isLoggingEnabled()) {
+                    AppLogger.logf("Face recognition stopped - Session summary: %d unique faces detected",
+                        loggedUsers != null ? loggedUsers.size() : 0);
+                    AppLogger.logf("Full-face %s", histogramRecognizer.getCascadeStats());
+                    AppLogger.logf("Mask-aware %s", maskAwareRecognizer.getCascadeStats());
+                    AppLogger.logf("Face caches: %s", getCacheStats());
+                    AppLogger.logf("Candidate tiers: %d students settled", settledIds.size());
+                    for (FrameStream stream : openStreams) {
+                        if (stream.motionGate != null) {
+                            AppLogger.logf("Motion gate: %s", stream.motionGate.getStats());
+                        }
+                    }
+                }
+            }
+
+            histogramRecognizer.cleanup();
+            maskAwareRecognizer.cleanup();
+            if (embeddingRecognizer != null) {
+                embeddingRecognizer.cleanup();
+            }
+            histogramRecognizer.resetCascadeStats();
+            maskAwareRecognizer.resetCascadeStats();
+            // Streams hand their detectors back; a thread that processes frames again opens a new one
+            for (FrameStream stream : openStreams) {
+                stream.close();
+            }
+            openStreams.clear();
+            evidenceCache.clear();
+            maskCache.clear();
+            livenessCache.clear();
+            if (blinkTracker != null) {
+                blinkTracker.reset();
+            }
+            settledIds.clear();
+        }
     }
 
     /**
@@ -159,6 +429,16 @@ public class FaceRecognitionService {
         return recognisableObjects != null ? recognisableObjects.size() : 0;
     }
 
+    /**
+     * Get size and hit/miss/eviction counters of the per-face caches (for debugging/monitoring).
+     */
+    public List<ExpiringCache.Stats> getCacheStats() {
+        if (blinkTracker != null) {
+            return List.of(evidenceCache.getStats(), maskCache.getStats(), blinkTracker.getStats());
+        }
+        return List.of(evidenceCache.getStats(), maskCache.getStats(), livenessCache.getStats());
+    }
+
     /**
      * Get current attendance session.
      */
@@ -166,76 +446,174 @@ public class FaceRecognitionService {
         return currentSession;
     }
 
+    /**
+     * Detects faces and recognises them in one call, detecting only on every Nth frame as
+     * chosen by the adaptive frame controller.
+     * Single-threaded alternative to {@link g1t1.opencv.pipeline.FramePipeline}; each thread
+     * calling it is treated as its own camera.
+     */
     public void processFrame(Mat frame, List<DetectionBoundingBox> boxes) {
-        List<DetectedFace> detectedFaces;
-        if (frameSkipCounter % FRAME_SKIP_INTERVAL == 0) {
-            Mat smallFrame = new Mat();
-            double scaleFactor = 1;
-            Imgproc.resize(frame, smallFrame, new Size(frame.cols() * scaleFactor, frame.rows() * scaleFactor));
-
-            List<DetectedFace> smallDetections = faceDetector.detectFaces(smallFrame);
-            detectedFaces = scaleDetectedFaces(smallDetections, 1.0 / scaleFactor);
-            cachedFaces = detectedFaces;
-            frameSkipCounter = 0;
-
-            smallFrame.release();
-        } else {
-            detectedFaces = cachedFaces;
-        }
-        frameSkipCounter++;
+        long startTime = System.nanoTime();
+        List<DetectedFace> detectedFaces = currentStream().nextFaces(frame);
 
         // Draw detection boxes and try recognition
         boxes.clear();
 
         for (DetectedFace detectedFace : detectedFaces) {
-            Rect box = detectedFace.getBoundingBox();
-            if (box != null) {
-                DetectionBoundingBox boundingBox = new DetectionBoundingBox(new Point(box.x, box.y),
-                        new Point(box.x + box.width, box.y + box.height), 2);
-
-                Mat faceRegion = faceDetector.extractFaceRegion(frame, detectedFace);
-                if (!faceRegion.empty()) {
-                    boolean isLive = true;
-                    String livenessInfo = "";
-
-                    if (FaceConfig.getInstance().isLivenessEnabled()) {
-                        LivenessResult livenessResult = livenessChecker.checkLiveness(faceRegion);
-                        isLive = livenessResult.isLive();
-                        livenessInfo = isLive ? "" : " (PHOTO?)";
-                    }
+            DetectionBoundingBox boundingBox = recognizeFace(frame, detectedFace);
+            if (boundingBox != null) {
+                boxes.add(boundingBox);
+            }
+        }
 
-                    if (isLive) {
-                        // Check for mask detection
-                        String faceIdForRecognizer = "face_" + String.valueOf(detectedFace.getFaceId());
-                        boolean hasMask = checkMaskStatus(faceRegion, faceIdForRecognizer);
-                        String maskInfo = hasMask ? " [MASK]" : "";
+        frameController.record((System.nanoTime() - startTime) / 1e6, detectedFaces.size());
+    }
 
-                        RecognitionResult result = getCachedOrNewRecognition(faceRegion, recognisableObjects,
-                                String.valueOf(detectedFace.getFaceId()));
+    /**
+     * Controller choosing the detection interval and scale; feed it measured frame times.
+     */
+    public AdaptiveFrameController getFrameController() {
+        return frameController;
+    }
 
-                        if (result != null) {
-                            Recognisable recognisedObject = result.getMatchedObject();
-                            double confidence = result.getConfidence();
+    /**
+     * Detection stage: finds faces in a full camera frame and tracks them, so a face keeps
+     * its face ID, and the results cached for it, while it stays in view. With motion gating,
+     * only changed areas and tracked faces are searched between periodic full sweeps.
+     * Frames from one camera must come from one thread, which owns that camera's tracker.
+     */
+    public List<DetectedFace> detectFaces(Mat frame) {
+        return currentStream().detect(frame);
+    }
 
-                            if (confidence >= SettingsManager.getInstance().getDetectionThreshold()) {
-                                boundingBox.setRecognised(recognisedObject, livenessInfo + maskInfo, confidence);
+    /**
+     * Closes the calling thread's detection state, handing its detector back to the pool.
+     * A detection thread calls this once it stops processing frames.
+     */
+    public void closeStream() {
+        FrameStream stream = streams.get();
+        if (stream == null) {
+            return;
+        }
 
-                                handleRecognitionResult(recognisedObject, confidence);
-                            }
-                        }
-                    } else {
-                        // Liveliness check failed
-                        boundingBox.setPicture();
-                    }
+        streams.remove();
+        openStreams.remove(stream);
+        if (stream.motionGate != null && FaceConfig.getInstance().isLoggingEnabled()) {
+            AppLogger.logf("Motion gate: %s", stream.motionGate.getStats());
+        }
+        stream.close();
+    }
+
+    /**
+     * @return Detection state of the calling thread, opened on its first frame
+     */
+    private FrameStream currentStream() {
+        FrameStream stream = streams.get();
+        if (stream == null || stream.isClosed()) {
+            stream = new FrameStream();
+            streams.set(stream);
+            openStreams.add(stream);
+        }
+        return stream;
+    }
+
+    private static List<Rect> scaleRegions(List<Rect> regions, double scaleFactor) {
+        if (regions == null) {
+            return null;
+        }
+        List<Rect> scaled = new ArrayList<>(regions.size());
+        for (Rect region : regions) {
+            scaled.add(new Rect((int) (region.x * scaleFactor), (int) (region.y * scaleFactor),
+                    (int) Math.ceil(region.width * scaleFactor), (int) Math.ceil(region.height * scaleFactor)));
+        }
+        return scaled;
+    }
+
+    /**
+     * Drops cached results of faces that have left the view.
+     */
+    private void forgetEndedTracks(FaceTracker tracker) {
+        for (int trackId : tracker.drainEndedTracks()) {
+            String faceId = String.valueOf(trackId);
+            evidenceCache.remove(faceId);
+            maskCache.remove("face_" + faceId);
+            livenessCache.remove(faceId);
+            if (blinkTracker != null) {
+                blinkTracker.forget(faceId);
+            }
+        }
+    }
+
+    /**
+     * Recognition stage: liveness, mask check and recognition for one detected face.
+     * Safe to call from several worker threads at once.
+     *
+     * @return Box to draw, or null if the face lies outside the frame
+     */
+    public DetectionBoundingBox recognizeFace(Mat frame, DetectedFace detectedFace) {
+        Rect box = detectedFace.getBoundingBox();
+        if (box == null) {
+            return null;
+        }
+
+        Mat faceRegion = FaceDetector.extractFaceRegion(frame, detectedFace);
+        if (faceRegion.empty()) {
+            return null;
+        }
+
+        // Grayscale, HSV, Laplacian and blur planes computed once for all per-face checks
+        FaceAnalysis analysis = new FaceAnalysis(faceRegion);
+        DetectionBoundingBox boundingBox = new DetectionBoundingBox(new Point(box.x, box.y),
+                new Point(box.x + box.width, box.y + box.height), 2);
+        CandidateTiers candidates = candidateTiers;
+        boolean isLive = true;
+        boolean livenessPending = false;
+        String livenessInfo = "";
+
+        if (FaceConfig.getInstance().isLivenessEnabled()) {
+            LivenessResult livenessResult = getCachedOrNewLiveness(analysis,
+                    String.valueOf(detectedFace.getFaceId()));
+            livenessPending = livenessResult.isPending();
+            isLive = livenessResult.isLive() || livenessPending;
+            livenessInfo = livenessPending ? " (BLINK?)" : isLive ? "" : " (PHOTO?)";
+        }
 
-                    boxes.add(boundingBox);
-                    faceRegion.release();
+        if (!isLive) {
+            // Liveliness check failed
+            boundingBox.setPicture();
+        } else if (candidates != null) {
+            // Check for mask detection
+            String faceIdForRecognizer = "face_" + String.valueOf(detectedFace.getFaceId());
+            boolean hasMask = checkMaskStatus(analysis, faceIdForRecognizer);
+            String maskInfo = hasMask ? " [MASK]" : "";
+
+            RecognitionResult result = getCachedOrNewRecognition(analysis, candidates,
+                    String.valueOf(detectedFace.getFaceId()));
+
+            if (result != null) {
+                Recognisable recognisedObject = result.getMatchedObject();
+                double confidence = result.getConfidence();
+
+                if (confidence >= SettingsManager.getInstance().getDetectionThreshold()) {
+                    boundingBox.setRecognised(recognisedObject, livenessInfo + maskInfo, confidence);
+
+                    // Faces still waiting to blink are shown but not marked present yet
+                    if (!livenessPending) {
+                        handleRecognitionResult(recognisedObject, confidence);
+                    }
                 }
             }
         }
+
+        analysis.release();
+        faceRegion.release();
+        return boundingBox;
     }
 
-    private void handleRecognitionResult(Recognisable recognisedObject, double confidence) {
+    private synchronized void handleRecognitionResult(Recognisable recognisedObject, double confidence) {
+        if (!isRunning) {
+            return;
+        }
         String recognitionId = recognisedObject.getRecognitionId();
 
         boolean isNewRecognition = !currentSession.isStudentDetected(recognitionId);
@@ -258,38 +636,46 @@ public class FaceRecognitionService {
         }
     }
 
-    private boolean checkMaskStatus(Mat faceRegion, String recognitionId) {
+    private boolean checkMaskStatus(FaceAnalysis analysis, String recognitionId) {
         if (!FaceConfig.getInstance().isMaskDetectionEnabled()) {
             return false;
         }
 
-        long currentTime = System.currentTimeMillis();
-        boolean needsCheck = false;
+        Boolean cached = maskCache.get(recognitionId);
+        if (cached != null) {
+            return cached;
+        }
 
-        if (!maskCache.containsKey(recognitionId)) {
-            needsCheck = true;
-        } else {
-            Long lastCheck = lastMaskCheckTime.get(recognitionId);
-            if (lastCheck == null || (currentTime - lastCheck) > 500) { // 500ms - more responsive
-                needsCheck = true;
-            }
+        boolean hasMask = maskDetector.detectMask(analysis);
+        maskCache.put(recognitionId, hasMask);
+        return hasMask;
+    }
+
+    /**
+     * Get the face's liveness verdict if checked recently, otherwise check it again.
+     * In blink mode every frame is a sample for the track, and the tracker keeps the verdict.
+     */
+    private LivenessResult getCachedOrNewLiveness(FaceAnalysis analysis, String faceId) {
+        if (blinkTracker != null) {
+            return blinkTracker.update(faceId, analysis, System.currentTimeMillis());
         }
 
-        boolean hasMask;
-        if (needsCheck) {
-            hasMask = maskDetector.detectMask(faceRegion);
-            maskCache.put(recognitionId, hasMask);
-            lastMaskCheckTime.put(recognitionId, currentTime);
-        } else {
-            hasMask = maskCache.get(recognitionId);
+        LivenessResult cached = livenessCache.get(faceId);
+        if (cached != null) {
+            return cached;
         }
 
-        return hasMask;
+        LivenessResult result = livenessChecker.checkLiveness(analysis);
+        livenessCache.put(faceId, result);
+        return result;
     }
 
-    private Recognizer selectRecognizer(Mat faceRegion, String recognitionId) {
-        boolean hasMask = checkMaskStatus(faceRegion, recognitionId);
-        return hasMask ? maskAwareRecognizer : histogramRecognizer;
+    private Recognizer selectRecognizer(FaceAnalysis analysis, String recognitionId) {
+        boolean hasMask = checkMaskStatus(analysis, recognitionId);
+        if (hasMask) {
+            return maskAwareRecognizer;
+        }
+        return embeddingRecognizer != null ? embeddingRecognizer : histogramRecognizer;
     }
 
     /**
@@ -310,31 +696,132 @@ public class FaceRecognitionService {
     }
 
     /**
-     * Get cached recognition result if still valid, otherwise perform recognition.
+     * Recognise the face if this frame is among the best of its track so far, and return the
+     * fused result of the track's best frames. Evidence is rebuilt once the track has gone the
+     * refresh period without a better frame.
+     */
+    private RecognitionResult getCachedOrNewRecognition(FaceAnalysis analysis, CandidateTiers candidates,
+                                                        String faceId) {
+        FaceConfig config = FaceConfig.getInstance();
+        TrackEvidence evidence;
+        synchronized (evidenceCache) {
+            evidence = evidenceCache.get(faceId);
+            if (evidence == null) {
+                evidence = new TrackEvidence(config.getEvidenceFrames());
+                evidenceCache.put(faceId, evidence);
+            }
+        }
+
+        RecognitionResult pinned = evidence.getPinned();
+        if (pinned != null) {
+            if (settledIds.contains(pinned.getMatchedObject().getRecognitionId())) {
+                return pinned;
+            }
+            // The student's mark was reverted, so the track is recognised again
+            evidence.unpin();
+        }
+
+        double quality = FaceQuality.score(analysis).value();
+        if (evidence.tryStartRecognition(quality, config.getEvidenceMinQuality(), System.currentTimeMillis(),
+                config.getTrackingRecognitionRetryMs())) {
+            String faceIdForRecognizer = "face_" + faceId;
+            Recognizer selectedRecognizer = selectRecognizer(analysis, faceIdForRecognizer);
+            // Students still missing go first; the settled students only when none of them matches
+            evidence.add(quality, selectedRecognizer.getBestMatch(analysis, candidates.unmarked(), candidates.settled(),
+                    SettingsManager.getInstance().getDetectionThreshold()));
+        }
+
+        RecognitionResult fused = evidence.fused();
+        if (fused != null && settledIds.contains(fused.getMatchedObject().getRecognitionId())
+                && fused.getConfidence() >= SettingsManager.getInstance().getSettings().getAutoMarkThreshold()) {
+            evidence.pin(fused);
+        }
+        return fused;
+    }
+
+    /**
+     * Enrolled students split by whether they still need to be found.
+     *
+     * @param unmarked Students not yet marked present, scored first for every face
+     * @param settled  Students already auto-marked present, scored only when no unmarked student matches
      */
-    private RecognitionResult getCachedOrNewRecognition(Mat faceRegion,
-                                                        List<? extends Recognisable> recognisableObjects, String faceId) {
-        long currentTime = System.currentTimeMillis();
+    private record CandidateTiers(List<Recognisable> unmarked, List<Recognisable> settled) {
+    }
 
-        // Check if we have a valid cached result
-        RecognitionResult cached = recognitionCache.get(faceId);
-        Long cacheTime = recognitionCacheTime.get(faceId);
+    /**
+     * Detection state of one camera: its own detector, tracker, motion gate and frame skip
+     * counter. Used only by the thread that opened it, except that {@link #stop()} closes it.
+     */
+    private final class FrameStream {
+        private final FaceTracker tracker;
+        private final MotionGate motionGate; // null when motion gating is disabled
+        private FaceDetector detector;
+        private int frameSkipCounter = 0;
+        private List<DetectedFace> cachedFaces = new ArrayList<>();
+
+        FrameStream() {
+            FaceConfig config = FaceConfig.getInstance();
+            this.tracker = new FaceTracker(config.getTrackingMinIou(), config.getTrackingMaxMissedDetections(),
+                    trackIds);
+            this.motionGate = createMotionGate();
+            this.detector = FaceDetectorProvider.getInstance().acquire();
+        }
 
-        if (cached != null && cacheTime != null && (currentTime - cacheTime) < RECOGNITION_CACHE_DURATION) {
-            return cached; // Return cached result
+        /**
+         * Faces for the next frame: detected afresh on every Nth frame, the last detections otherwise.
+         */
+        synchronized List<DetectedFace> nextFaces(Mat frame) {
+            if (frameSkipCounter % frameController.getDetectionInterval() == 0) {
+                cachedFaces = detect(frame);
+                frameSkipCounter = 0;
+            }
+            frameSkipCounter++;
+            return cachedFaces;
         }
 
-        // Perform new recognition
-        String faceIdForRecognizer = "face_" + faceId;
-        Recognizer selectedRecognizer = selectRecognizer(faceRegion, faceIdForRecognizer);
-        RecognitionResult result = selectedRecognizer.getBestMatch(faceRegion, recognisableObjects);
+        synchronized List<DetectedFace> detect(Mat frame) {
+            if (detector == null) {
+                return new ArrayList<>();
+            }
+
+            long now = System.currentTimeMillis();
+            List<Rect> regions = motionGate != null
+                    ? motionGate.selectRegions(frame, tracker.getTrackWindows(now), now)
+                    : null;
+
+            double scaleFactor = frameController.getDetectionScale();
+            List<DetectedFace> smallDetections;
+            if (scaleFactor < 1.0) {
+                Mat smallFrame = new Mat();
+                Imgproc.resize(frame, smallFrame, new Size(frame.cols() * scaleFactor, frame.rows() * scaleFactor), 0, 0,
+                        Imgproc.INTER_AREA);
+                // Scale the minimum face with the frame, so faces of min.size full-frame pixels stay findable
+                smallDetections = detector.detectFaces(smallFrame, scaleRegions(regions, scaleFactor),
+                        detector.getMinSize(scaleFactor));
+                smallFrame.release();
+            } else {
+                smallDetections = detector.detectFaces(frame, regions);
+            }
 
-        // Cache the result
-        if (result != null) {
-            recognitionCache.put(faceId, result);
-            recognitionCacheTime.put(faceId, currentTime);
+            List<DetectedFace> faces = tracker.update(scaleDetectedFaces(smallDetections, 1.0 / scaleFactor), now);
+            forgetEndedTracks(tracker);
+            return faces;
         }
 
-        return result;
+        synchronized boolean isClosed() {
+            return detector == null;
+        }
+
+        synchronized void close() {
+            if (detector != null) {
+                FaceDetectorProvider.getInstance().release(detector);
+                detector = null;
+            }
+            tracker.reset();
+            if (motionGate != null) {
+                motionGate.reset();
+            }
+            cachedFaces = new ArrayList<>();
+        }
     }
-}
\ No newline at end of file
+}
@@ -67,6 +67,221 @@ public class FaceConfig {
         return Integer.parseInt(properties.getProperty("detection.min.size", "30"));
     }
 
+    // Detector backend selection
+    public String getDetectorBackend() {
+        return properties.getProperty("detection.backend", "haar");
+    }
+
+    public String getHaarModelPath() {
+        return properties.getProperty("detection.haar.model", "models/haarcascade_frontalface_alt.xml");
+    }
+
+    public String getLbpModelPath() {
+        return properties.getProperty("detection.lbp.model", "models/lbpcascade_frontalface_improved.xml");
+    }
+
+    public String getYuNetModelPath() {
+        return properties.getProperty("detection.yunet.model", "models/face_detection_yunet_2023mar.onnx");
+    }
+
+    public double getYuNetScoreThreshold() {
+        return Double.parseDouble(properties.getProperty("detection.yunet.score.threshold", "0.8"));
+    }
+
+    public double getYuNetNmsThreshold() {
+        return Double.parseDouble(properties.getProperty("detection.yunet.nms.threshold", "0.3"));
+    }
+
+    public boolean isDetectionModelDownloadEnabled() {
+        return Boolean.parseBoolean(properties.getProperty("detection.model.download", "false"));
+    }
+
+    public int getDetectorPoolSize() {
+        return Integer.parseInt(properties.getProperty("detection.pool.size", "2"));
+    }
+
+    // Tiled detection for high-resolution frames
+    public boolean isTiledDetectionEnabled() {
+        return Boolean.parseBoolean(properties.getProperty("detection.tiled.enabled", "false"));
+    }
+
+    public int getDetectionTileSize() {
+        return Integer.parseInt(properties.getProperty("detection.tile.size", "640"));
+    }
+
+    public int getDetectionTileOverlap() {
+        return Integer.parseInt(properties.getProperty("detection.tile.overlap", "160"));
+    }
+
+    public int getTiledDetectionThreads() {
+        return Integer.parseInt(properties.getProperty("detection.tiled.threads", "0"));
+    }
+
+    public double getTiledNmsIou() {
+        return Double.parseDouble(properties.getProperty("detection.tiled.nms.iou", "0.3"));
+    }
+
+    // Approximate nearest-neighbour candidate search
+    public boolean isAnnEnabled() {
+        return Boolean.parseBoolean(properties.getProperty("recognition.ann.enabled", "false"));
+    }
+
+    public int getAnnMinRows() {
+        return Integer.parseInt(properties.getProperty("recognition.ann.min.rows", "2000"));
+    }
+
+    public int getAnnTopK() {
+        return Integer.parseInt(properties.getProperty("recognition.ann.top.k", "10"));
+    }
+
+    public int getAnnMaxConnections() {
+        return Integer.parseInt(properties.getProperty("recognition.ann.m", "16"));
+    }
+
+    public int getAnnEfConstruction() {
+        return Integer.parseInt(properties.getProperty("recognition.ann.ef.construction", "100"));
+    }
+
+    public int getAnnEfSearch() {
+        return Integer.parseInt(properties.getProperty("recognition.ann.ef.search", "64"));
+    }
+
+    // Cascaded coarse-to-fine scoring
+    public boolean isCascadeEnabled() {
+        return Boolean.parseBoolean(properties.getProperty("recognition.cascade.enabled", "true"));
+    }
+
+    public int getCascadeHistogramTopK() {
+        return Integer.parseInt(properties.getProperty("recognition.cascade.histogram.top.k", "20"));
+    }
+
+    public double getCascadeHistogramMinScore() {
+        return Double.parseDouble(properties.getProperty("recognition.cascade.histogram.min.score", "0.0"));
+    }
+
+    public int getCascadeLbpTopK() {
+        return Integer.parseInt(properties.getProperty("recognition.cascade.lbp.top.k", "5"));
+    }
+
+    public double getCascadeLbpMinScore() {
+        return Double.parseDouble(properties.getProperty("recognition.cascade.lbp.min.score", "0.0"));
+    }
+
+    // Candidate tiers
+    /**
+     * @return Whether auto-marked students are only scored for faces no unmarked student matches
+     */
+    public boolean isCandidateTiersEnabled() {
+        return Boolean.parseBoolean(properties.getProperty("recognition.tiers.enabled", "true"));
+    }
+
+    // Gallery compaction
+    public int getPrototypesPerStudent() {
+        return Integer.parseInt(properties.getProperty("recognition.prototypes.per.student", "8"));
+    }
+
+    // HOG dimensionality reduction
+    public boolean isHogPcaEnabled() {
+        return Boolean.parseBoolean(properties.getProperty("recognition.hog.pca.enabled", "false"));
+    }
+
+    /**
+     * @return Projected HOG length, kept within 64-256; fewer loses accuracy, more loses the speed-up
+     */
+    public int getHogPcaDimensions() {
+        int dimensions = Integer.parseInt(properties.getProperty("recognition.hog.pca.dimensions", "128"));
+        return Math.clamp(dimensions, 64, 256);
+    }
+
+    // Recognizer selection and DNN embeddings
+    public String getRecognizerType() {
+        return properties.getProperty("recognition.recognizer", "histogram");
+    }
+
+    public String getEmbeddingModelPath() {
+        return properties.getProperty("recognition.embedding.model", "models/face_recognition_sface_2021dec.onnx");
+    }
+
+    public double getEmbeddingCosineThreshold() {
+        return Double.parseDouble(properties.getProperty("recognition.embedding.cosine.threshold", "0.363"));
+    }
+
+    // Face tracking
+    public double getTrackingMinIou() {
+        return Double.parseDouble(properties.getProperty("tracking.min.iou", "0.3"));
+    }
+
+    public int getTrackingMaxMissedDetections() {
+        return Integer.parseInt(properties.getProperty("tracking.max.missed.detections", "5"));
+    }
+
+    public long getTrackingRecognitionRefreshMs() {
+        return Long.parseLong(properties.getProperty("tracking.recognition.refresh.ms", "5000"));
+    }
+
+    public long getTrackingRecognitionRetryMs() {
+        return Long.parseLong(properties.getProperty("tracking.recognition.retry.ms", "500"));
+    }
+
+    public int getEvidenceFrames() {
+        return Integer.parseInt(properties.getProperty("tracking.evidence.frames", "3"));
+    }
+
+    public double getEvidenceMinQuality() {
+        return Double.parseDouble(properties.getProperty("tracking.evidence.min.quality", "0.2"));
+    }
+
+    public long getLivenessRefreshMs() {
+        return Long.parseLong(properties.getProperty("tracking.liveness.refresh.ms", "1000"));
+    }
+
+    public int getFaceCacheMaxEntries() {
+        return Integer.parseInt(properties.getProperty("tracking.cache.max.entries", "256"));
+    }
+
+    // Adaptive frame control
+    public boolean isAdaptiveFrameControlEnabled() {
+        return Boolean.parseBoolean(properties.getProperty("adaptive.enabled", "true"));
+    }
+
+    public double getAdaptiveMinScale() {
+        return Double.parseDouble(properties.getProperty("adaptive.min.scale", "0.5"));
+    }
+
+    public int getAdaptiveMaxInterval() {
+        return Integer.parseInt(properties.getProperty("adaptive.max.interval", "4"));
+    }
+
+    public int getAdaptiveManyFaces() {
+        return Integer.parseInt(properties.getProperty("adaptive.many.faces", "4"));
+    }
+
+    // Motion gating
+    public boolean isMotionGatingEnabled() {
+        return Boolean.parseBoolean(properties.getProperty("motion.enabled", "true"));
+    }
+
+    public double getMotionThreshold() {
+        return Double.parseDouble(properties.getProperty("motion.threshold", "25"));
+    }
+
+    public long getMotionFullSweepMs() {
+        return Long.parseLong(properties.getProperty("motion.full.sweep.ms", "2000"));
+    }
+
+    public double getMotionMaxCoverage() {
+        return Double.parseDouble(properties.getProperty("motion.max.coverage", "0.6"));
+    }
+
+    // Frame pipeline
+    public int getPipelineRecognitionWorkers() {
+        return Integer.parseInt(properties.getProperty("pipeline.recognition.workers", "2"));
+    }
+
+    public int getPipelineQueueCapacity() {
+        return Integer.parseInt(properties.getProperty("pipeline.queue.capacity", "2"));
+    }
+
     // Camera Settings
     public int getCameraIndex() {
         return SettingsManager.getInstance().getCameraDevice();
@@ -89,10 +304,36 @@ public class FaceConfig {
         return SettingsManager.getInstance().getSettings().getLivenessEnabled();
     }
 
+    /**
+     * @return "texture" to judge each face from a single frame, or "blink" to wait for blinks over its track
+     */
+    public String getLivenessMode() {
+        return properties.getProperty("liveness.mode", "texture");
+    }
+
+    /**
+     * @return Samples of a track between two YuNet landmark searches; the landmarks are reused in between
+     */
+    public int getBlinkLocateInterval() {
+        return Integer.parseInt(properties.getProperty("liveness.blink.locate.interval", "5"));
+    }
+
     public int getBlinkThreshold() {
         return Integer.parseInt(properties.getProperty("liveness.blink.threshold", "3"));
     }
 
+    public double getBlinkClosedDrop() {
+        return Double.parseDouble(properties.getProperty("liveness.blink.drop", "0.25"));
+    }
+
+    public long getBlinkMaxMs() {
+        return Long.parseLong(properties.getProperty("liveness.blink.max.ms", "600"));
+    }
+
+    public long getBlinkTimeoutMs() {
+        return Long.parseLong(properties.getProperty("liveness.blink.timeout.ms", "30000"));
+    }
+
     public boolean isMaskDetectionEnabled() {
         return Boolean.parseBoolean(properties.getProperty("mask.detection.enabled", "true"));
     }
@@ -60,6 +60,17 @@ public class DetectionBoundingBox {
         }
     }
 
+    /**
+     * @return Name of the recognised person, or null if the face was not recognised
+     */
+    public String getName() {
+        return name;
+    }
+
+    public boolean isPicture() {
+        return isPicture;
+    }
+
     public boolean getIsTeacher() {
         return isTeacher;
     }
@@ -7,11 +7,20 @@ public class LivenessResult {
     private final boolean isLive;
     private final double confidence;
     private final String reason;
+    private final boolean pending;
 
     public LivenessResult(boolean isLive, double confidence, String reason) {
+        this(isLive, confidence, reason, false);
+    }
+
+    /**
+     * @param pending True if the face has not been observed long enough for a verdict yet
+     */
+    public LivenessResult(boolean isLive, double confidence, String reason, boolean pending) {
         this.isLive = isLive;
         this.confidence = confidence;
         this.reason = reason;
+        this.pending = pending;
     }
 
     public boolean isLive() {
@@ -25,4 +34,8 @@ public class LivenessResult {
     public String getReason() {
         return reason;
     }
-}
\ No newline at end of file
+
+    public boolean isPending() {
+        return pending;
+    }
+}
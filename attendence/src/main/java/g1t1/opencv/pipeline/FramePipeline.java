@@ -0,0 +1,321 @@
+package g1t1.opencv.pipeline;
+
+import g1t1.features.logger.AppLogger;
+import g1t1.features.logger.LogLevel;
+import g1t1.opencv.FaceRecognitionService;
+import g1t1.opencv.config.FaceConfig;
+import g1t1.opencv.models.DetectedFace;
+import g1t1.opencv.models.DetectionBoundingBox;
+import g1t1.opencv.services.AdaptiveFrameController;
+import g1t1.utils.DropOldestQueue;
+import g1t1.utils.events.opencv.FramePipelineStatsEvent;
+import org.opencv.core.Mat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Staged camera frame processing: capture → detect → recognise (worker pool) → render.
+ * Stages run on their own threads and hand frames over through bounded drop-oldest queues,
+ * so a slow recognition never holds up the preview; it just works on fewer, fresher frames.
+ * <p>
+ * The capture thread calls {@link #submit}. Every frame is rendered with the boxes of the
+ * most recent finished recognition; frames are detected at most at target.fps, less often when
+ * the service's adaptive frame controller raises the detection interval.
+ */
+public class FramePipeline {
+    private static final long POLL_TIMEOUT_MS = 100;
+    private static final long STATS_INTERVAL_MS = 1000;
+
+    private final FaceRecognitionService service;
+    private final FrameRenderer renderer;
+    private final long msPerDetection;
+    private final int recognitionWorkers;
+
+    private final DropOldestQueue<Frame> detectQueue;
+    private final DropOldestQueue<Detections> recogniseQueue;
+    private final DropOldestQueue<Frame> renderQueue;
+    private final StageMetrics captureMetrics = new StageMetrics("capture");
+    private final StageMetrics detectMetrics = new StageMetrics("detect");
+    private final StageMetrics recogniseMetrics = new StageMetrics("recognise");
+    private final StageMetrics renderMetrics = new StageMetrics("render");
+
+    private final AtomicReference<Published> latestBoxes = new AtomicReference<>(new Published(-1, List.of()));
+    private final List<Thread> threads = new ArrayList<>();
+    private long nextSequence;
+    private long lastDetectionSubmit;
+    private long lastStatsEmit;
+    private volatile boolean running;
+
+    /**
+     * Draws the boxes onto a frame and displays it. Called on the render thread; the frame
+     * is released once it returns.
+     */
+    @FunctionalInterface
+    public interface FrameRenderer {
+        void render(Mat frame, List<DetectionBoundingBox> boxes);
+    }
+
+    public FramePipeline(FaceRecognitionService service, FrameRenderer renderer) {
+        FaceConfig config = FaceConfig.getInstance();
+        this.service = service;
+        this.renderer = renderer;
+        this.msPerDetection = 1000 / Math.max(1, config.getTargetFps());
+        this.recognitionWorkers = Math.max(1, config.getPipelineRecognitionWorkers());
+
+        int capacity = Math.max(1, config.getPipelineQueueCapacity());
+        this.detectQueue = new DropOldestQueue<>(capacity, Frame::release);
+        this.recogniseQueue = new DropOldestQueue<>(capacity, Detections::release);
+        this.renderQueue = new DropOldestQueue<>(capacity, Frame::release);
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+
+        threads.add(newThread("frame-detect", this::runDetection));
+        for (int i = 0; i < recognitionWorkers; i++) {
+            threads.add(newThread("frame-recognise-" + i, this::runRecognition));
+        }
+        threads.add(newThread("frame-render", this::runRendering));
+        threads.forEach(Thread::start);
+    }
+
+    /**
+     * Stops every stage, waiting for each to finish its current frame, then releases queued frames.
+     * The capture thread must stop submitting first.
+     */
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+
+        for (Thread thread : threads) {
+            thread.interrupt();
+        }
+        // Stages exit once running is false; waiting for all of them means none can offer after the clear
+        boolean interrupted = false;
+        for (Thread thread : threads) {
+            while (thread.isAlive()) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        threads.clear();
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        detectQueue.clear();
+        recogniseQueue.clear();
+        renderQueue.clear();
+
+        if (FaceConfig.getInstance().isLoggingEnabled()) {
+            AppLogger.logf("Frame pipeline stopped: %s", getStats());
+        }
+    }
+
+    /**
+     * Hands a captured frame to the pipeline. Never blocks on downstream stages.
+     *
+     * @param frame Camera frame; copied, so the caller may reuse it immediately
+     */
+    public void submit(Mat frame) {
+        if (!running || frame.empty()) {
+            return;
+        }
+
+        long startTime = System.nanoTime();
+        long sequence = nextSequence++;
+        renderQueue.offer(new Frame(sequence, frame.clone()));
+
+        long now = System.currentTimeMillis();
+        if (now - lastDetectionSubmit >= msPerDetection * service.getFrameController().getDetectionInterval()) {
+            lastDetectionSubmit = now;
+            detectQueue.offer(new Frame(sequence, frame.clone()));
+        }
+        captureMetrics.record(System.nanoTime() - startTime);
+    }
+
+    /**
+     * @return Stage snapshots in pipeline order: capture, detect, recognise, render
+     */
+    public List<StageStats> getStats() {
+        return List.of(
+                captureMetrics.snapshot(0, 0),
+                detectMetrics.snapshot(detectQueue.size(), detectQueue.getDropped()),
+                recogniseMetrics.snapshot(recogniseQueue.size(), recogniseQueue.getDropped()),
+                renderMetrics.snapshot(renderQueue.size(), renderQueue.getDropped()));
+    }
+
+    private void runDetection() {
+        try {
+            while (running) {
+                Frame frame;
+                try {
+                    frame = detectQueue.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (frame == null) {
+                    continue;
+                }
+
+                long startTime = System.nanoTime();
+                try {
+                    List<DetectedFace> faces = service.detectFaces(frame.image);
+                    recogniseQueue.offer(new Detections(frame, faces, System.nanoTime() - startTime));
+                } catch (RuntimeException e) {
+                    frame.release();
+                    logStageFailure("detect", e);
+                }
+                detectMetrics.record(System.nanoTime() - startTime);
+            }
+        } finally {
+            // Hands the pooled detector back rather than waiting for the service to stop
+            service.closeStream();
+        }
+    }
+
+    private void runRecognition() {
+        while (running) {
+            Detections detections;
+            try {
+                detections = recogniseQueue.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (detections == null) {
+                continue;
+            }
+
+            long startTime = System.nanoTime();
+            try {
+                List<DetectionBoundingBox> boxes = new ArrayList<>();
+                for (DetectedFace face : detections.faces) {
+                    DetectionBoundingBox box = service.recognizeFace(detections.frame.image, face);
+                    if (box != null) {
+                        boxes.add(box);
+                    }
+                }
+                publish(detections.frame.sequence, boxes);
+
+                // Average cost per target.fps slot, as one detection covers interval slots
+                AdaptiveFrameController controller = service.getFrameController();
+                double frameMs = (detections.detectNanos + System.nanoTime() - startTime) / 1e6;
+                controller.record(frameMs / controller.getDetectionInterval(), detections.faces.size());
+            } catch (RuntimeException e) {
+                logStageFailure("recognise", e);
+            } finally {
+                detections.release();
+            }
+            recogniseMetrics.record(System.nanoTime() - startTime);
+        }
+    }
+
+    private void runRendering() {
+        while (running) {
+            Frame frame;
+            try {
+                frame = renderQueue.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (frame == null) {
+                continue;
+            }
+
+            long startTime = System.nanoTime();
+            try {
+                renderer.render(frame.image, latestBoxes.get().boxes);
+            } catch (RuntimeException e) {
+                logStageFailure("render", e);
+            } finally {
+                frame.release();
+            }
+            renderMetrics.record(System.nanoTime() - startTime);
+            emitStatsIfDue();
+        }
+    }
+
+    /**
+     * Workers can finish out of order, so only boxes from a newer frame replace the current ones.
+     */
+    private void publish(long sequence, List<DetectionBoundingBox> boxes) {
+        Published next = new Published(sequence, List.copyOf(boxes));
+        Published current = latestBoxes.get();
+        while (current.sequence < sequence && !latestBoxes.compareAndSet(current, next)) {
+            current = latestBoxes.get();
+        }
+    }
+
+    private void emitStatsIfDue() {
+        long now = System.currentTimeMillis();
+        if (now - lastStatsEmit >= STATS_INTERVAL_MS) {
+            lastStatsEmit = now;
+            service.getEventEmitter().emit(new FramePipelineStatsEvent(getStats()));
+        }
+    }
+
+    private Thread newThread(String name, Runnable body) {
+        Thread thread = new Thread(body, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private void logStageFailure(String stage, RuntimeException e) {
+        if (FaceConfig.getInstance().isLoggingEnabled()) {
+            AppLogger.logf(LogLevel.Error, "Frame pipeline %s stage failed: %s", stage, e.getMessage());
+        }
+    }
+
+    private record Frame(long sequence, Mat image) {
+        void release() {
+            image.release();
+        }
+    }
+
+    private record Detections(Frame frame, List<DetectedFace> faces, long detectNanos) {
+        void release() {
+            frame.release();
+        }
+    }
+
+    private record Published(long sequence, List<DetectionBoundingBox> boxes) {
+    }
+
+    /**
+     * Thread-safe latency counters for one stage.
+     */
+    private static final class StageMetrics {
+        private final String stage;
+        private final AtomicLong processed = new AtomicLong();
+        private final AtomicLong totalNanos = new AtomicLong();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        StageMetrics(String stage) {
+            this.stage = stage;
+        }
+
+        void record(long nanos) {
+            processed.incrementAndGet();
+            totalNanos.addAndGet(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        StageStats snapshot(int queueDepth, long dropped) {
+            long count = processed.get();
+            double averageMs = count == 0 ? 0.0 : totalNanos.get() / 1e6 / count;
+            return new StageStats(stage, queueDepth, dropped, count, averageMs, maxNanos.get() / 1e6);
+        }
+    }
+}
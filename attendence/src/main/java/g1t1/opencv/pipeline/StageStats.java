@@ -0,0 +1,19 @@
+package g1t1.opencv.pipeline;
+
+/**
+ * Snapshot of one frame pipeline stage.
+ *
+ * @param queueDepth       Items waiting in the stage's input queue
+ * @param dropped          Items evicted from the input queue unprocessed because the stage fell behind
+ * @param processed        Items the stage has finished
+ * @param averageLatencyMs Mean time spent processing one item
+ * @param maxLatencyMs     Longest time spent processing one item
+ */
+public record StageStats(String stage, int queueDepth, long dropped, long processed, double averageLatencyMs,
+                         double maxLatencyMs) {
+    @Override
+    public String toString() {
+        return String.format("%s{queue=%d, dropped=%d, processed=%d, avg=%.1fms, max=%.1fms}", stage, queueDepth,
+                dropped, processed, averageLatencyMs, maxLatencyMs);
+    }
+}
@@ -0,0 +1,150 @@
+package g1t1.opencv.services;
+
+import java.util.function.Consumer;
+
+/**
+ * Feedback controller keeping per-frame processing time within the target.fps budget.
+ * It tunes two knobs from a moving average of measured frame times: how often detection
+ * runs (every Nth frame) and how far frames are downscaled before detection.
+ * <p>
+ * Over budget, it runs detection less often when many faces are in view (recognition is the
+ * cost), otherwise it detects on a smaller frame. With headroom to spare, it restores detail
+ * first: more frequent detection, then a larger detection frame.
+ */
+public class AdaptiveFrameController {
+    private static final double SMOOTHING = 0.2;
+    private static final double OVER_BUDGET = 1.0;
+    private static final double UNDER_BUDGET = 0.6;
+    private static final double SCALE_STEP = 0.1;
+    private static final int SAMPLES_BETWEEN_CHANGES = 10;
+
+    private final boolean enabled;
+    private final double budgetMs;
+    private final double minScale;
+    private final int maxInterval;
+    private final int manyFaces;
+    private final Consumer<Decision> listener;
+
+    private double averageFrameMs;
+    private int samplesSinceChange;
+    private int detectionInterval;
+    private double detectionScale;
+
+    /**
+     * @param enabled       False keeps the initial interval and scale, only measuring frame times
+     * @param budgetMs      Processing time allowed per frame, 1000 / target.fps
+     * @param interval      Initial detection interval
+     * @param minScale      Smallest detection downscale factor (0, 1]
+     * @param maxInterval   Largest detection interval
+     * @param manyFaces     Faces in view above which slowing detection is preferred to downscaling
+     * @param listener      Called with every change the controller makes
+     */
+    public AdaptiveFrameController(boolean enabled, double budgetMs, int interval, double minScale, int maxInterval,
+                                   int manyFaces, Consumer<Decision> listener) {
+        this.enabled = enabled;
+        this.budgetMs = budgetMs;
+        this.minScale = Math.min(1.0, Math.max(0.1, minScale));
+        this.maxInterval = Math.max(1, maxInterval);
+        this.manyFaces = manyFaces;
+        this.listener = listener;
+        this.detectionInterval = Math.max(1, interval);
+        this.detectionScale = 1.0;
+    }
+
+    /**
+     * Feeds one processed frame's total time (detection plus recognition) into the controller.
+     *
+     * @param faceCount Faces found in that frame
+     */
+    public void record(double frameMs, int faceCount) {
+        Decision decision;
+        synchronized (this) {
+            averageFrameMs = averageFrameMs == 0 ? frameMs : averageFrameMs + SMOOTHING * (frameMs - averageFrameMs);
+            if (!enabled || ++samplesSinceChange < SAMPLES_BETWEEN_CHANGES) {
+                return;
+            }
+
+            decision = adjust(faceCount);
+            if (decision == null) {
+                return;
+            }
+            samplesSinceChange = 0;
+        }
+        listener.accept(decision);
+    }
+
+    private Decision adjust(int faceCount) {
+        double load = averageFrameMs / budgetMs;
+        int interval = detectionInterval;
+        double scale = detectionScale;
+        String reason;
+
+        if (load > OVER_BUDGET) {
+            boolean preferInterval = faceCount >= manyFaces || scale <= minScale;
+            if (preferInterval && interval < maxInterval) {
+                interval++;
+                reason = faceCount >= manyFaces ? "over budget, many faces: detect less often"
+                        : "over budget at minimum scale: detect less often";
+            } else if (scale > minScale) {
+                scale = Math.max(minScale, round(scale - SCALE_STEP));
+                reason = "over budget: detect on a smaller frame";
+            } else {
+                return null;
+            }
+        } else if (load < UNDER_BUDGET) {
+            if (interval > 1) {
+                interval--;
+                reason = "under budget: detect more often";
+            } else if (scale < 1.0) {
+                scale = Math.min(1.0, round(scale + SCALE_STEP));
+                reason = "under budget: detect on a larger frame";
+            } else {
+                return null;
+            }
+        } else {
+            return null;
+        }
+
+        detectionInterval = interval;
+        detectionScale = scale;
+        return new Decision(interval, scale, averageFrameMs, budgetMs, faceCount, reason);
+    }
+
+    private static double round(double scale) {
+        return Math.round(scale * 100) / 100.0;
+    }
+
+    /**
+     * @return Run detection on every Nth frame
+     */
+    public synchronized int getDetectionInterval() {
+        return detectionInterval;
+    }
+
+    /**
+     * @return Factor frames are resized by before detection (0, 1]
+     */
+    public synchronized double getDetectionScale() {
+        return detectionScale;
+    }
+
+    public synchronized double getAverageFrameMs() {
+        return averageFrameMs;
+    }
+
+    public double getBudgetMs() {
+        return budgetMs;
+    }
+
+    /**
+     * A change made by the controller and the measurements that led to it.
+     */
+    public record Decision(int detectionInterval, double detectionScale, double averageFrameMs, double budgetMs,
+                           int faceCount, String reason) {
+        @Override
+        public String toString() {
+            return String.format("interval=%d, scale=%.2f (avg %.1fms / budget %.1fms, %d faces): %s",
+                    detectionInterval, detectionScale, averageFrameMs, budgetMs, faceCount, reason);
+        }
+    }
+}
@@ -3,28 +3,23 @@ package g1t1.opencv.services;
 import g1t1.opencv.config.FaceConfig;
 import g1t1.opencv.models.DetectedFace;
 import g1t1.opencv.models.FaceInFrame;
-import nu.pattern.OpenCV;
-import org.bytedeco.javacpp.Loader;
+import g1t1.opencv.services.detection.DetectorBackend;
+import g1t1.opencv.services.detection.DetectorBackends;
 import org.opencv.core.Mat;
-import org.opencv.core.MatOfRect;
 import org.opencv.core.Rect;
-import org.opencv.core.Size;
-import org.opencv.imgproc.Imgproc;
-import org.opencv.objdetect.CascadeClassifier;
-
-import java.io.File;
-import java.io.IOException;
-import java.net.URI;
-import java.net.URL;
+
 import java.util.ArrayList;
 import java.util.List;
 
 /**
- * Face detector using OpenCV CascadeClassifier for face detection.
+ * Face detector delegating to the detector backend selected in FaceConfig
+ * (Haar cascade, LBP cascade or YuNet).
  * Detects multiple faces in frames and assigns tracking IDs.
+ * Not thread-safe; obtain instances from {@link FaceDetectorProvider}.
  */
 public class FaceDetector {
-    private CascadeClassifier faceCascade;
+    private DetectorBackend backend;
+    private TiledFaceDetector tiledDetector; // null unless tiled detection is enabled
     private FaceConfig config;
     private int nextFaceId;
 
@@ -35,86 +30,120 @@ public class FaceDetector {
     }
 
     /**
-     * Initialize OpenCV and load face cascade classifier.
+     * Load the detector backend. The OpenCV natives must already be loaded, see
+     * {@link FaceDetectorProvider#warmUp()}.
      */
     private void initialize() {
         try {
-            OpenCV.loadLocally();
-            loadCascadeClassifier();
+            backend = DetectorBackends.create();
+            if (config.isTiledDetectionEnabled()) {
+                tiledDetector = new TiledFaceDetector(backend.getName(), TiledFaceDetector.sharedPool(),
+                        config.getDetectionTileSize(), config.getDetectionTileOverlap(), config.getMinSize(),
+                        config.getTiledNmsIou());
+            }
         } catch (Exception e) {
             throw new RuntimeException("Failed to initialize face detector", e);
         }
     }
 
-    private void loadCascadeClassifier() {
-        try {
-            String classifierName = "haarcascade_frontalface_alt.xml";
-            File classifierFile = Loader.extractResource(classifierName, null, "classifier", ".xml");
-
-            if (classifierFile == null || classifierFile.length() <= 0) {
-                URL url = URI.create("https://raw.githubusercontent.com/opencv/opencv/4.x/data/haarcascades/haarcascade_frontalface_alt.xml").toURL();
-                classifierFile = Loader.cacheResource(url);
-            }
-
-            faceCascade = new CascadeClassifier(classifierFile.getAbsolutePath());
-
-            if (faceCascade.empty()) {
-                throw new RuntimeException("Failed to load HaarCascade classifier from: " + classifierFile.getAbsolutePath());
-            }
-
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to load HaarCascade classifier", e);
-        }
-    }
-
     /**
      * Detect faces in the given frame.
      * Returns list of detected faces with bounding boxes and IDs.
      */
     public List<DetectedFace> detectFaces(Mat frame) {
+        return detectFaces(frame, null);
+    }
+
+    /**
+     * Detect faces only inside the given regions of the frame.
+     *
+     * @param regions Non-overlapping search regions in frame coordinates, or null for the whole frame
+     * @return Detected faces in frame coordinates
+     */
+    public List<DetectedFace> detectFaces(Mat frame, List<Rect> regions) {
+        return detectFaces(frame, regions, config.getMinSize());
+    }
+
+    /**
+     * Detect faces only inside the given regions of the frame, down to the given size.
+     *
+     * @param regions Non-overlapping search regions in frame coordinates, or null for the whole frame
+     * @param minSize Smallest face side in pixels of this frame, see {@link #getMinSize(double)}
+     * @return Detected faces in frame coordinates
+     */
+    public List<DetectedFace> detectFaces(Mat frame, List<Rect> regions, int minSize) {
         if (frame == null || frame.empty()) {
             return new ArrayList<>();
         }
 
-        Mat grayFrame = preprocessFrame(frame);
-
-        // Placeholder detection for testing camera functionality
         List<DetectedFace> detectedFaces = new ArrayList<>();
+        if (regions != null && regions.isEmpty()) {
+            return detectedFaces;
+        }
 
-        if (faceCascade.empty()) {
-            // No cascade loaded - return empty list for camera testing
+        Mat prepared = backend.prepare(frame);
+        if (regions == null) {
+            detectInRegion(prepared, 0, 0, minSize, detectedFaces);
         } else {
-            // Detect faces using HaarCascade
-            MatOfRect faceDetections = new MatOfRect();
-            faceCascade.detectMultiScale(
-                    grayFrame,
-                    faceDetections,
-                    config.getScaleFactor(),
-                    config.getMinNeighbors(),
-                    0,
-                    new Size(config.getMinSize(), config.getMinSize()),
-                    new Size()
-            );
-
-            Rect[] faces = faceDetections.toArray();
-            for (Rect face : faces) {
-                DetectedFace detectedFace = new DetectedFace(face, 1.0, nextFaceId++);
-                detectedFaces.add(detectedFace);
+            Rect frameBounds = new Rect(0, 0, prepared.cols(), prepared.rows());
+            for (Rect region : regions) {
+                Rect clipped = intersect(region, frameBounds);
+                if (clipped.width < minSize || clipped.height < minSize) {
+                    continue;
+                }
+                Mat roi = prepared.submat(clipped);
+                detectInRegion(roi, clipped.x, clipped.y, minSize, detectedFaces);
+                roi.release();
             }
-
-            faceDetections.release();
         }
 
         // Cleanup
-        grayFrame.release();
+        prepared.release();
 
         return detectedFaces;
     }
 
+    /**
+     * Smallest face side to search for in a frame resized by the given factor, so faces of
+     * the configured minimum size in the full frame are still found. Never below the smallest
+     * face the backend can detect, which then bounds how far a frame can usefully be shrunk.
+     */
+    public int getMinSize(double scale) {
+        return Math.max(backend.getSmallestFace(), (int) Math.floor(config.getMinSize() * scale));
+    }
+
+    /**
+     * Runs the backend over one prepared image, offsetting results into frame coordinates.
+     * Images larger than a tile are split into tiles and searched in parallel.
+     */
+    private void detectInRegion(Mat image, int offsetX, int offsetY, int minSize, List<DetectedFace> detectedFaces) {
+        List<Rect> faces = new ArrayList<>();
+        if (tiledDetector != null && tiledDetector.shouldTile(image.cols(), image.rows())) {
+            faces.addAll(tiledDetector.detect(image, minSize));
+        } else {
+            for (DetectorBackend.ScoredBox face : backend.detect(image, minSize, 0)) {
+                faces.add(face.box());
+            }
+        }
+
+        for (Rect face : faces) {
+            Rect box = new Rect(face.x + offsetX, face.y + offsetY, face.width, face.height);
+            detectedFaces.add(new DetectedFace(box, 1.0, nextFaceId++));
+        }
+    }
+
+    private static Rect intersect(Rect a, Rect b) {
+        int x1 = Math.max(a.x, b.x);
+        int y1 = Math.max(a.y, b.y);
+        int x2 = Math.min(a.x + a.width, b.x + b.width);
+        int y2 = Math.min(a.y + a.height, b.y + b.height);
+        return new Rect(x1, y1, Math.max(0, x2 - x1), Math.max(0, y2 - y1));
+    }
+
     /**
      * Extract face region from frame based on detection.
      */
-    public Mat extractFaceRegion(Mat frame, DetectedFace detection) {
+    public static Mat extractFaceRegion(Mat frame, DetectedFace detection) {
         if (frame == null || detection == null || detection.getBoundingBox() == null) {
             return new Mat();
         }
@@ -135,34 +164,19 @@ public class FaceDetector {
         return new Mat(frame, safeBounds);
     }
 
-    /**
-     * Preprocess frame for detection (convert to grayscale).
-     */
-    private Mat preprocessFrame(Mat frame) {
-        Mat grayFrame = new Mat();
-
-        if (frame.channels() == 3) {
-            Imgproc.cvtColor(frame, grayFrame, Imgproc.COLOR_BGR2GRAY);
-        } else {
-            frame.copyTo(grayFrame);
-        }
-
-        return grayFrame;
-    }
-
     /**
      * Check if detector is properly initialized.
      */
     public boolean isInitialized() {
-        return faceCascade != null;
+        return backend != null;
     }
 
     /**
      * Get detection statistics for monitoring.
      */
     public String getDetectionStats() {
-        return String.format("FaceDetector{initialized=%s, nextFaceId=%d}",
-                isInitialized(), nextFaceId);
+        return String.format("FaceDetector{initialized=%s, backend=%s, tiled=%s, nextFaceId=%d}",
+                isInitialized(), backend != null ? backend.getName() : "none", tiledDetector != null, nextFaceId);
     }
 
     /**
@@ -0,0 +1,103 @@
+package g1t1.opencv.services;
+
+import g1t1.features.logger.AppLogger;
+import g1t1.features.logger.LogLevel;
+import g1t1.opencv.config.FaceConfig;
+import nu.pattern.OpenCV;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Hands out ready-made {@link FaceDetector} instances so screens do not stall while
+ * OpenCV and the detector models load. {@link #warmUp()} loads the native libraries, then
+ * fills the pool on a background thread at app start.
+ * <p>
+ * A detector is not thread-safe: {@link #acquire()} one per thread that detects, and
+ * {@link #release} it once that thread is done so the next screen can reuse it.
+ */
+public class FaceDetectorProvider {
+    private static FaceDetectorProvider instance;
+
+    private final ConcurrentLinkedQueue<FaceDetector> idle = new ConcurrentLinkedQueue<>();
+    private final int poolSize;
+    private CompletableFuture<Void> warmUp;
+
+    private FaceDetectorProvider() {
+        this.poolSize = Math.max(1, FaceConfig.getInstance().getDetectorPoolSize());
+    }
+
+    public static synchronized FaceDetectorProvider getInstance() {
+        if (instance == null) {
+            instance = new FaceDetectorProvider();
+        }
+        return instance;
+    }
+
+    /**
+     * Load the OpenCV natives, then start loading the detectors in the background.
+     * This is the only place the natives are loaded; safe to call more than once.
+     */
+    public synchronized void warmUp() {
+        if (warmUp != null) {
+            return;
+        }
+
+        OpenCV.loadLocally();
+        warmUp = CompletableFuture.runAsync(() -> {
+            long startTime = System.currentTimeMillis();
+            for (int i = 0; i < poolSize; i++) {
+                idle.offer(new FaceDetector());
+            }
+            AppLogger.logf("Face detectors ready: %d in %dms", poolSize, System.currentTimeMillis() - startTime);
+        }, runnable -> {
+            Thread thread = new Thread(runnable, "face-detector-warmup");
+            thread.setDaemon(true);
+            thread.start();
+        });
+    }
+
+    /**
+     * Take a detector for the calling thread, waiting for the warm-up if it is still running.
+     * A new detector is built if all pooled ones are in use.
+     */
+    public FaceDetector acquire() {
+        warmUp();
+        awaitWarmUp();
+        FaceDetector detector = idle.poll();
+        return detector != null ? detector : new FaceDetector();
+    }
+
+    /**
+     * Return a detector once its thread no longer uses it.
+     */
+    public void release(FaceDetector detector) {
+        if (detector == null) {
+            return;
+        }
+        // Detectors beyond the pool size are left to the garbage collector
+        if (idle.size() < poolSize) {
+            idle.offer(detector);
+        }
+    }
+
+    private void awaitWarmUp() {
+        CompletableFuture<Void> pending;
+        synchronized (this) {
+            pending = warmUp;
+        }
+        if (pending == null) {
+            return;
+        }
+
+        try {
+            pending.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // Detectors are built on demand instead, surfacing the error to the caller
+            AppLogger.logf(LogLevel.Warning, "Face detector warm-up failed: %s", e.getCause().getMessage());
+        }
+    }
+}
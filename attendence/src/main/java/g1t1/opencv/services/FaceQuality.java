@@ -0,0 +1,91 @@
+package g1t1.opencv.services;
+
+import g1t1.opencv.services.preprocessing.FaceAnalysis;
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfDouble;
+import org.opencv.core.Scalar;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+/**
+ * Scores how likely a face crop is to be recognised well, from three cheap cues measured on
+ * a 64x64 grayscale thumbnail: sharpness (Laplacian variance), face size in the frame, and
+ * frontal pose (left-right symmetry). Each cue is mapped to [0, 1]; the score is their
+ * geometric mean, so one poor cue pulls the whole frame down.
+ */
+public final class FaceQuality {
+    private static final Size THUMBNAIL_SIZE = new Size(64, 64);
+    private static final double SHARPNESS_REFERENCE = 300.0; // Laplacian variance of a crisp face
+    private static final double SIZE_REFERENCE = 112.0; // face width at which recognizers stop gaining detail
+    private static final double SYMMETRY_REFERENCE = 48.0; // mean grey difference to the mirror of a profile face
+
+    private FaceQuality() {
+    }
+
+    /**
+     * @param face Face crop (BGR or grayscale) at its size in the frame
+     */
+    public static Score score(Mat face) {
+        if (face == null || face.empty()) {
+            return new Score(0.0, 0.0, 0.0);
+        }
+
+        FaceAnalysis analysis = new FaceAnalysis(face);
+        Score score = score(analysis);
+        analysis.release();
+        return score;
+    }
+
+    /**
+     * Score a face from the grayscale plane of a shared face analysis.
+     */
+    public static Score score(FaceAnalysis analysis) {
+        Mat face = analysis.face();
+        if (face == null || face.empty()) {
+            return new Score(0.0, 0.0, 0.0);
+        }
+
+        Mat thumbnail = new Mat();
+        Imgproc.resize(analysis.gray(), thumbnail, THUMBNAIL_SIZE, 0, 0, Imgproc.INTER_AREA);
+
+        Mat laplacian = new Mat();
+        Imgproc.Laplacian(thumbnail, laplacian, CvType.CV_64F);
+        MatOfDouble mean = new MatOfDouble();
+        MatOfDouble stddev = new MatOfDouble();
+        Core.meanStdDev(laplacian, mean, stddev);
+        double variance = stddev.get(0, 0)[0] * stddev.get(0, 0)[0];
+
+        Mat mirrored = new Mat();
+        Core.flip(thumbnail, mirrored, 1);
+        Mat difference = new Mat();
+        Core.absdiff(thumbnail, mirrored, difference);
+        Scalar asymmetry = Core.mean(difference);
+
+        thumbnail.release();
+        laplacian.release();
+        mean.release();
+        stddev.release();
+        mirrored.release();
+        difference.release();
+
+        return new Score(Math.min(1.0, variance / SHARPNESS_REFERENCE),
+                Math.min(1.0, face.cols() / SIZE_REFERENCE),
+                Math.max(0.0, 1.0 - asymmetry.val[0] / SYMMETRY_REFERENCE));
+    }
+
+    /**
+     * @param sharpness Focus and motion blur cue [0, 1]
+     * @param size      Resolution cue [0, 1]
+     * @param frontal   Pose cue [0, 1]
+     */
+    public record Score(double sharpness, double size, double frontal) {
+        /**
+         * @return Overall quality [0, 1]
+         */
+        public double value() {
+            return Math.cbrt(sharpness * size * frontal);
+        }
+    }
+}
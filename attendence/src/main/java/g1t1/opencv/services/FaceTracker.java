@@ -0,0 +1,200 @@
+package g1t1.opencv.services;
+
+import g1t1.opencv.models.DetectedFace;
+import org.opencv.core.Rect;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Associates face detections across frames so a person keeps the same face ID while in view.
+ * Each track predicts where its face moves with a constant-velocity (alpha-beta) filter.
+ * Detections are matched greedily to the best predicted box by IoU, falling back to centroid
+ * distance for small fast-moving faces. Unmatched detections start new tracks, and tracks
+ * missing for too many detection runs end.
+ */
+public class FaceTracker {
+    private static final double VELOCITY_GAIN = 0.5;
+    private static final double MAX_CENTROID_DISTANCE = 0.5; // fraction of the predicted box size
+
+    private final double minIou;
+    private final int maxMissedDetections;
+    private final List<Track> tracks = new ArrayList<>();
+    private final List<Integer> endedTracks = new ArrayList<>();
+    private final AtomicInteger trackIds;
+
+    /**
+     * @param minIou              Overlap a detection needs with a predicted box to continue that track
+     * @param maxMissedDetections Consecutive detection runs a track may go unmatched before it ends
+     */
+    public FaceTracker(double minIou, int maxMissedDetections) {
+        this(minIou, maxMissedDetections, new AtomicInteger(1));
+    }
+
+    /**
+     * @param trackIds Source of track IDs, shared by trackers whose IDs must not collide (one per camera)
+     */
+    public FaceTracker(double minIou, int maxMissedDetections, AtomicInteger trackIds) {
+        this.minIou = minIou;
+        this.maxMissedDetections = maxMissedDetections;
+        this.trackIds = trackIds;
+    }
+
+    /**
+     * Matches detections to tracks and sets each detection's face ID to its track ID.
+     *
+     * @param timestamp Capture time of the frame in milliseconds
+     * @return The same detections, with stable face IDs
+     */
+    public synchronized List<DetectedFace> update(List<DetectedFace> detections, long timestamp) {
+        List<Match> candidates = new ArrayList<>();
+        for (Track track : tracks) {
+            Rect predicted = track.predict(timestamp);
+            for (int d = 0; d < detections.size(); d++) {
+                Rect box = detections.get(d).getBoundingBox();
+                if (box == null) {
+                    continue;
+                }
+                double score = matchScore(predicted, box);
+                if (score > 0) {
+                    candidates.add(new Match(track, d, score));
+                }
+            }
+        }
+        candidates.sort((a, b) -> Double.compare(b.score, a.score));
+
+        boolean[] detectionMatched = new boolean[detections.size()];
+        List<Track> matchedTracks = new ArrayList<>();
+        for (Match match : candidates) {
+            if (detectionMatched[match.detection] || matchedTracks.contains(match.track)) {
+                continue;
+            }
+            detectionMatched[match.detection] = true;
+            matchedTracks.add(match.track);
+
+            DetectedFace detection = detections.get(match.detection);
+            match.track.correct(detection.getBoundingBox(), timestamp);
+            detection.setFaceId(match.track.id);
+        }
+
+        Iterator<Track> iterator = tracks.iterator();
+        while (iterator.hasNext()) {
+            Track track = iterator.next();
+            if (!matchedTracks.contains(track) && ++track.missed > maxMissedDetections) {
+                iterator.remove();
+                endedTracks.add(track.id);
+            }
+        }
+
+        for (int d = 0; d < detections.size(); d++) {
+            DetectedFace detection = detections.get(d);
+            if (!detectionMatched[d] && detection.getBoundingBox() != null) {
+                Track track = new Track(trackIds.getAndIncrement(), detection.getBoundingBox(), timestamp);
+                tracks.add(track);
+                detection.setFaceId(track.id);
+            }
+        }
+
+        return detections;
+    }
+
+    /**
+     * @return IDs of tracks that ended since the last call, so state attached to them can be dropped
+     */
+    public synchronized List<Integer> drainEndedTracks() {
+        List<Integer> ended = new ArrayList<>(endedTracks);
+        endedTracks.clear();
+        return ended;
+    }
+
+    /**
+     * @return Where each active track is expected to be at the given time, in frame coordinates
+     */
+    public synchronized List<Rect> getTrackWindows(long timestamp) {
+        List<Rect> windows = new ArrayList<>(tracks.size());
+        for (Track track : tracks) {
+            windows.add(track.predict(timestamp));
+        }
+        return windows;
+    }
+
+    public synchronized int getActiveTrackCount() {
+        return tracks.size();
+    }
+
+    public synchronized void reset() {
+        tracks.clear();
+        endedTracks.clear();
+    }
+
+    /**
+     * IoU if the boxes overlap enough, otherwise a smaller score for nearby centroids, 0 for no match.
+     */
+    private double matchScore(Rect predicted, Rect box) {
+        double iou = intersectionOverUnion(predicted, box);
+        if (iou >= minIou) {
+            return iou;
+        }
+
+        double dx = (predicted.x + predicted.width / 2.0) - (box.x + box.width / 2.0);
+        double dy = (predicted.y + predicted.height / 2.0) - (box.y + box.height / 2.0);
+        double limit = MAX_CENTROID_DISTANCE * Math.max(predicted.width, predicted.height);
+        double distance = Math.hypot(dx, dy);
+        return distance <= limit ? minIou * 0.5 * (1.0 - distance / limit) + 1e-6 : 0.0;
+    }
+
+    static double intersectionOverUnion(Rect a, Rect b) {
+        int x1 = Math.max(a.x, b.x);
+        int y1 = Math.max(a.y, b.y);
+        int x2 = Math.min(a.x + a.width, b.x + b.width);
+        int y2 = Math.min(a.y + a.height, b.y + b.height);
+        if (x2 <= x1 || y2 <= y1) {
+            return 0.0;
+        }
+
+        double intersection = (double) (x2 - x1) * (y2 - y1);
+        double union = (double) a.width * a.height + (double) b.width * b.height - intersection;
+        return union <= 0 ? 0.0 : intersection / union;
+    }
+
+    private record Match(Track track, int detection, double score) {
+    }
+
+    private static final class Track {
+        private final int id;
+        private Rect box;
+        private long lastUpdate;
+        private double velocityX; // pixels per millisecond
+        private double velocityY;
+        private int missed;
+
+        Track(int id, Rect box, long timestamp) {
+            this.id = id;
+            this.box = box;
+            this.lastUpdate = timestamp;
+        }
+
+        Rect predict(long timestamp) {
+            long elapsed = Math.max(0, timestamp - lastUpdate);
+            return new Rect((int) Math.round(box.x + velocityX * elapsed), (int) Math.round(box.y + velocityY * elapsed),
+                    box.width, box.height);
+        }
+
+        /**
+         * Moves the track to the measured box and nudges its velocity towards the prediction error.
+         */
+        void correct(Rect measured, long timestamp) {
+            long elapsed = timestamp - lastUpdate;
+            if (elapsed > 0) {
+                Rect predicted = predict(timestamp);
+                velocityX += VELOCITY_GAIN * (measured.x - predicted.x) / elapsed;
+                velocityY += VELOCITY_GAIN * (measured.y - predicted.y) / elapsed;
+            }
+            box = measured;
+            lastUpdate = timestamp;
+            missed = 0;
+        }
+    }
+}
@@ -4,6 +4,7 @@ import org.opencv.core.*;
 import org.opencv.imgproc.*;
 import g1t1.features.logger.AppLogger;
 import g1t1.opencv.config.FaceConfig;
+import g1t1.opencv.services.preprocessing.FaceAnalysis;
 
 /**
  * Detects if a person is wearing a face mask by analyzing lower face region.
@@ -15,29 +16,32 @@ public class MaskDetector {
             return false;
         }
 
-        // Extract mouth/chin region (lower 50% of face)
-        Mat lowerFace = extractLowerFaceRegion(faceRegion);
+        FaceAnalysis analysis = new FaceAnalysis(faceRegion);
+        boolean hasMask = detectMask(analysis);
+        analysis.release();
+        return hasMask;
+    }
 
-        // Method 1: Color uniformity in HSV
-        Mat hsvFace = new Mat();
-        if (lowerFace.channels() == 3) {
-            Imgproc.cvtColor(lowerFace, hsvFace, Imgproc.COLOR_BGR2HSV);
-        } else {
-            Imgproc.cvtColor(lowerFace, hsvFace, Imgproc.COLOR_GRAY2BGR);
-            Imgproc.cvtColor(hsvFace, hsvFace, Imgproc.COLOR_BGR2HSV);
+    /**
+     * Mask check reusing the lower-face HSV and grayscale planes of a shared face analysis.
+     */
+    public boolean detectMask(FaceAnalysis analysis) {
+        if (analysis == null || analysis.face() == null || analysis.face().empty()) {
+            return false;
         }
 
+        // Mouth/chin region (lower 50% of face)
+        // Method 1: Color uniformity in HSV
+        Mat hsvFace = analysis.lowerHsv();
+
         double hueVariation = getColorUniformityScore(hsvFace);
         double saturationVariation = getSaturationUniformity(hsvFace);
 
         // Method 2: Edge analysis
-        double edgeRatio = getEdgeScore(lowerFace);
+        double edgeRatio = getEdgeScore(analysis.lowerGray());
 
         // Method 3: Texture analysis (skin has more texture than fabric)
-        double textureScore = getTextureScore(lowerFace);
-
-        lowerFace.release();
-        hsvFace.release();
+        double textureScore = getTextureScore(analysis.lowerGray());
 
         // Multi-metric scoring - combination of indicators
         int maskScore = 0;
@@ -64,14 +68,6 @@ public class MaskDetector {
         return hasMask;
     }
 
-    private Mat extractLowerFaceRegion(Mat face) {
-        // Extract lower 50% (mouth and chin area)
-        int startY = (int) (face.height() * 0.5);
-        int height = face.height() - startY;
-        Rect lowerRegion = new Rect(0, startY, face.width(), height);
-        return new Mat(face, lowerRegion);
-    }
-
     private double getColorUniformityScore(Mat hsvFace) {
         Mat hueChannel = new Mat();
         Core.extractChannel(hsvFace, hueChannel, 0);
@@ -86,14 +82,7 @@ public class MaskDetector {
         return hueVariation;
     }
 
-    private double getEdgeScore(Mat lowerFace) {
-        Mat grayFace = new Mat();
-        if (lowerFace.channels() == 3) {
-            Imgproc.cvtColor(lowerFace, grayFace, Imgproc.COLOR_BGR2GRAY);
-        } else {
-            lowerFace.copyTo(grayFace);
-        }
-
+    private double getEdgeScore(Mat grayFace) {
         Mat edges = new Mat();
         // Sensitive edge detection to catch mask boundaries
         Imgproc.Canny(grayFace, edges, 25, 100);
@@ -102,7 +91,6 @@ public class MaskDetector {
         int edgePixels = Core.countNonZero(edges);
         double edgeRatio = (double) edgePixels / totalPixels;
 
-        grayFace.release();
         edges.release();
 
         return edgeRatio;
@@ -122,14 +110,7 @@ public class MaskDetector {
         return satVariation;
     }
 
-    private double getTextureScore(Mat lowerFace) {
-        Mat grayFace = new Mat();
-        if (lowerFace.channels() == 3) {
-            Imgproc.cvtColor(lowerFace, grayFace, Imgproc.COLOR_BGR2GRAY);
-        } else {
-            lowerFace.copyTo(grayFace);
-        }
-
+    private double getTextureScore(Mat grayFace) {
         // Calculate local standard deviation to measure texture
         Mat laplacian = new Mat();
         Imgproc.Laplacian(grayFace, laplacian, CvType.CV_64F);
@@ -140,7 +121,6 @@ public class MaskDetector {
 
         double textureVariance = stddev.get(0, 0)[0];
 
-        grayFace.release();
         laplacian.release();
 
         return textureVariance;
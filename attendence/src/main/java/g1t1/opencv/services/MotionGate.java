@@ -0,0 +1,219 @@
+package g1t1.opencv.services;
+
+import org.opencv.core.Core;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfPoint;
+import org.opencv.core.Point;
+import org.opencv.core.Rect;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decides where face detection needs to run. A downsampled, blurred grayscale copy of each
+ * frame is differenced against the previous one; changed areas plus the windows of faces
+ * already being tracked are the only regions searched. A full-frame sweep still runs at a
+ * fixed low rate, and whenever the regions would cover most of the frame anyway.
+ * <p>
+ * Not thread-safe; call from the detection thread only.
+ */
+public class MotionGate {
+    private static final int ANALYSIS_WIDTH = 160;
+    private static final Size BLUR_SIZE = new Size(5, 5);
+    private static final int DILATE_ITERATIONS = 2;
+
+    private final double pixelThreshold;
+    private final long fullSweepIntervalMs;
+    private final double maxCoverage;
+    private final int minFaceSize;
+    private final Mat kernel = Imgproc.getStructuringElement(Imgproc.MORPH_RECT, new Size(3, 3));
+
+    private Mat previous;
+    private long lastFullSweep;
+    private long runs;
+    private long fullSweeps;
+    private long skippedRuns;
+    private double scannedFraction;
+
+    /**
+     * @param pixelThreshold      Grey-level change [0, 255] that counts as motion
+     * @param fullSweepIntervalMs Longest time between full-frame sweeps
+     * @param maxCoverage         Fraction of the frame above which a full sweep is used instead of regions
+     * @param minFaceSize         Smallest face the detector looks for, in full-frame pixels
+     */
+    public MotionGate(double pixelThreshold, long fullSweepIntervalMs, double maxCoverage, int minFaceSize) {
+        this.pixelThreshold = pixelThreshold;
+        this.fullSweepIntervalMs = fullSweepIntervalMs;
+        this.maxCoverage = maxCoverage;
+        this.minFaceSize = minFaceSize;
+    }
+
+    /**
+     * @param trackWindows Predicted boxes of faces currently tracked, in frame coordinates
+     * @return Regions to search in frame coordinates, empty if nothing changed, or null for a full sweep
+     */
+    public List<Rect> selectRegions(Mat frame, List<Rect> trackWindows, long timestamp) {
+        runs++;
+        Mat current = analysisFrame(frame);
+        double toFrame = (double) frame.cols() / current.cols();
+
+        boolean sweepDue = previous == null || previous.size().width != current.size().width
+                || previous.size().height != current.size().height
+                || timestamp - lastFullSweep >= fullSweepIntervalMs;
+        List<Rect> motion = sweepDue ? List.of() : motionRegions(current, toFrame);
+        if (previous != null) {
+            previous.release();
+        }
+        previous = current;
+
+        if (sweepDue) {
+            return fullSweep(timestamp);
+        }
+
+        List<Rect> regions = new ArrayList<>();
+        for (Rect rect : motion) {
+            regions.add(expand(rect, frame));
+        }
+        for (Rect window : trackWindows) {
+            regions.add(expand(window, frame));
+        }
+        regions = merge(regions);
+
+        double area = 0;
+        for (Rect region : regions) {
+            area += region.area();
+        }
+        double coverage = area / ((double) frame.cols() * frame.rows());
+        if (coverage > maxCoverage) {
+            return fullSweep(timestamp);
+        }
+
+        if (regions.isEmpty()) {
+            skippedRuns++;
+        }
+        scannedFraction += coverage;
+        return regions;
+    }
+
+    public Stats getStats() {
+        return new Stats(runs, fullSweeps, skippedRuns, runs == 0 ? 0.0 : scannedFraction / runs);
+    }
+
+    public void reset() {
+        if (previous != null) {
+            previous.release();
+            previous = null;
+        }
+        lastFullSweep = 0;
+        runs = 0;
+        fullSweeps = 0;
+        skippedRuns = 0;
+        scannedFraction = 0;
+    }
+
+    private List<Rect> fullSweep(long timestamp) {
+        lastFullSweep = timestamp;
+        fullSweeps++;
+        scannedFraction += 1.0;
+        return null;
+    }
+
+    private Mat analysisFrame(Mat frame) {
+        Mat gray = new Mat();
+        if (frame.channels() == 3) {
+            Imgproc.cvtColor(frame, gray, Imgproc.COLOR_BGR2GRAY);
+        } else {
+            frame.copyTo(gray);
+        }
+
+        double scale = Math.min(1.0, (double) ANALYSIS_WIDTH / gray.cols());
+        Mat small = new Mat();
+        Imgproc.resize(gray, small, new Size(Math.round(gray.cols() * scale), Math.round(gray.rows() * scale)), 0, 0,
+                Imgproc.INTER_AREA);
+        Imgproc.GaussianBlur(small, small, BLUR_SIZE, 0);
+        gray.release();
+        return small;
+    }
+
+    /**
+     * Bounding boxes of connected changed areas, in frame coordinates.
+     */
+    private List<Rect> motionRegions(Mat current, double toFrame) {
+        Mat diff = new Mat();
+        Core.absdiff(current, previous, diff);
+        Imgproc.threshold(diff, diff, pixelThreshold, 255, Imgproc.THRESH_BINARY);
+        Imgproc.dilate(diff, diff, kernel, new Point(-1, -1), DILATE_ITERATIONS);
+
+        List<MatOfPoint> contours = new ArrayList<>();
+        Mat hierarchy = new Mat();
+        Imgproc.findContours(diff, contours, hierarchy, Imgproc.RETR_EXTERNAL, Imgproc.CHAIN_APPROX_SIMPLE);
+
+        List<Rect> regions = new ArrayList<>();
+        for (MatOfPoint contour : contours) {
+            Rect box = Imgproc.boundingRect(contour);
+            regions.add(new Rect((int) (box.x * toFrame), (int) (box.y * toFrame),
+                    (int) Math.ceil(box.width * toFrame), (int) Math.ceil(box.height * toFrame)));
+            contour.release();
+        }
+
+        diff.release();
+        hierarchy.release();
+        return regions;
+    }
+
+    /**
+     * Grows a region so a face only partly inside it (e.g. only the moving edge) is still found.
+     */
+    private Rect expand(Rect rect, Mat frame) {
+        int marginX = Math.max(minFaceSize, rect.width / 2);
+        int marginY = Math.max(minFaceSize, rect.height / 2);
+        int x1 = Math.max(0, rect.x - marginX);
+        int y1 = Math.max(0, rect.y - marginY);
+        int x2 = Math.min(frame.cols(), rect.x + rect.width + marginX);
+        int y2 = Math.min(frame.rows(), rect.y + rect.height + marginY);
+        return new Rect(x1, y1, Math.max(0, x2 - x1), Math.max(0, y2 - y1));
+    }
+
+    /**
+     * Replaces overlapping regions by their bounding box until none overlap,
+     * so no area is searched twice.
+     */
+    static List<Rect> merge(List<Rect> regions) {
+        List<Rect> merged = new ArrayList<>(regions);
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            outer:
+            for (int i = 0; i < merged.size(); i++) {
+                for (int j = i + 1; j < merged.size(); j++) {
+                    Rect a = merged.get(i);
+                    Rect b = merged.get(j);
+                    if (a.x < b.x + b.width && b.x < a.x + a.width && a.y < b.y + b.height && b.y < a.y + a.height) {
+                        int x1 = Math.min(a.x, b.x);
+                        int y1 = Math.min(a.y, b.y);
+                        int x2 = Math.max(a.x + a.width, b.x + b.width);
+                        int y2 = Math.max(a.y + a.height, b.y + b.height);
+                        merged.set(i, new Rect(x1, y1, x2 - x1, y2 - y1));
+                        merged.remove(j);
+                        changed = true;
+                        break outer;
+                    }
+                }
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * @param averageScanned Mean fraction of the frame handed to the detector per run
+     */
+    public record Stats(long runs, long fullSweeps, long skippedRuns, double averageScanned) {
+        @Override
+        public String toString() {
+            return String.format("MotionStats{runs=%d, fullSweeps=%d, nothingToScan=%d, avgScanned=%.1f%%}", runs,
+                    fullSweeps, skippedRuns, 100.0 * averageScanned);
+        }
+    }
+}
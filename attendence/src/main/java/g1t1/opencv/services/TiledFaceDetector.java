@@ -0,0 +1,245 @@
+package g1t1.opencv.services;
+
+import g1t1.opencv.config.FaceConfig;
+import g1t1.opencv.services.detection.DetectorBackend;
+import g1t1.opencv.services.detection.DetectorBackend.ScoredBox;
+import g1t1.opencv.services.detection.DetectorBackends;
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Face detection for high-resolution frames. The image is split into overlapping
+ * tiles that are searched in parallel for faces up to the overlap size, so every such face
+ * lies wholly inside at least one tile. Larger faces are found by one extra pass over a
+ * downscaled copy of the image. Duplicates from neighbouring tiles and the coarse pass are
+ * merged with non-maximum suppression.
+ * <p>
+ * Every tiled detector in the app submits to one {@link #sharedPool()}, so several cameras
+ * do not each start a pool of their own. Each pool thread builds its own detector backend
+ * per backend type, as backends must not be shared between threads. Call {@link #detect}
+ * from one thread at a time.
+ */
+public class TiledFaceDetector {
+    // Faces down to this fraction of the overlap are also searched by the coarse pass,
+    // so faces just above the tile limit are not lost at the boundary of the two ranges
+    private static final double COARSE_MARGIN = 0.75;
+    private static final double CONTAINMENT_RATIO = 0.8;
+
+    // Backend of each pool thread by backend name
+    private static final ThreadLocal<Map<String, DetectorBackend>> BACKENDS = ThreadLocal.withInitial(HashMap::new);
+    private static ExecutorService sharedPool;
+
+    private final String backendName;
+    private final int tileSize;
+    private final int overlap;
+    private final int minFaceSize;
+    private final double nmsIou;
+    private final ExecutorService pool;
+
+    /**
+     * @param backendName Detector backend each pool thread builds, see {@link DetectorBackends#create(String)}
+     * @param pool        Threads searching the tiles, usually {@link #sharedPool()}
+     * @param tileSize    Side of each square tile in pixels
+     * @param overlap     Pixels shared by neighbouring tiles; also the largest face searched for per tile
+     * @param nmsIou      Overlap (IoU) above which two detections count as the same face
+     */
+    public TiledFaceDetector(String backendName, ExecutorService pool, int tileSize, int overlap, int minFaceSize,
+                             double nmsIou) {
+        this.backendName = backendName;
+        this.pool = pool;
+        this.minFaceSize = minFaceSize;
+        this.tileSize = Math.max(tileSize, 4 * minFaceSize);
+        this.overlap = Math.max(2 * minFaceSize, Math.min(overlap, this.tileSize / 2));
+        this.nmsIou = nmsIou;
+    }
+
+    /**
+     * Pool shared by every tiled detector, started on first use with detection.tiled.threads threads.
+     */
+    public static synchronized ExecutorService sharedPool() {
+        if (sharedPool == null) {
+            sharedPool = newPool(FaceConfig.getInstance().getTiledDetectionThreads());
+        }
+        return sharedPool;
+    }
+
+    /**
+     * @param threads Detection threads, or 0 for one less than the number of cores
+     * @return Pool of daemon threads, for callers that need one apart from the shared pool
+     */
+    public static ExecutorService newPool(int threads) {
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newFixedThreadPool(poolSize, runnable -> {
+            Thread thread = new Thread(runnable, "tiled-detect-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @return True if an image of this size spans more than one tile
+     */
+    public boolean shouldTile(int width, int height) {
+        return width > tileSize || height > tileSize;
+    }
+
+    /**
+     * Detect faces in an image prepared by the backend ({@link DetectorBackend#prepare}).
+     *
+     * @return Face boxes in image coordinates, duplicates removed
+     */
+    public List<Rect> detect(Mat image) {
+        return detect(image, minFaceSize);
+    }
+
+    /**
+     * Detect faces down to the given size, e.g. in a downscaled frame. The tile layout and the
+     * coarse pass are unchanged; only the tiles search for smaller faces.
+     *
+     * @param minSize Smallest face side in pixels of this image
+     */
+    public List<Rect> detect(Mat image, int minSize) {
+        List<Callable<List<ScoredBox>>> tasks = new ArrayList<>();
+        for (Rect tile : tiles(image.cols(), image.rows())) {
+            tasks.add(() -> detectTile(image, tile, minSize));
+        }
+        tasks.add(() -> detectCoarse(image));
+
+        List<ScoredBox> candidates = new ArrayList<>();
+        try {
+            for (Future<List<ScoredBox>> future : pool.invokeAll(tasks)) {
+                candidates.addAll(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new ArrayList<>();
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Tiled face detection failed", e.getCause());
+        }
+
+        return suppress(candidates);
+    }
+
+    /**
+     * Tile grid covering the image, the last row and column aligned to its far edges.
+     */
+    List<Rect> tiles(int width, int height) {
+        List<Rect> tiles = new ArrayList<>();
+        for (int y : offsets(height)) {
+            for (int x : offsets(width)) {
+                tiles.add(new Rect(x, y, Math.min(tileSize, width - x), Math.min(tileSize, height - y)));
+            }
+        }
+        return tiles;
+    }
+
+    private List<Integer> offsets(int length) {
+        List<Integer> offsets = new ArrayList<>();
+        int stride = tileSize - overlap;
+        int offset = 0;
+        while (true) {
+            if (offset + tileSize >= length) {
+                offsets.add(Math.max(0, length - tileSize));
+                return offsets;
+            }
+            offsets.add(offset);
+            offset += stride;
+        }
+    }
+
+    private List<ScoredBox> detectTile(Mat image, Rect tile, int minSize) {
+        Mat roi = image.submat(tile);
+        List<ScoredBox> found = backend().detect(roi, minSize, overlap);
+        roi.release();
+
+        List<ScoredBox> shifted = new ArrayList<>(found.size());
+        for (ScoredBox candidate : found) {
+            Rect box = candidate.box();
+            shifted.add(new ScoredBox(new Rect(box.x + tile.x, box.y + tile.y, box.width, box.height),
+                    candidate.score()));
+        }
+        return shifted;
+    }
+
+    /**
+     * Searches a downscaled copy for faces too large to fit inside the tile overlap.
+     */
+    private List<ScoredBox> detectCoarse(Mat image) {
+        double scale = Math.min(1.0, minFaceSize / (overlap * COARSE_MARGIN));
+        if (scale >= 1.0) {
+            return backend().detect(image, minFaceSize, 0);
+        }
+
+        Mat small = new Mat();
+        Imgproc.resize(image, small, new Size(Math.round(image.cols() * scale), Math.round(image.rows() * scale)), 0,
+                0, Imgproc.INTER_AREA);
+        List<ScoredBox> found = backend().detect(small, minFaceSize, 0);
+        small.release();
+
+        List<ScoredBox> scaled = new ArrayList<>(found.size());
+        for (ScoredBox candidate : found) {
+            Rect box = candidate.box();
+            scaled.add(new ScoredBox(new Rect((int) (box.x / scale), (int) (box.y / scale), (int) (box.width / scale),
+                    (int) (box.height / scale)), candidate.score()));
+        }
+        return scaled;
+    }
+
+    /**
+     * @return The calling pool thread's backend of this detector's type
+     */
+    private DetectorBackend backend() {
+        return BACKENDS.get().computeIfAbsent(backendName, DetectorBackends::create);
+    }
+
+    /**
+     * Greedy non-maximum suppression, strongest detection first. A box also counts as a
+     * duplicate when it lies mostly inside a kept one, as the tile and coarse passes often
+     * frame the same face at slightly different sizes.
+     */
+    List<Rect> suppress(List<ScoredBox> candidates) {
+        List<ScoredBox> sorted = new ArrayList<>(candidates);
+        sorted.sort(Comparator.comparingDouble(ScoredBox::score).reversed()
+                .thenComparing(Comparator.comparingDouble((ScoredBox c) -> c.box().area()).reversed()));
+
+        List<Rect> kept = new ArrayList<>();
+        for (ScoredBox candidate : sorted) {
+            Rect box = candidate.box();
+            boolean duplicate = false;
+            for (Rect other : kept) {
+                double intersection = intersectionArea(box, other);
+                double union = box.area() + other.area() - intersection;
+                if (intersection / union > nmsIou
+                        || intersection / Math.min(box.area(), other.area()) > CONTAINMENT_RATIO) {
+                    duplicate = true;
+                    break;
+                }
+            }
+            if (!duplicate) {
+                kept.add(box);
+            }
+        }
+        return kept;
+    }
+
+    private static double intersectionArea(Rect a, Rect b) {
+        int width = Math.min(a.x + a.width, b.x + b.width) - Math.max(a.x, b.x);
+        int height = Math.min(a.y + a.height, b.y + b.height) - Math.max(a.y, b.y);
+        return width > 0 && height > 0 ? (double) width * height : 0.0;
+    }
+}
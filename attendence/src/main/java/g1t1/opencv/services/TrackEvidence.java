@@ -0,0 +1,140 @@
+package g1t1.opencv.services;
+
+import g1t1.opencv.models.Recognisable;
+import g1t1.opencv.models.RecognitionResult;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Recognition evidence gathered over the frames of one tracked face. Only the best frames,
+ * by {@link FaceQuality}, are recognised: a frame is worth recognising while fewer than the
+ * maximum have been, or when it beats the worst one kept. The kept results are fused by
+ * summing their log-odds, so several agreeing borderline frames add up to a confident match
+ * and frames that name someone else count against it.
+ * <p>
+ * A track can be pinned to its fused identity, after which it needs no more recognition.
+ * <p>
+ * Thread-safe; recognition workers may update the same track concurrently.
+ */
+public class TrackEvidence {
+    private static final double MIN_PROBABILITY = 0.01;
+    private static final double MAX_PROBABILITY = 0.99;
+
+    private final int maxFrames;
+    private final List<Observation> observations = new ArrayList<>();
+    private long lastAttempt = Long.MIN_VALUE;
+    private RecognitionResult pinned;
+
+    /**
+     * @param maxFrames Recognised frames kept per track
+     */
+    public TrackEvidence(int maxFrames) {
+        this.maxFrames = Math.max(1, maxFrames);
+    }
+
+    /**
+     * Decide whether a frame should be recognised, and if so reserve the attempt so other
+     * workers wait for the retry period.
+     *
+     * @param quality    Frame quality [0, 1]
+     * @param minQuality Frames below this quality are never recognised
+     * @param retryMs    Shortest time between two recognitions of this track
+     */
+    public synchronized boolean tryStartRecognition(double quality, double minQuality, long now, long retryMs) {
+        if (quality < minQuality || now - lastAttempt < retryMs) {
+            return false;
+        }
+        if (observations.size() >= maxFrames && quality <= observations.getLast().quality()) {
+            return false;
+        }
+        lastAttempt = now;
+        return true;
+    }
+
+    /**
+     * Add the recognition of a frame, dropping the lowest-quality observation if over the limit.
+     *
+     * @param result Best match for the frame, or null if nothing matched
+     */
+    public synchronized void add(double quality, RecognitionResult result) {
+        Recognisable match = result != null ? result.getMatchedObject() : null;
+        observations.add(new Observation(quality, match, result != null ? result.getConfidence() : 0.0));
+        observations.sort(Comparator.comparingDouble(Observation::quality).reversed());
+        while (observations.size() > maxFrames) {
+            observations.removeLast();
+        }
+    }
+
+    /**
+     * @return Student with the highest summed log-odds and its fused confidence percentage,
+     * or null if no kept frame matched anyone
+     */
+    public synchronized RecognitionResult fused() {
+        Map<String, Recognisable> candidates = new LinkedHashMap<>();
+        for (Observation observation : observations) {
+            if (observation.match() != null) {
+                candidates.putIfAbsent(observation.match().getRecognitionId(), observation.match());
+            }
+        }
+
+        Recognisable best = null;
+        double bestLogOdds = Double.NEGATIVE_INFINITY;
+        for (Map.Entry<String, Recognisable> candidate : candidates.entrySet()) {
+            double logOdds = 0.0;
+            for (Observation observation : observations) {
+                if (observation.match() == null) {
+                    continue;
+                }
+                double frameLogOdds = logOdds(observation.confidence());
+                if (observation.match().getRecognitionId().equals(candidate.getKey())) {
+                    logOdds += frameLogOdds;
+                } else {
+                    logOdds -= Math.max(0.0, frameLogOdds);
+                }
+            }
+            if (logOdds > bestLogOdds) {
+                bestLogOdds = logOdds;
+                best = candidate.getValue();
+            }
+        }
+
+        if (best == null) {
+            return null;
+        }
+        return new RecognitionResult(best, 100.0 / (1.0 + Math.exp(-bestLogOdds)), null);
+    }
+
+    /**
+     * Keep the result as the track's identity until {@link #unpin()}.
+     */
+    public synchronized void pin(RecognitionResult result) {
+        this.pinned = result;
+    }
+
+    public synchronized void unpin() {
+        this.pinned = null;
+    }
+
+    /**
+     * @return Identity the track is pinned to, or null if it is still being recognised
+     */
+    public synchronized RecognitionResult getPinned() {
+        return pinned;
+    }
+
+    public synchronized int getFrameCount() {
+        return observations.size();
+    }
+
+    private static double logOdds(double confidence) {
+        double probability = Math.min(MAX_PROBABILITY, Math.max(MIN_PROBABILITY, confidence / 100.0));
+        return Math.log(probability / (1.0 - probability));
+    }
+
+    private record Observation(double quality, Recognisable match, double confidence) {
+    }
+}
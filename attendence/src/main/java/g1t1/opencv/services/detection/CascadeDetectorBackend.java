@@ -0,0 +1,86 @@
+package g1t1.opencv.services.detection;
+
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfInt;
+import org.opencv.core.MatOfRect;
+import org.opencv.core.Rect;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+import org.opencv.objdetect.CascadeClassifier;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Face detection with an OpenCV cascade classifier. Serves both the Haar cascade and the
+ * LBP cascade, which uses integer features and runs several times faster at some cost in
+ * recall on rotated or poorly lit faces.
+ * <p>
+ * The score of a box is the number of raw cascade hits merged into it.
+ */
+public class CascadeDetectorBackend implements DetectorBackend {
+    private final String name;
+    private final CascadeClassifier cascade;
+    private final double scaleFactor;
+    private final int minNeighbors;
+
+    /**
+     * @param cascadePath Path of the cascade XML file
+     */
+    public CascadeDetectorBackend(String name, String cascadePath, double scaleFactor, int minNeighbors) {
+        this.name = name;
+        this.cascade = new CascadeClassifier(cascadePath);
+        this.scaleFactor = scaleFactor;
+        this.minNeighbors = minNeighbors;
+
+        if (cascade.empty()) {
+            throw new RuntimeException("Failed to load cascade classifier from: " + cascadePath);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return Side of the window the cascade was trained on
+     */
+    @Override
+    public int getSmallestFace() {
+        Size window = cascade.getOriginalWindowSize();
+        return (int) Math.max(window.width, window.height);
+    }
+
+    @Override
+    public Mat prepare(Mat frame) {
+        Mat gray = new Mat();
+        if (frame.channels() == 3) {
+            Imgproc.cvtColor(frame, gray, Imgproc.COLOR_BGR2GRAY);
+        } else if (frame.channels() == 4) {
+            Imgproc.cvtColor(frame, gray, Imgproc.COLOR_BGRA2GRAY);
+        } else {
+            frame.copyTo(gray);
+        }
+        return gray;
+    }
+
+    @Override
+    public List<ScoredBox> detect(Mat prepared, int minSize, int maxSize) {
+        MatOfRect faces = new MatOfRect();
+        MatOfInt neighbors = new MatOfInt();
+        cascade.detectMultiScale2(prepared, faces, neighbors, scaleFactor, minNeighbors, 0,
+                new Size(minSize, minSize), maxSize > 0 ? new Size(maxSize, maxSize) : new Size());
+
+        Rect[] boxes = faces.toArray();
+        int[] counts = neighbors.toArray();
+        List<ScoredBox> found = new ArrayList<>(boxes.length);
+        for (int i = 0; i < boxes.length; i++) {
+            found.add(new ScoredBox(boxes[i], i < counts.length ? counts[i] : 0));
+        }
+
+        faces.release();
+        neighbors.release();
+        return found;
+    }
+}
@@ -0,0 +1,45 @@
+package g1t1.opencv.services.detection;
+
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+
+import java.util.List;
+
+/**
+ * Strategy for finding face boxes in an image. Implementations wrap one OpenCV detector
+ * and are not thread-safe; give each thread its own instance.
+ */
+public interface DetectorBackend {
+    /**
+     * @return Short name used in configuration and logs, e.g. "haar"
+     */
+    String getName();
+
+    /**
+     * Convert a camera frame (BGR, BGRA or grayscale) into the format {@link #detect} expects.
+     * Done once per frame, so regions and tiles of the result can be searched directly.
+     *
+     * @return New image owned by the caller
+     */
+    Mat prepare(Mat frame);
+
+    /**
+     * @return Side in pixels of the smallest face the detector can find at all
+     */
+    int getSmallestFace();
+
+    /**
+     * Detect faces in a prepared image or a region of one.
+     *
+     * @param minSize Smallest face side in pixels
+     * @param maxSize Largest face side in pixels, or 0 for no limit
+     * @return Face boxes in image coordinates with their detection strength
+     */
+    List<ScoredBox> detect(Mat prepared, int minSize, int maxSize);
+
+    /**
+     * @param score Detection strength; only comparable between boxes from the same backend
+     */
+    record ScoredBox(Rect box, double score) {
+    }
+}
@@ -0,0 +1,139 @@
+package g1t1.opencv.services.detection;
+
+import g1t1.features.logger.AppLogger;
+import g1t1.features.logger.LogLevel;
+import g1t1.opencv.config.FaceConfig;
+import org.bytedeco.javacpp.Loader;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Builds the detector backend selected by detection.backend in FaceConfig.
+ * <p>
+ * Models are looked up as a file path first, then as a classpath resource (packaged
+ * under src/main/resources), then, for cascades, in the OpenCV data shipped with
+ * opencv-platform. Downloading from the OpenCV repositories is a last resort that only
+ * happens if detection.model.download is set.
+ */
+public final class DetectorBackends {
+    public static final String HAAR = "haar";
+    public static final String LBP = "lbp";
+    public static final String YUNET = "yunet";
+
+    private static final String HAAR_URL =
+            "https://raw.githubusercontent.com/opencv/opencv/4.x/data/haarcascades/haarcascade_frontalface_alt.xml";
+    private static final String LBP_URL =
+            "https://raw.githubusercontent.com/opencv/opencv/4.x/data/lbpcascades/lbpcascade_frontalface_improved.xml";
+    private static final String YUNET_URL =
+            "https://github.com/opencv/opencv_zoo/raw/main/models/face_detection_yunet/face_detection_yunet_2023mar.onnx";
+
+    // Model path -> local file, so each model is only located or extracted once per run
+    private static final Map<String, File> resolvedModels = new ConcurrentHashMap<>();
+
+    private DetectorBackends() {
+    }
+
+    /**
+     * @return Backend selected in FaceConfig
+     */
+    public static DetectorBackend create() {
+        return create(FaceConfig.getInstance().getDetectorBackend());
+    }
+
+    /**
+     * Build a backend, falling back to the Haar cascade if the requested one cannot be loaded.
+     *
+     * @param type One of {@link #HAAR}, {@link #LBP} or {@link #YUNET}
+     */
+    public static DetectorBackend create(String type) {
+        String name = type == null ? HAAR : type.toLowerCase();
+        if (!HAAR.equals(name)) {
+            try {
+                return load(name);
+            } catch (IOException | RuntimeException e) {
+                AppLogger.logf(LogLevel.Warning, "Face detector backend %s unavailable, using haar: %s", name,
+                        e.getMessage());
+            }
+        }
+
+        try {
+            return load(HAAR);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to load HaarCascade classifier", e);
+        }
+    }
+
+    /**
+     * Build a backend without falling back, so failures reach the caller.
+     */
+    public static DetectorBackend load(String name) throws IOException {
+        FaceConfig config = FaceConfig.getInstance();
+        return switch (name) {
+            case HAAR -> new CascadeDetectorBackend(HAAR, resolveModel(config.getHaarModelPath(), HAAR_URL).getPath(),
+                    config.getScaleFactor(), config.getMinNeighbors());
+            case LBP -> new CascadeDetectorBackend(LBP, resolveModel(config.getLbpModelPath(), LBP_URL).getPath(),
+                    config.getScaleFactor(), config.getMinNeighbors());
+            case YUNET -> new YuNetDetectorBackend(resolveModel(config.getYuNetModelPath(), YUNET_URL).getPath(),
+                    config.getYuNetScoreThreshold(), config.getYuNetNmsThreshold());
+            default -> throw new IllegalArgumentException("Unknown face detector backend: " + name);
+        };
+    }
+
+    /**
+     * Locate a model file, extracting classpath resources to a temporary file since
+     * OpenCV only loads these models from disk.
+     */
+    static File resolveModel(String modelPath, String downloadUrl) throws IOException {
+        File cached = resolvedModels.get(modelPath);
+        if (cached != null && cached.isFile()) {
+            return cached;
+        }
+
+        File resolved = locateModel(modelPath, downloadUrl);
+        resolvedModels.put(modelPath, resolved);
+        return resolved;
+    }
+
+    private static File locateModel(String modelPath, String downloadUrl) throws IOException {
+        Path file = Path.of(modelPath);
+        if (Files.isRegularFile(file)) {
+            return file.toFile();
+        }
+
+        String fileName = file.getFileName().toString();
+        try (InputStream stream = DetectorBackends.class.getResourceAsStream("/" + modelPath)) {
+            if (stream != null) {
+                int dot = fileName.lastIndexOf('.');
+                Path extracted = Files.createTempFile(dot > 0 ? fileName.substring(0, dot) : fileName,
+                        dot > 0 ? fileName.substring(dot) : "");
+                Files.copy(stream, extracted, StandardCopyOption.REPLACE_EXISTING);
+                extracted.toFile().deleteOnExit();
+                return extracted.toFile();
+            }
+        }
+
+        if (fileName.endsWith(".xml")) {
+            File bundled = Loader.extractResource(fileName, null, "classifier", ".xml");
+            if (bundled != null && bundled.length() > 0) {
+                return bundled;
+            }
+        }
+
+        if (FaceConfig.getInstance().isDetectionModelDownloadEnabled()) {
+            AppLogger.logf(LogLevel.Warning, "Face detection model %s not bundled, downloading %s", modelPath,
+                    downloadUrl);
+            return Loader.cacheResource(URI.create(downloadUrl).toURL());
+        }
+
+        throw new IOException("Face detection model not found: " + modelPath
+                + " (bundle it under src/main/resources/models or set detection.model.download=true)");
+    }
+}
@@ -0,0 +1,111 @@
+package g1t1.opencv.services.detection;
+
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+import org.opencv.objdetect.FaceDetectorYN;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Face detection with OpenCV's FaceDetectorYN and the YuNet ONNX model. A small CNN that
+ * is both faster and more accurate than the Haar cascade on CPU, and copes with turned
+ * and partly covered faces.
+ * <p>
+ * The score of a box is the model's face confidence [0, 1].
+ */
+public class YuNetDetectorBackend implements DetectorBackend {
+    private static final int TOP_K = 5000;
+    // Output row: x, y, w, h, 5 landmark points (x, y), score
+    private static final int SCORE_COLUMN = 14;
+    // Smallest anchor of the model
+    private static final int SMALLEST_FACE = 10;
+
+    private final FaceDetectorYN detector;
+    private Size inputSize = new Size(320, 320);
+
+    /**
+     * @param modelPath      Path of the YuNet ONNX model
+     * @param scoreThreshold Confidence below which a face is discarded
+     * @param nmsThreshold   IoU above which overlapping faces are merged
+     */
+    public YuNetDetectorBackend(String modelPath, double scoreThreshold, double nmsThreshold) {
+        this.detector = FaceDetectorYN.create(modelPath, "", inputSize, (float) scoreThreshold, (float) nmsThreshold,
+                TOP_K);
+    }
+
+    @Override
+    public String getName() {
+        return "yunet";
+    }
+
+    @Override
+    public int getSmallestFace() {
+        return SMALLEST_FACE;
+    }
+
+    @Override
+    public Mat prepare(Mat frame) {
+        Mat bgr = new Mat();
+        if (frame.channels() == 1) {
+            Imgproc.cvtColor(frame, bgr, Imgproc.COLOR_GRAY2BGR);
+        } else if (frame.channels() == 4) {
+            Imgproc.cvtColor(frame, bgr, Imgproc.COLOR_BGRA2BGR);
+        } else {
+            frame.copyTo(bgr);
+        }
+        return bgr;
+    }
+
+    @Override
+    public List<ScoredBox> detect(Mat prepared, int minSize, int maxSize) {
+        Mat faces = detectRows(prepared);
+        List<ScoredBox> found = new ArrayList<>(faces.rows());
+        float[] row = new float[faces.cols()];
+        for (int i = 0; i < faces.rows(); i++) {
+            faces.get(i, 0, row);
+            Rect box = new Rect(Math.round(row[0]), Math.round(row[1]), Math.round(row[2]), Math.round(row[3]));
+            int side = Math.max(box.width, box.height);
+            if (side >= minSize && (maxSize <= 0 || side <= maxSize)) {
+                found.add(new ScoredBox(box, row[SCORE_COLUMN]));
+            }
+        }
+
+        faces.release();
+        return found;
+    }
+
+    /**
+     * Detect the most confident face together with its five landmarks.
+     *
+     * @return Output row of the face: x, y, w, h, right eye, left eye, nose tip, right and left
+     * mouth corner (x, y each), score; or null if no face was found
+     */
+    public float[] detectBestFace(Mat prepared) {
+        Mat faces = detectRows(prepared);
+        float[] best = null;
+        float[] row = new float[faces.cols()];
+        for (int i = 0; i < faces.rows(); i++) {
+            faces.get(i, 0, row);
+            if (best == null || row[SCORE_COLUMN] > best[SCORE_COLUMN]) {
+                best = row.clone();
+            }
+        }
+
+        faces.release();
+        return best;
+    }
+
+    private Mat detectRows(Mat prepared) {
+        if (prepared.cols() != inputSize.width || prepared.rows() != inputSize.height) {
+            inputSize = prepared.size();
+            detector.setInputSize(inputSize);
+        }
+
+        Mat faces = new Mat();
+        detector.detect(prepared, faces);
+        return faces;
+    }
+}
@@ -0,0 +1,224 @@
+package g1t1.opencv.services.liveness;
+
+import g1t1.opencv.models.LivenessResult;
+import g1t1.opencv.services.preprocessing.FaceAligner;
+import g1t1.opencv.services.preprocessing.FaceAnalysis;
+import g1t1.utils.ExpiringCache;
+import org.opencv.core.Core;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfDouble;
+import org.opencv.core.Point;
+import org.opencv.core.Rect;
+
+/**
+ * Temporal liveness over face tracks: a face is live once it has been seen to blink a set
+ * number of times. Each sample aligns the face on its landmarks, so the eyes sit at fixed
+ * points whatever the detection box does. YuNet finds the landmarks only every few samples
+ * of a track; in between they are reused relative to the tracked box, so most samples cost
+ * one warp of the grayscale plane. Each sample then measures the openness of each eye as the
+ * contrast (standard deviation over mean) of a small patch around it; open eyes add dark
+ * pupils and bright sclera, closed lids are flat skin. The patches stop short of the brows,
+ * and each is divided by the contrast of the cheeks so blur from a moving face or photo
+ * lowers both alike. A blink is a sample with both eyes clearly below their running
+ * open-eye baselines, followed by a return to them within the longest blink duration.
+ * <p>
+ * Faces whose landmarks cannot be found are not sampled, and are looked for again on the next sample.
+ * <p>
+ * A photo never blinks, so its track stays pending until the timeout marks it as not live.
+ * Once decided, the verdict is kept for the rest of the track and no more samples are taken.
+ * Blinks shorter than the time between two recognised frames can be missed, so slow frame
+ * rates need a lower blink threshold or a longer timeout.
+ * <p>
+ * Thread-safe; each track's state is updated under its own lock.
+ */
+public class BlinkLivenessTracker {
+    // Patches in the 112x112 aligned face: one eye each, kept below the brows, and the cheeks
+    private static final int EYE_HALF_WIDTH = 8;
+    private static final int EYE_HALF_HEIGHT = 4;
+    private static final Rect CHEEKS = new Rect(30, 60, 52, 20);
+    private static final double BASELINE_GAIN = 0.2;
+    private static final int MIN_BASELINE_SAMPLES = 3;
+
+    private final FaceAligner aligner;
+    private final int locateInterval;
+    private final int requiredBlinks;
+    private final double closedDrop;
+    private final long maxBlinkMs;
+    private final long timeoutMs;
+    private final ExpiringCache<String, TrackState> states;
+
+    /**
+     * @param aligner        Finds the landmarks the eyes are measured at
+     * @param locateInterval Samples of a track between two landmark searches
+     * @param requiredBlinks Blinks needed before a face counts as live
+     * @param closedDrop     Fraction below the open-eye baseline at which the eyes count as closed
+     * @param maxBlinkMs     Longest closure still counted as a blink
+     * @param timeoutMs      Time without enough blinks after which a track is judged not live
+     * @param maxTracks      Tracks whose state is kept before the least recently seen is dropped
+     */
+    public BlinkLivenessTracker(FaceAligner aligner, int locateInterval, int requiredBlinks, double closedDrop,
+                                long maxBlinkMs, long timeoutMs, int maxTracks) {
+        this.aligner = aligner;
+        this.locateInterval = Math.max(1, locateInterval);
+        this.requiredBlinks = Math.max(1, requiredBlinks);
+        this.closedDrop = closedDrop;
+        this.maxBlinkMs = maxBlinkMs;
+        this.timeoutMs = timeoutMs;
+        // A track is forgotten once it goes unseen for the timeout; ended tracks are removed sooner via forget()
+        this.states = new ExpiringCache<>("blink", maxTracks, timeoutMs);
+    }
+
+    /**
+     * Add a sample of the face to its track, unless the track is already decided.
+     *
+     * @return Live once enough blinks were seen, not live after the timeout, pending otherwise
+     */
+    public LivenessResult update(String faceId, FaceAnalysis analysis, long now) {
+        TrackState state;
+        synchronized (states) {
+            state = states.get(faceId);
+            if (state == null) {
+                state = new TrackState(now);
+            }
+            states.put(faceId, state);
+        }
+
+        synchronized (state) {
+            if (state.verdict != null) {
+                return state.verdict;
+            }
+
+            Mat aligned = alignGray(state, analysis);
+            double[] openness = eyeOpenness(aligned);
+            if (aligned != null) {
+                aligned.release();
+            }
+            if (openness != null) {
+                state.sample(openness, now);
+            }
+
+            if (state.blinks >= requiredBlinks) {
+                state.verdict = new LivenessResult(true, 100.0, String.format("Blinks=%d -> LIVE", state.blinks));
+                return state.verdict;
+            }
+            if (now - state.startedAt >= timeoutMs) {
+                state.verdict = new LivenessResult(false, 100.0 * state.blinks / requiredBlinks,
+                        String.format("Blinks=%d/%d in %ds -> PHOTO", state.blinks, requiredBlinks, timeoutMs / 1000));
+                return state.verdict;
+            }
+            return new LivenessResult(false, 100.0 * state.blinks / requiredBlinks,
+                    String.format("Blinks=%d/%d -> WAITING", state.blinks, requiredBlinks), true);
+        }
+    }
+
+    /**
+     * Drop the state of a track that has ended.
+     */
+    public void forget(String faceId) {
+        states.remove(faceId);
+    }
+
+    public void reset() {
+        states.clear();
+    }
+
+    public ExpiringCache.Stats getStats() {
+        return states.getStats();
+    }
+
+    /**
+     * Aligns the grayscale face on the track's landmarks, searching for them again once they
+     * are missing or have been reused for the locate interval.
+     *
+     * @return Aligned grayscale face owned by the caller, or null if no landmarks were found
+     */
+    private Mat alignGray(TrackState state, FaceAnalysis analysis) {
+        if (state.landmarks == null || ++state.samplesSinceLocate >= locateInterval) {
+            state.landmarks = aligner.locate(analysis.face());
+            state.samplesSinceLocate = 0;
+        }
+        return state.landmarks != null ? aligner.align(analysis.gray(), state.landmarks) : null;
+    }
+
+    /**
+     * @param gray Grayscale face aligned on its landmarks, or null if they were not found
+     * @return Openness of the right and left eye relative to the cheeks, or null if not measurable
+     */
+    private static double[] eyeOpenness(Mat gray) {
+        if (gray == null) {
+            return null;
+        }
+
+        double cheeks = contrast(gray, CHEEKS);
+        if (cheeks <= 0) {
+            return null;
+        }
+        return new double[]{
+                contrast(gray, eyePatch(FaceAligner.RIGHT_EYE)) / cheeks,
+                contrast(gray, eyePatch(FaceAligner.LEFT_EYE)) / cheeks};
+    }
+
+    private static Rect eyePatch(Point eye) {
+        return new Rect((int) Math.round(eye.x) - EYE_HALF_WIDTH, (int) Math.round(eye.y) - EYE_HALF_HEIGHT,
+                2 * EYE_HALF_WIDTH, 2 * EYE_HALF_HEIGHT);
+    }
+
+    /**
+     * @return Standard deviation over mean of the patch
+     */
+    private static double contrast(Mat gray, Rect patch) {
+        Mat region = gray.submat(patch);
+        MatOfDouble mean = new MatOfDouble();
+        MatOfDouble stddev = new MatOfDouble();
+        Core.meanStdDev(region, mean, stddev);
+        double average = mean.get(0, 0)[0];
+        double deviation = stddev.get(0, 0)[0];
+
+        region.release();
+        mean.release();
+        stddev.release();
+        return deviation / (average + 1.0);
+    }
+
+    private final class TrackState {
+        private final long startedAt;
+        private final double[] baselines = new double[2];
+        private float[] landmarks; // fractions of the face box, null until found
+        private int samplesSinceLocate;
+        private int baselineSamples;
+        private long closedSince = -1;
+        private int blinks;
+        private LivenessResult verdict;
+
+        TrackState(long startedAt) {
+            this.startedAt = startedAt;
+        }
+
+        /**
+         * @param openness Openness of each eye
+         */
+        void sample(double[] openness, long now) {
+            boolean closed = baselineSamples >= MIN_BASELINE_SAMPLES;
+            for (int eye = 0; eye < baselines.length; eye++) {
+                closed &= openness[eye] < baselines[eye] * (1.0 - closedDrop);
+            }
+            if (closed) {
+                if (closedSince < 0) {
+                    closedSince = now;
+                }
+                return;
+            }
+
+            if (closedSince >= 0 && now - closedSince <= maxBlinkMs) {
+                blinks++;
+            }
+            closedSince = -1;
+            for (int eye = 0; eye < baselines.length; eye++) {
+                baselines[eye] = baselineSamples == 0
+                        ? openness[eye]
+                        : baselines[eye] + BASELINE_GAIN * (openness[eye] - baselines[eye]);
+            }
+            baselineSamples++;
+        }
+    }
+}
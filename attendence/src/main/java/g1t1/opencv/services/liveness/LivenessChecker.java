@@ -1,14 +1,12 @@
 package g1t1.opencv.services.liveness;
 
 import org.opencv.core.Core;
-import org.opencv.core.CvType;
 import org.opencv.core.Mat;
 import org.opencv.core.MatOfDouble;
 import org.opencv.core.Scalar;
-import org.opencv.core.Size;
-import org.opencv.imgproc.Imgproc;
 
 import g1t1.opencv.models.LivenessResult;
+import g1t1.opencv.services.preprocessing.FaceAnalysis;
 
 /**
  * Basic liveness detection to prevent photo spoofing.
@@ -46,28 +44,32 @@ public class LivenessChecker {
             return new LivenessResult(false, 0.0, "No face region provided");
         }
 
-        // Convert to grayscale for texture analysis
-        Mat grayFace = new Mat();
-        if (faceRegion.channels() == 3) {
-            Imgproc.cvtColor(faceRegion, grayFace, Imgproc.COLOR_BGR2GRAY);
-        } else {
-            faceRegion.copyTo(grayFace);
+        FaceAnalysis analysis = new FaceAnalysis(faceRegion);
+        LivenessResult result = checkLiveness(analysis);
+        analysis.release();
+        return result;
+    }
+
+    /**
+     * Liveness check reusing the grayscale, Laplacian and blur planes of a shared face analysis.
+     */
+    public LivenessResult checkLiveness(FaceAnalysis analysis) {
+        if (analysis == null || analysis.face() == null || analysis.face().empty()) {
+            return new LivenessResult(false, 0.0, "No face region provided");
         }
 
-        // Method 1: Laplacian variance (actual variance, not stddev)
-        Mat laplacian = new Mat();
-        Imgproc.Laplacian(grayFace, laplacian, CvType.CV_64F);
+        Mat grayFace = analysis.gray();
 
+        // Method 1: Laplacian variance (actual variance, not stddev)
         MatOfDouble mean = new MatOfDouble();
         MatOfDouble stddev = new MatOfDouble();
-        Core.meanStdDev(laplacian, mean, stddev);
+        Core.meanStdDev(analysis.laplacian(), mean, stddev);
 
         double laplacianStdDev = stddev.get(0, 0)[0];
         double laplacianVariance = laplacianStdDev * laplacianStdDev;
 
         // Method 2: Texture complexity ratio (high-frequency / low-frequency)
-        Mat blurred = new Mat();
-        Imgproc.GaussianBlur(grayFace, blurred, new Size(9, 9), 0);
+        Mat blurred = analysis.blurred();
 
         Mat highFreq = new Mat();
         Core.absdiff(grayFace, blurred, highFreq);
@@ -77,10 +79,9 @@ public class LivenessChecker {
 
         double textureRatio = highFreqMean.val[0] / (lowFreqMean.val[0] + 1.0);
 
-        // Cleanup
-        grayFace.release();
-        laplacian.release();
-        blurred.release();
+        // Cleanup (planes belong to the analysis)
+        mean.release();
+        stddev.release();
         highFreq.release();
 
         // Combined scoring - calibrated thresholds
@@ -11,20 +11,23 @@ import org.opencv.imgproc.Imgproc;
  * - Adapts to local contrast variations
  * - Prevents over-amplification of noise
  * - Better handles varying lighting conditions
+ *
+ * CLAHE keeps scratch buffers between calls, so each thread gets its own instance.
  */
 public class CLAHEProcessor implements FacePreprocessor {
 
-    private final CLAHE clahe;
+    private final ThreadLocal<CLAHE> clahe = ThreadLocal.withInitial(CLAHEProcessor::createClahe);
 
-    public CLAHEProcessor() {
+    private static CLAHE createClahe() {
         // Create CLAHE with optimized parameters for face recognition
-        this.clahe = Imgproc.createCLAHE();
+        CLAHE clahe = Imgproc.createCLAHE();
 
         // Clip limit: controls contrast amplification (2.0-4.0 works well for faces)
-        this.clahe.setClipLimit(3.0);
+        clahe.setClipLimit(3.0);
 
         // Tile grid size: 8x8 provides good balance between local and global adaptation
-        this.clahe.setTilesGridSize(new Size(8, 8));
+        clahe.setTilesGridSize(new Size(8, 8));
+        return clahe;
     }
 
     @Override
@@ -36,7 +39,7 @@ public class CLAHEProcessor implements FacePreprocessor {
         Mat enhancedFace = new Mat();
 
         // Apply CLAHE to improve contrast while limiting noise amplification
-        clahe.apply(face, enhancedFace);
+        clahe.get().apply(face, enhancedFace);
 
         return enhancedFace;
     }
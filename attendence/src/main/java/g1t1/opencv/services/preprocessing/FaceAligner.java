@@ -0,0 +1,202 @@
+package g1t1.opencv.services.preprocessing;
+
+import g1t1.features.logger.AppLogger;
+import g1t1.features.logger.LogLevel;
+import g1t1.opencv.services.detection.DetectorBackends;
+import g1t1.opencv.services.detection.YuNetDetectorBackend;
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Point;
+import org.opencv.core.Range;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+import java.io.IOException;
+
+/**
+ * Aligns faces the way face embedding models such as SFace were trained on them. YuNet
+ * finds the five facial landmarks, and the least-squares similarity transform (rotation,
+ * uniform scale, translation) onto the standard 112x112 landmark template warps the face
+ * upright and centred, as FaceRecognizerSF.alignCrop does.
+ * <p>
+ * Works on whatever box the face detector produced: a face crop still inside its camera
+ * frame is widened to take in its surroundings, since YuNet misses faces cropped tight.
+ * Share the aligned face of a detected face through {@link FaceAnalysis#aligned}. Callers
+ * that follow a face over many frames can {@link #locate} its landmarks once and reuse them
+ * with {@link #align(Mat, float[])}, which only warps.
+ * Thread-safe; each thread gets its own YuNet instance.
+ */
+public class FaceAligner {
+    public static final Size OUTPUT_SIZE = new Size(112, 112);
+
+    // Right eye, left eye, nose tip, right and left mouth corner in the 112x112 output
+    private static final double[] TEMPLATE = {
+            38.2946, 51.6963, 73.5318, 51.5014, 56.0252, 71.7366, 41.5493, 92.3655, 70.7299, 92.2041};
+    // Eye centres in the aligned face, as seen in the image
+    public static final Point RIGHT_EYE = new Point(TEMPLATE[0], TEMPLATE[1]);
+    public static final Point LEFT_EYE = new Point(TEMPLATE[2], TEMPLATE[3]);
+    private static final int LANDMARK_COLUMN = 4;
+    private static final double CONTEXT_MARGIN = 0.25;
+
+    private final ThreadLocal<YuNetDetectorBackend> detectors;
+
+    private FaceAligner() {
+        this.detectors = ThreadLocal.withInitial(FaceAligner::loadDetector);
+    }
+
+    /**
+     * @return Aligner using the configured YuNet model, or null if the model cannot be loaded
+     */
+    public static FaceAligner create() {
+        FaceAligner aligner = new FaceAligner();
+        try {
+            aligner.detectors.get();
+            return aligner;
+        } catch (RuntimeException e) {
+            AppLogger.logf(LogLevel.Warning, "Face alignment unavailable: %s", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Align the most confident face in the image.
+     *
+     * @param image Face crop or photo, BGR, BGRA or grayscale; a crop that is a region of a larger frame is widened
+     * @return New 112x112 BGR aligned face owned by the caller, or null if no face was found
+     */
+    public Mat align(Mat image) {
+        YuNetDetectorBackend detector = detectors.get();
+        Mat context = withContext(image);
+        Mat bgr = detector.prepare(context);
+        context.release();
+
+        float[] face = detector.detectBestFace(bgr);
+        if (face == null) {
+            bgr.release();
+            return null;
+        }
+
+        double[] points = new double[TEMPLATE.length];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = face[LANDMARK_COLUMN + i];
+        }
+        Mat transform = similarityTransform(points);
+        Mat aligned = new Mat();
+        Imgproc.warpAffine(bgr, aligned, transform, OUTPUT_SIZE, Imgproc.INTER_LINEAR);
+        transform.release();
+        bgr.release();
+        return aligned;
+    }
+
+    /**
+     * Find the landmarks of the most confident face in the image.
+     *
+     * @param image Face crop, as for {@link #align(Mat)}
+     * @return Landmark coordinates as fractions of the crop's width and height, or null if no face was found
+     */
+    public float[] locate(Mat image) {
+        YuNetDetectorBackend detector = detectors.get();
+        Mat context = withContext(image);
+        Mat bgr = detector.prepare(context);
+        float[] face = detector.detectBestFace(bgr);
+        bgr.release();
+
+        // The landmarks are found in the widened crop, so shift them back into the crop
+        Size wholeSize = new Size();
+        Point imageOffset = new Point();
+        Point contextOffset = new Point();
+        image.locateROI(wholeSize, imageOffset);
+        context.locateROI(wholeSize, contextOffset);
+        context.release();
+        if (face == null) {
+            return null;
+        }
+
+        float[] landmarks = new float[TEMPLATE.length];
+        for (int i = 0; i < landmarks.length; i += 2) {
+            landmarks[i] = (float) ((face[LANDMARK_COLUMN + i] - (imageOffset.x - contextOffset.x)) / image.cols());
+            landmarks[i + 1] = (float) ((face[LANDMARK_COLUMN + i + 1] - (imageOffset.y - contextOffset.y))
+                    / image.rows());
+        }
+        return landmarks;
+    }
+
+    /**
+     * Align a face crop on landmarks found by {@link #locate}, possibly in an earlier crop of
+     * the same tracked face. Only warps, so it costs a fraction of {@link #align(Mat)}.
+     *
+     * @param image     Face crop, any type; the output has the same type
+     * @param landmarks Landmarks as fractions of the crop's width and height
+     * @return New 112x112 aligned face owned by the caller
+     */
+    public Mat align(Mat image, float[] landmarks) {
+        double[] points = new double[landmarks.length];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = landmarks[i] * (i % 2 == 0 ? image.cols() : image.rows());
+        }
+
+        Mat transform = similarityTransform(points);
+        Mat aligned = new Mat();
+        Imgproc.warpAffine(image, aligned, transform, OUTPUT_SIZE, Imgproc.INTER_LINEAR, Core.BORDER_REPLICATE);
+        transform.release();
+        return aligned;
+    }
+
+    /**
+     * @return Header over the image grown by the margin on each side, as far as its parent frame allows
+     */
+    private static Mat withContext(Mat image) {
+        Mat context = new Mat(image, Range.all(), Range.all());
+        int dx = (int) (image.cols() * CONTEXT_MARGIN);
+        int dy = (int) (image.rows() * CONTEXT_MARGIN);
+        context.adjustROI(dy, dy, dx, dx);
+        return context;
+    }
+
+    /**
+     * Least-squares similarity transform from the detected landmarks to the template.
+     *
+     * @param landmarks x, y of the five landmarks in template order
+     * @return 2x3 affine matrix
+     */
+    private static Mat similarityTransform(double[] landmarks) {
+        int points = TEMPLATE.length / 2;
+        double srcX = 0, srcY = 0, dstX = 0, dstY = 0;
+        for (int i = 0; i < points; i++) {
+            srcX += landmarks[2 * i];
+            srcY += landmarks[2 * i + 1];
+            dstX += TEMPLATE[2 * i];
+            dstY += TEMPLATE[2 * i + 1];
+        }
+        srcX /= points;
+        srcY /= points;
+        dstX /= points;
+        dstY /= points;
+
+        double dot = 0, cross = 0, norm = 0;
+        for (int i = 0; i < points; i++) {
+            double px = landmarks[2 * i] - srcX;
+            double py = landmarks[2 * i + 1] - srcY;
+            double qx = TEMPLATE[2 * i] - dstX;
+            double qy = TEMPLATE[2 * i + 1] - dstY;
+            dot += px * qx + py * qy;
+            cross += px * qy - py * qx;
+            norm += px * px + py * py;
+        }
+        double a = norm > 0 ? dot / norm : 1.0;
+        double b = norm > 0 ? cross / norm : 0.0;
+
+        Mat transform = new Mat(2, 3, CvType.CV_64F);
+        transform.put(0, 0, a, -b, dstX - (a * srcX - b * srcY), b, a, dstY - (b * srcX + a * srcY));
+        return transform;
+    }
+
+    private static YuNetDetectorBackend loadDetector() {
+        try {
+            return (YuNetDetectorBackend) DetectorBackends.load(DetectorBackends.YUNET);
+        } catch (IOException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+}
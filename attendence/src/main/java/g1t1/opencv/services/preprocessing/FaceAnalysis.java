@@ -0,0 +1,147 @@
+package g1t1.opencv.services.preprocessing;
+
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+/**
+ * Image planes of one detected face, computed on first use and shared by liveness, mask
+ * detection, quality scoring and recognition so each conversion runs once per face.
+ * The planes are computed exactly as each consumer used to compute them on its own.
+ * <p>
+ * Owns every plane it creates, but not the face itself; call {@link #release()} when the
+ * face is done. Not thread-safe; use from the thread that processes the face.
+ */
+public class FaceAnalysis {
+    private static final Size BLUR_SIZE = new Size(9, 9);
+
+    private final Mat face;
+    private Mat gray;
+    private Mat laplacian;
+    private Mat blurred;
+    private Mat lowerGray;
+    private Mat lowerHsv;
+    private Mat aligned;
+    private boolean alignmentTried;
+
+    /**
+     * @param face Face crop, BGR or grayscale; must outlive this analysis
+     */
+    public FaceAnalysis(Mat face) {
+        this.face = face;
+    }
+
+    /**
+     * @return Face as given
+     */
+    public Mat face() {
+        return face;
+    }
+
+    /**
+     * @return Grayscale face
+     */
+    public Mat gray() {
+        if (gray == null) {
+            gray = new Mat();
+            if (face.channels() == 3) {
+                Imgproc.cvtColor(face, gray, Imgproc.COLOR_BGR2GRAY);
+            } else {
+                face.copyTo(gray);
+            }
+        }
+        return gray;
+    }
+
+    /**
+     * @return 64-bit Laplacian of the grayscale face
+     */
+    public Mat laplacian() {
+        if (laplacian == null) {
+            laplacian = new Mat();
+            Imgproc.Laplacian(gray(), laplacian, CvType.CV_64F);
+        }
+        return laplacian;
+    }
+
+    /**
+     * @return Grayscale face after a 9x9 Gaussian blur
+     */
+    public Mat blurred() {
+        if (blurred == null) {
+            blurred = new Mat();
+            Imgproc.GaussianBlur(gray(), blurred, BLUR_SIZE, 0);
+        }
+        return blurred;
+    }
+
+    /**
+     * @return Area of the lower half of the face (mouth and chin), in face coordinates
+     */
+    public Rect lowerRegion() {
+        int startY = (int) (face.height() * 0.5);
+        return new Rect(0, startY, face.width(), face.height() - startY);
+    }
+
+    /**
+     * @return Grayscale lower half of the face, as its own continuous image so filters
+     * treat its edges as image borders
+     */
+    public Mat lowerGray() {
+        if (lowerGray == null) {
+            Mat region = gray().submat(lowerRegion());
+            lowerGray = region.clone();
+            region.release();
+        }
+        return lowerGray;
+    }
+
+    /**
+     * @return Lower half of the face in HSV
+     */
+    public Mat lowerHsv() {
+        if (lowerHsv == null) {
+            Mat lowerFace = face.submat(lowerRegion());
+            lowerHsv = new Mat();
+            if (lowerFace.channels() == 3) {
+                Imgproc.cvtColor(lowerFace, lowerHsv, Imgproc.COLOR_BGR2HSV);
+            } else {
+                Imgproc.cvtColor(lowerFace, lowerHsv, Imgproc.COLOR_GRAY2BGR);
+                Imgproc.cvtColor(lowerHsv, lowerHsv, Imgproc.COLOR_BGR2HSV);
+            }
+            lowerFace.release();
+        }
+        return lowerHsv;
+    }
+
+    /**
+     * @return Face aligned on its landmarks, or null if they were not found
+     */
+    public Mat aligned(FaceAligner aligner) {
+        if (!alignmentTried) {
+            aligned = aligner.align(face);
+            alignmentTried = true;
+        }
+        return aligned;
+    }
+
+    /**
+     * Release every computed plane. The face itself is left to its owner.
+     */
+    public void release() {
+        for (Mat plane : new Mat[]{gray, laplacian, blurred, lowerGray, lowerHsv, aligned}) {
+            if (plane != null) {
+                plane.release();
+            }
+        }
+        gray = null;
+        laplacian = null;
+        blurred = null;
+        lowerGray = null;
+        lowerHsv = null;
+        aligned = null;
+        alignmentTried = false;
+    }
+}
@@ -0,0 +1,137 @@
+package g1t1.opencv.services.recognition;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coarse-to-fine gallery scoring in a fixed order: every candidate student gets the cheap
+ * 128-bin histogram score, only the best students by histogram get LBP added, and only the
+ * best of those pay for the HOG distance. Pruned students score 0.
+ * <p>
+ * Safe to call concurrently; pruning statistics accumulate across calls until reset.
+ */
+public final class CascadeScorer {
+    private final AtomicLong probes = new AtomicLong();
+    private final AtomicLong students = new AtomicLong();
+    private final AtomicLong prunedByHistogram = new AtomicLong();
+    private final AtomicLong prunedByLbp = new AtomicLong();
+    private final AtomicLong fullyScored = new AtomicLong();
+
+    /**
+     * Scores the probe against the candidate students of the gallery.
+     *
+     * @param candidates        Recognition ids to consider, or null for every student in the gallery
+     * @param histogramTopK     Students kept after the histogram stage
+     * @param minHistogramScore Best-row histogram similarity a student needs to survive the first stage
+     * @param lbpTopK           Students kept after the LBP stage
+     * @param minLbpScore       Best-row geometric mean of histogram and LBP similarity needed to reach HOG
+     * @return Similarity [0, 1] by recognition id for every considered student, 0 if pruned
+     */
+    public Map<String, Double> score(FeatureGallery gallery, FeatureVector probe, Collection<String> candidates,
+                                     int histogramTopK, double minHistogramScore, int lbpTopK, double minLbpScore) {
+        Collection<String> ids = candidates != null ? candidates : gallery.getRecognitionIds();
+        Map<String, Double> scores = new HashMap<>();
+        double[] histogramScores = new double[gallery.rowCount()];
+        double[] lbpScores = new double[gallery.rowCount()];
+
+        // Stage 1: histogram only
+        List<StageScore> stage = new ArrayList<>();
+        for (String id : ids) {
+            int[] range = gallery.rowRange(id);
+            if (range == null) {
+                continue;
+            }
+
+            double best = 0.0;
+            for (int row = range[0]; row < range[1]; row++) {
+                histogramScores[row] = gallery.histogramScore(probe, row);
+                best = Math.max(best, histogramScores[row]);
+            }
+            stage.add(new StageScore(id, range, best));
+            scores.put(id, 0.0);
+        }
+        int considered = stage.size();
+        stage = keepBest(stage, histogramTopK, minHistogramScore);
+        int afterHistogram = stage.size();
+
+        // Stage 2: histogram + LBP
+        List<StageScore> next = new ArrayList<>(stage.size());
+        for (StageScore student : stage) {
+            double best = 0.0;
+            for (int row = student.range[0]; row < student.range[1]; row++) {
+                lbpScores[row] = gallery.lbpScore(probe, row);
+                best = Math.max(best, Math.sqrt(histogramScores[row] * lbpScores[row]));
+            }
+            next.add(new StageScore(student.id, student.range, best));
+        }
+        stage = keepBest(next, lbpTopK, minLbpScore);
+
+        // Stage 3: full combined score with HOG
+        for (StageScore student : stage) {
+            double best = 0.0;
+            for (int row = student.range[0]; row < student.range[1]; row++) {
+                double similarity = Recognizer.combineScores(histogramScores[row], lbpScores[row],
+                        gallery.hogScore(probe, row));
+                best = Math.max(best, similarity);
+            }
+            scores.put(student.id, best);
+        }
+
+        probes.incrementAndGet();
+        students.addAndGet(considered);
+        prunedByHistogram.addAndGet(considered - afterHistogram);
+        prunedByLbp.addAndGet(afterHistogram - stage.size());
+        fullyScored.addAndGet(stage.size());
+        return scores;
+    }
+
+    public Stats getStats() {
+        return new Stats(probes.get(), students.get(), prunedByHistogram.get(), prunedByLbp.get(), fullyScored.get());
+    }
+
+    public void resetStats() {
+        probes.set(0);
+        students.set(0);
+        prunedByHistogram.set(0);
+        prunedByLbp.set(0);
+        fullyScored.set(0);
+    }
+
+    /**
+     * Students at or above the minimum score, best first, at most topK of them.
+     */
+    private static List<StageScore> keepBest(List<StageScore> scores, int topK, double minScore) {
+        List<StageScore> kept = new ArrayList<>(scores.size());
+        for (StageScore score : scores) {
+            if (score.score >= minScore) {
+                kept.add(score);
+            }
+        }
+        kept.sort((a, b) -> Double.compare(b.score, a.score));
+        return kept.size() > topK ? new ArrayList<>(kept.subList(0, Math.max(0, topK))) : kept;
+    }
+
+    private record StageScore(String id, int[] range, double score) {
+    }
+
+    /**
+     * Cumulative pruning counts. Each considered student is pruned by exactly one stage or fully scored.
+     */
+    public record Stats(long probes, long students, long prunedByHistogram, long prunedByLbp, long fullyScored) {
+        @Override
+        public String toString() {
+            return String.format("CascadeStats{probes=%d, students=%d, prunedByHistogram=%d (%.1f%%), " +
+                            "prunedByLbp=%d (%.1f%%), fullyScored=%d (%.1f%%)", probes, students,
+                    prunedByHistogram, percent(prunedByHistogram), prunedByLbp, percent(prunedByLbp),
+                    fullyScored, percent(fullyScored));
+        }
+
+        private double percent(long count) {
+            return students == 0 ? 0.0 : 100.0 * count / students;
+        }
+    }
+}
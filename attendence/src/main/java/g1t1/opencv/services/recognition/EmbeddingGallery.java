@@ -0,0 +1,165 @@
+package g1t1.opencv.services.recognition;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable gallery of L2-normalised face embeddings, one row per enrolled image, stored
+ * contiguously by student. Matching is a dot product, which equals the cosine similarity.
+ */
+public final class EmbeddingGallery {
+    private static final EmbeddingGallery EMPTY = new EmbeddingGallery(new float[0], 0, Map.of());
+
+    private final float[] data;
+    private final int dimensions;
+    private final Map<String, int[]> rowRanges;
+
+    private EmbeddingGallery(float[] data, int dimensions, Map<String, int[]> rowRanges) {
+        this.data = data;
+        this.dimensions = dimensions;
+        this.rowRanges = rowRanges;
+    }
+
+    public static EmbeddingGallery empty() {
+        return EMPTY;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Copy of this gallery with one student's rows replaced, appended after the other students.
+     * This gallery is left unchanged, so probes still scoring it are unaffected.
+     *
+     * @param rows Gallery holding only the student's new rows; empty to remove the student
+     */
+    public EmbeddingGallery withStudent(String recognitionId, EmbeddingGallery rows) {
+        int[] oldRange = rowRanges.get(recognitionId);
+        int removed = oldRange != null ? oldRange[1] - oldRange[0] : 0;
+        int added = rows.rowCount();
+        if (removed == 0 && added == 0) {
+            return this;
+        }
+        if (removed == rowCount()) {
+            return added == 0 ? EMPTY : rows;
+        }
+        if (added > 0 && rows.dimensions != dimensions) {
+            throw new IllegalArgumentException("Embedding length " + rows.dimensions
+                    + " does not match gallery length " + dimensions);
+        }
+
+        float[] updatedData = new float[(rowCount() - removed + added) * dimensions];
+        Map<String, int[]> updatedRanges = new LinkedHashMap<>();
+        int row = 0;
+        for (Map.Entry<String, int[]> entry : rowRanges.entrySet()) {
+            if (entry.getKey().equals(recognitionId)) {
+                continue;
+            }
+            int[] range = entry.getValue();
+            int count = range[1] - range[0];
+            System.arraycopy(data, range[0] * dimensions, updatedData, row * dimensions, count * dimensions);
+            updatedRanges.put(entry.getKey(), new int[]{row, row + count});
+            row += count;
+        }
+        if (added > 0) {
+            System.arraycopy(rows.data, 0, updatedData, row * dimensions, added * dimensions);
+            updatedRanges.put(recognitionId, new int[]{row, row + added});
+        }
+        return new EmbeddingGallery(updatedData, dimensions, updatedRanges);
+    }
+
+    public boolean contains(String recognitionId) {
+        return rowRanges.containsKey(recognitionId);
+    }
+
+    /**
+     * @param probe L2-normalised embedding of the same length as the gallery rows
+     * @return Highest cosine similarity [-1, 1] against the student's rows, or -1 if unknown
+     */
+    public double bestCosine(float[] probe, String recognitionId) {
+        int[] range = rowRanges.get(recognitionId);
+        if (range == null || probe == null || probe.length != dimensions) {
+            return -1.0;
+        }
+
+        double best = -1.0;
+        for (int row = range[0]; row < range[1]; row++) {
+            best = Math.max(best, cosine(probe, row * dimensions));
+        }
+        return best;
+    }
+
+    public int rowCount() {
+        return dimensions == 0 ? 0 : data.length / dimensions;
+    }
+
+    public int getDimensions() {
+        return dimensions;
+    }
+
+    public Set<String> getRecognitionIds() {
+        return Collections.unmodifiableSet(rowRanges.keySet());
+    }
+
+    private double cosine(float[] probe, int offset) {
+        float s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        for (; i + 3 < dimensions; i += 4) {
+            s0 += probe[i] * data[offset + i];
+            s1 += probe[i + 1] * data[offset + i + 1];
+            s2 += probe[i + 2] * data[offset + i + 2];
+            s3 += probe[i + 3] * data[offset + i + 3];
+        }
+        for (; i < dimensions; i++) {
+            s0 += probe[i] * data[offset + i];
+        }
+        return s0 + s1 + s2 + s3;
+    }
+
+    /**
+     * Collects rows in any order; build() groups them by student.
+     */
+    public static final class Builder {
+        private final Map<String, List<float[]>> rows = new LinkedHashMap<>();
+        private int dimensions;
+
+        /**
+         * @param embedding L2-normalised embedding; every row must have the same length
+         */
+        public Builder add(String recognitionId, float[] embedding) {
+            if (dimensions == 0) {
+                dimensions = embedding.length;
+            } else if (embedding.length != dimensions) {
+                throw new IllegalArgumentException("Embedding length " + embedding.length
+                        + " does not match gallery length " + dimensions);
+            }
+            rows.computeIfAbsent(recognitionId, id -> new ArrayList<>()).add(embedding);
+            return this;
+        }
+
+        public EmbeddingGallery build() {
+            if (rows.isEmpty()) {
+                return EMPTY;
+            }
+
+            int total = rows.values().stream().mapToInt(List::size).sum();
+            float[] data = new float[total * dimensions];
+            Map<String, int[]> ranges = new LinkedHashMap<>();
+            int row = 0;
+            for (Map.Entry<String, List<float[]>> entry : rows.entrySet()) {
+                int first = row;
+                for (float[] embedding : entry.getValue()) {
+                    System.arraycopy(embedding, 0, data, row * dimensions, dimensions);
+                    row++;
+                }
+                ranges.put(entry.getKey(), new int[]{first, row});
+            }
+            return new EmbeddingGallery(data, dimensions, ranges);
+        }
+    }
+}
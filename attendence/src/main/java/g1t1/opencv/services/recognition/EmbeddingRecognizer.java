@@ -0,0 +1,279 @@
+package g1t1.opencv.services.recognition;
+
+import g1t1.features.logger.AppLogger;
+import g1t1.features.logger.LogLevel;
+import g1t1.opencv.models.Recognisable;
+import g1t1.opencv.services.preprocessing.FaceAligner;
+import g1t1.opencv.services.preprocessing.FaceAnalysis;
+import org.opencv.core.Core;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfByte;
+import org.opencv.core.Scalar;
+import org.opencv.core.Size;
+import org.opencv.dnn.Dnn;
+import org.opencv.dnn.Net;
+import org.opencv.imgcodecs.Imgcodecs;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Full-face recognition using a DNN face embedding model (e.g. SFace) loaded from ONNX.
+ * Each face becomes one L2-normalised embedding, matched by cosine similarity against
+ * the enrolled embeddings. Runs on the CPU with OpenCV's own dnn backend.
+ * <p>
+ * The model's cosine threshold only holds for faces aligned on their landmarks, so the
+ * recognizer is unavailable without the YuNet model, and faces whose landmarks cannot be
+ * found are not embedded.
+ *
+ * Preprocessing pipeline: BGR → {@link FaceAligner} to 112x112 → blob (RGB, unscaled)
+ */
+public class EmbeddingRecognizer extends Recognizer {
+    private static final Size INPUT_SIZE = FaceAligner.OUTPUT_SIZE;
+    private static final double CONFIDENCE_SLOPE = 12.0;
+
+    private final Net net;
+    private final FaceAligner aligner;
+    private final String featureRegion;
+    private volatile GallerySnapshot snapshot = GallerySnapshot.EMPTY;
+
+    public EmbeddingRecognizer() {
+        this(null);
+    }
+
+    /**
+     * @param modelPath ONNX model file or classpath resource, or null for the configured model
+     */
+    public EmbeddingRecognizer(String modelPath) {
+        String path = modelPath != null ? modelPath : config.getEmbeddingModelPath();
+        Net loaded = loadModel(path);
+        this.aligner = loaded != null ? FaceAligner.create() : null;
+        this.net = aligner != null ? loaded : null;
+        // Cached embeddings belong to one model; String.hashCode is stable across runs
+        this.featureRegion = "emb-" + Integer.toHexString(path.hashCode());
+    }
+
+    /**
+     * @return True if the model and the face aligner loaded; an unavailable recognizer matches nothing
+     */
+    public boolean isAvailable() {
+        return net != null;
+    }
+
+    /**
+     * Pre-computes embeddings for all enrolled images.
+     */
+    public void precomputeEnrollmentData(List<? extends Recognisable> recognisableList) {
+        setGallery(new EnrollmentPrecomputer().precomputeEmbeddings(recognisableList, this, null));
+    }
+
+    /**
+     * Uses a gallery pre-computed by a shared {@link EnrollmentPrecomputer}.
+     */
+    public synchronized void setGallery(EmbeddingGallery gallery) {
+        this.snapshot = GallerySnapshot.of(gallery);
+    }
+
+    /**
+     * Swaps one student's embeddings into the gallery, leaving every other student's
+     * embeddings as they are. Probes already running keep the previous gallery.
+     *
+     * @param rows Student's embeddings from {@link EnrollmentPrecomputer#precomputeStudent}, empty to remove
+     *             the student
+     */
+    public synchronized void updateStudent(String recognitionId, EmbeddingGallery rows) {
+        setGallery(snapshot.embeddings().withStudent(recognitionId, rows));
+    }
+
+    public EmbeddingGallery getGallery() {
+        return snapshot.embeddings();
+    }
+
+    @Override
+    protected GallerySnapshot currentSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Aligns the colour face to the model input instead of the grayscale feature pipeline.
+     *
+     * @return Aligned face, or an empty image if its landmarks were not found
+     */
+    @Override
+    protected Mat preprocessProbe(Mat face) {
+        Mat aligned = aligner != null ? aligner.align(face) : null;
+        return aligned != null ? aligned : new Mat();
+    }
+
+    @Override
+    protected Mat preprocessProbe(FaceAnalysis analysis) {
+        Mat aligned = aligner != null ? analysis.aligned(aligner) : null;
+        return aligned != null ? aligned.clone() : new Mat();
+    }
+
+    @Override
+    protected FaceFeatures extractRegionFeatures(Mat processedFace) {
+        return new FaceFeatures(embed(processedFace));
+    }
+
+    @Override
+    protected String getFeatureRegion() {
+        return featureRegion;
+    }
+
+    /**
+     * Compares the probe embedding against the student's enrolled embeddings.
+     *
+     * @return Confidence percentage [0-100], 50 at the configured cosine threshold
+     */
+    @Override
+    protected double compareWithRecognisable(GallerySnapshot snapshot, FaceFeatures probeFeatures,
+                                             Recognisable recognisable) {
+        if (probeFeatures.embedding == null) {
+            return 0.0;
+        }
+
+        EmbeddingGallery currentGallery = snapshot.embeddings();
+        double cosine = currentGallery.contains(recognisable.getRecognitionId())
+                ? currentGallery.bestCosine(probeFeatures.embedding, recognisable.getRecognitionId())
+                : fallbackCosine(probeFeatures.embedding, recognisable);
+        return toConfidence(cosine);
+    }
+
+    /**
+     * Logistic mapping of cosine similarity to a percentage, centred on the threshold so the
+     * existing percentage thresholds keep a sensible meaning.
+     */
+    double toConfidence(double cosine) {
+        return 100.0 / (1.0 + Math.exp(-(cosine - config.getEmbeddingCosineThreshold()) * CONFIDENCE_SLOPE));
+    }
+
+    /**
+     * Fallback comparison when pre-computed data unavailable.
+     */
+    private double fallbackCosine(float[] probe, Recognisable recognisable) {
+        if (recognisable.getFaceData() == null || recognisable.getFaceData().getFaceImages() == null) {
+            return -1.0;
+        }
+
+        double best = -1.0;
+        for (byte[] imageData : recognisable.getFaceData().getFaceImages()) {
+            float[] enrolled = embedImage(imageData);
+            if (enrolled != null && enrolled.length == probe.length) {
+                double cosine = 0.0;
+                for (int i = 0; i < probe.length; i++) {
+                    cosine += probe[i] * enrolled[i];
+                }
+                best = Math.max(best, cosine);
+            }
+        }
+        return best;
+    }
+
+    private float[] embedImage(byte[] imageData) {
+        Mat image = Imgcodecs.imdecode(new MatOfByte(imageData), Imgcodecs.IMREAD_COLOR);
+        if (image.empty()) {
+            image.release();
+            return null;
+        }
+
+        float[] embedding = embedImage(image);
+        image.release();
+        return embedding;
+    }
+
+    /**
+     * Aligns and embeds the face in a decoded enrollment image.
+     *
+     * @return L2-normalised embedding, or null if no face was found or the model fails
+     */
+    float[] embedImage(Mat image) {
+        Mat input = preprocessProbe(image);
+        float[] embedding = embed(input);
+        input.release();
+        return embedding;
+    }
+
+    /**
+     * Runs the model on a 112x112 aligned BGR face.
+     *
+     * @return L2-normalised embedding, or null if the face is empty, or the model is unavailable or fails
+     */
+    private float[] embed(Mat face) {
+        if (net == null || face.empty()) {
+            return null;
+        }
+
+        Mat blob = Dnn.blobFromImage(face, 1.0, INPUT_SIZE, new Scalar(0, 0, 0), true, false);
+        Mat output;
+        try {
+            // Net keeps per-inference state, so forward passes cannot overlap
+            synchronized (net) {
+                net.setInput(blob);
+                output = net.forward();
+            }
+        } catch (RuntimeException e) {
+            AppLogger.logf(LogLevel.Warning, "Face embedding inference failed: %s", e.getMessage());
+            blob.release();
+            return null;
+        }
+
+        float[] embedding = new float[(int) output.total()];
+        output.reshape(1, 1).get(0, 0, embedding);
+        double norm = Core.norm(output);
+        blob.release();
+        output.release();
+
+        if (norm <= 0) {
+            return null;
+        }
+        for (int i = 0; i < embedding.length; i++) {
+            embedding[i] /= (float) norm;
+        }
+        return embedding;
+    }
+
+    /**
+     * Loads the model from the file system, or from the classpath when packaged with the app.
+     *
+     * @return CPU network, or null if the model is missing or unreadable
+     */
+    private static Net loadModel(String modelPath) {
+        try {
+            Net loaded;
+            Path file = Path.of(modelPath);
+            if (Files.isRegularFile(file)) {
+                loaded = Dnn.readNetFromONNX(file.toAbsolutePath().toString());
+            } else {
+                try (InputStream stream = EmbeddingRecognizer.class.getResourceAsStream("/" + modelPath)) {
+                    if (stream == null) {
+                        AppLogger.logf(LogLevel.Warning, "Face embedding model not found: %s", modelPath);
+                        return null;
+                    }
+                    loaded = Dnn.readNetFromONNX(new MatOfByte(stream.readAllBytes()));
+                }
+            }
+
+            if (loaded.empty()) {
+                AppLogger.logf(LogLevel.Warning, "Face embedding model is empty: %s", modelPath);
+                return null;
+            }
+            loaded.setPreferableBackend(Dnn.DNN_BACKEND_OPENCV);
+            loaded.setPreferableTarget(Dnn.DNN_TARGET_CPU);
+            return loaded;
+        } catch (IOException | RuntimeException e) {
+            AppLogger.logf(LogLevel.Warning, "Could not load face embedding model %s: %s", modelPath, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Drops the pre-computed gallery.
+     */
+    public void cleanup() {
+        gallery = EmbeddingGallery.empty();
+    }
+}
@@ -0,0 +1,378 @@
+package g1t1.opencv.services.recognition;
+
+import g1t1.features.logger.AppLogger;
+import g1t1.opencv.config.FaceConfig;
+import g1t1.opencv.models.Recognisable;
+import g1t1.utils.events.opencv.EnrollmentProgressEvent;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfByte;
+import org.opencv.imgcodecs.Imgcodecs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+/**
+ * Shared enrollment pre-computation stage for several recognizers.
+ * Every enrolled image is looked up in the {@link FeatureStore} for each recognizer's region;
+ * on a miss it is decoded and preprocessed once and each recognizer extracts its region from
+ * the same preprocessed face. Misses are spread over a fork-join pool.
+ * <p>
+ * Each finished gallery is compacted to a few prototypes per student by {@link PrototypeSelector}.
+ * The choice is cached per student and reused while the student's rows stay the same. When
+ * enabled, the gallery's HOG rows are then reduced by a {@link HogProjection}. An
+ * {@link EmbeddingRecognizer}, if given, embeds the same decoded images in the same pass.
+ */
+public class EnrollmentPrecomputer {
+    private final FeatureStore featureStore;
+    private final int parallelism;
+    private final int prototypesPerStudent;
+    private final int hogPcaDimensions;
+
+    public EnrollmentPrecomputer() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public EnrollmentPrecomputer(int parallelism) {
+        this(parallelism, FaceConfig.getInstance().getPrototypesPerStudent(),
+                FaceConfig.getInstance().isHogPcaEnabled() ? FaceConfig.getInstance().getHogPcaDimensions() : 0);
+    }
+
+    /**
+     * @param prototypesPerStudent Gallery rows kept per student, 0 keeps every enrolled image
+     * @param hogPcaDimensions     Projected HOG length, 0 keeps the full descriptor
+     */
+    public EnrollmentPrecomputer(int parallelism, int prototypesPerStudent, int hogPcaDimensions) {
+        this(new FeatureStore(), parallelism, prototypesPerStudent, hogPcaDimensions);
+    }
+
+    /**
+     * @param featureStore Cache of features and prototypes, e.g. {@link FeatureStore#scratch()} for evaluations
+     */
+    public EnrollmentPrecomputer(FeatureStore featureStore, int parallelism, int prototypesPerStudent,
+                                 int hogPcaDimensions) {
+        this.featureStore = featureStore;
+        this.parallelism = Math.max(1, parallelism);
+        this.prototypesPerStudent = prototypesPerStudent;
+        this.hogPcaDimensions = hogPcaDimensions;
+    }
+
+    /**
+     * Builds one gallery per recognizer from the enrolled images.
+     *
+     * @param progressListener Receives progress from worker threads as images complete, may be null
+     * @return Galleries in the same order as the recognizers
+     */
+    public List<FeatureGallery> precompute(List<? extends Recognisable> recognisableList,
+                                           List<? extends Recognizer> recognizers,
+                                           Consumer<EnrollmentProgressEvent> progressListener) {
+        return precompute(recognisableList, recognizers, null, progressListener, null).galleries();
+    }
+
+    /**
+     * Builds one gallery per recognizer and the embedding gallery in a single pass over the
+     * enrolled images, with one progress count for both.
+     *
+     * @param embeddingRecognizer Recognizer to embed the images with, or null for no embeddings
+     * @param progressListener    Receives progress from worker threads as images complete, may be null
+     */
+    public Enrollment precompute(List<? extends Recognisable> recognisableList, List<? extends Recognizer> recognizers,
+                                 EmbeddingRecognizer embeddingRecognizer,
+                                 Consumer<EnrollmentProgressEvent> progressListener) {
+        return precompute(recognisableList, recognizers, embeddingRecognizer, progressListener, null);
+    }
+
+    /**
+     * Builds the embedding gallery alone.
+     *
+     * @param progressListener Receives progress from worker threads as images complete, may be null
+     */
+    public EmbeddingGallery precomputeEmbeddings(List<? extends Recognisable> recognisableList,
+                                                 EmbeddingRecognizer embeddingRecognizer,
+                                                 Consumer<EnrollmentProgressEvent> progressListener) {
+        return precompute(recognisableList, List.of(), embeddingRecognizer, progressListener, null).embeddings();
+    }
+
+    /**
+     * Builds the rows of a single student, to be swapped into running galleries with
+     * {@link FeatureGallery#withStudent}. Only this student's images are processed, and HOG
+     * rows are projected with the current galleries' bases, if any, so they stay comparable.
+     *
+     * @param currentGalleries Galleries the rows will join, in the same order as the recognizers
+     * @return One gallery per recognizer holding only the student's rows, empty if it has no usable images
+     */
+    public List<FeatureGallery> precomputeStudent(Recognisable recognisable, List<? extends Recognizer> recognizers,
+                                                  List<FeatureGallery> currentGalleries) {
+        return precompute(List.of(recognisable), recognizers, null, null, currentGalleries).galleries();
+    }
+
+    /**
+     * Builds the rows of a single student for every recognizer and the embedding gallery, to be
+     * swapped into running galleries with {@link FeatureGallery#withStudent} and
+     * {@link EmbeddingGallery#withStudent}.
+     *
+     * @param embeddingRecognizer Recognizer to embed the images with, or null for no embeddings
+     * @param currentGalleries    Galleries the rows will join, in the same order as the recognizers
+     */
+    public Enrollment precomputeStudent(Recognisable recognisable, List<? extends Recognizer> recognizers,
+                                        EmbeddingRecognizer embeddingRecognizer,
+                                        List<FeatureGallery> currentGalleries) {
+        return precompute(List.of(recognisable), recognizers, embeddingRecognizer, null, currentGalleries);
+    }
+
+    /**
+     * @param currentGalleries Galleries whose HOG projections to reuse, or null to load or learn them
+     */
+    private Enrollment precompute(List<? extends Recognisable> recognisableList,
+                                  List<? extends Recognizer> recognizers,
+                                  EmbeddingRecognizer embeddingRecognizer,
+                                  Consumer<EnrollmentProgressEvent> progressListener,
+                                  List<FeatureGallery> currentGalleries) {
+        long startTime = System.currentTimeMillis();
+        List<String> rowIds = new ArrayList<>();
+        List<byte[]> rowImages = new ArrayList<>();
+
+        for (Recognisable student : recognisableList) {
+            if (student.getFaceData() == null || student.getFaceData().getFaceImages() == null) {
+                continue;
+            }
+
+            for (byte[] imageData : student.getFaceData().getFaceImages()) {
+                rowIds.add(student.getRecognitionId());
+                rowImages.add(imageData);
+            }
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            String[] rowHashes = new String[rowImages.size()];
+            pool.submit(() -> IntStream.range(0, rowHashes.length).parallel()
+                    .forEach(i -> rowHashes[i] = FeatureStore.hashImage(rowImages.get(i)))).join();
+
+            Map<String, byte[]> imagesByHash = new LinkedHashMap<>();
+            for (int i = 0; i < rowHashes.length; i++) {
+                imagesByHash.putIfAbsent(rowHashes[i], rowImages.get(i));
+            }
+
+            List<Map<String, FeatureVector>> vectors = new ArrayList<>(recognizers.size());
+            List<Map<String, FeatureVector>> computed = new ArrayList<>(recognizers.size());
+            for (Recognizer recognizer : recognizers) {
+                vectors.add(new ConcurrentHashMap<>(
+                        featureStore.loadAll(imagesByHash.keySet(), recognizer.getFeatureRegion())));
+                computed.add(new ConcurrentHashMap<>());
+            }
+            // Absent without an embedding recognizer; images without a findable face stay missing
+            Embeddings embeddings = embeddingRecognizer == null ? null : new Embeddings(embeddingRecognizer,
+                    new ConcurrentHashMap<>(featureStore.loadEmbeddings(imagesByHash.keySet(),
+                            embeddingRecognizer.getFeatureRegion())), new ConcurrentHashMap<>());
+
+            List<String> missing = new ArrayList<>();
+            for (String hash : imagesByHash.keySet()) {
+                boolean complete = embeddings == null || embeddings.vectors().containsKey(hash);
+                for (Map<String, FeatureVector> regionVectors : vectors) {
+                    complete &= regionVectors.containsKey(hash);
+                }
+                if (!complete) {
+                    missing.add(hash);
+                }
+            }
+
+            ProgressReporter progress = new ProgressReporter(imagesByHash.size(), progressListener);
+            progress.advance(imagesByHash.size() - missing.size());
+            pool.submit(() -> missing.parallelStream().forEach(hash -> {
+                computeImage(imagesByHash.get(hash), hash, recognizers, vectors, computed, embeddings);
+                progress.advance(1);
+            })).join();
+
+            List<FeatureGallery> galleries = new ArrayList<>(recognizers.size());
+            for (int r = 0; r < recognizers.size(); r++) {
+                featureStore.saveAll(computed.get(r), recognizers.get(r).getFeatureRegion());
+
+                FeatureGallery.Builder builder = FeatureGallery.builder();
+                Map<String, List<String>> hashesById = new LinkedHashMap<>();
+                for (int i = 0; i < rowIds.size(); i++) {
+                    FeatureVector vector = vectors.get(r).get(rowHashes[i]);
+                    if (vector != null) {
+                        builder.add(rowIds.get(i), vector);
+                        hashesById.computeIfAbsent(rowIds.get(i), id -> new ArrayList<>()).add(rowHashes[i]);
+                    }
+                }
+                FeatureGallery gallery = compress(builder.build(), hashesById, recognizers.get(r).getFeatureRegion());
+                // Rows joining a running gallery must share its layout, projected or not
+                galleries.add(currentGalleries != null
+                        ? gallery.withHogProjection(currentGalleries.get(r).getHogProjection())
+                        : projectHog(gallery, recognizers.get(r).getFeatureRegion()));
+            }
+
+            EmbeddingGallery embeddingGallery = EmbeddingGallery.empty();
+            if (embeddings != null) {
+                featureStore.saveEmbeddings(embeddings.computed(), embeddingRecognizer.getFeatureRegion());
+
+                EmbeddingGallery.Builder builder = EmbeddingGallery.builder();
+                for (int i = 0; i < rowIds.size(); i++) {
+                    float[] embedding = embeddings.vectors().get(rowHashes[i]);
+                    if (embedding != null) {
+                        builder.add(rowIds.get(i), embedding);
+                    }
+                }
+                embeddingGallery = builder.build();
+            }
+
+            if (FaceConfig.getInstance().isLoggingEnabled()) {
+                AppLogger.logf("Pre-computed features for %d students (%d images, %d cached, %d computed, " +
+                                "%d gallery rows kept, %d embeddings) on %d threads in %dms", recognisableList.size(),
+                        imagesByHash.size(), imagesByHash.size() - missing.size(), missing.size(),
+                        galleries.isEmpty() ? 0 : galleries.getFirst().rowCount(), embeddingGallery.rowCount(),
+                        parallelism, System.currentTimeMillis() - startTime);
+            }
+            return new Enrollment(galleries, embeddingGallery);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Compacts the gallery with the prototypes cached for each student's exact rows, choosing
+     * and caching them only for students whose rows changed.
+     *
+     * @param hashesById Image hash of each gallery row by student, in row order
+     */
+    private FeatureGallery compress(FeatureGallery gallery, Map<String, List<String>> hashesById, String region) {
+        if (prototypesPerStudent <= 0) {
+            return gallery;
+        }
+
+        Map<String, String> keysById = new HashMap<>();
+        hashesById.forEach((id, hashes) -> {
+            if (hashes.size() > prototypesPerStudent) {
+                keysById.put(id, FeatureStore.hashRows(hashes));
+            }
+        });
+        Map<String, int[]> cached = featureStore.loadPrototypes(keysById, prototypesPerStudent, region);
+
+        Map<String, int[]> medoids = new HashMap<>(cached);
+        FeatureGallery compacted = PrototypeSelector.compress(gallery, prototypesPerStudent, medoids);
+
+        Map<String, int[]> chosen = new HashMap<>();
+        medoids.forEach((id, rows) -> {
+            if (keysById.containsKey(id) && !Arrays.equals(rows, cached.get(id))) {
+                chosen.put(id, rows);
+            }
+        });
+        featureStore.savePrototypes(keysById, chosen, prototypesPerStudent, region);
+        return compacted;
+    }
+
+    /**
+     * Projects the gallery's HOG rows with the PCA basis stored for its data, learning it if needed.
+     */
+    private FeatureGallery projectHog(FeatureGallery gallery, String region) {
+        if (hogPcaDimensions <= 0) {
+            return gallery;
+        }
+
+        HogProjection projection = HogProjection.loadOrLearn(gallery, hogPcaDimensions, featureStore, region);
+        if (projection != null && FaceConfig.getInstance().isLoggingEnabled()) {
+            AppLogger.logf("Projecting %s HOG with %s", region, projection);
+        }
+        return gallery.withHogProjection(projection);
+    }
+
+    /**
+     * Decodes one image, preprocesses it and extracts every region still missing for it, then
+     * embeds it if its embedding is missing.
+     */
+    private void computeImage(byte[] imageData, String hash, List<? extends Recognizer> recognizers,
+                              List<Map<String, FeatureVector>> vectors, List<Map<String, FeatureVector>> computed,
+                              Embeddings embeddings) {
+        Mat image = Imgcodecs.imdecode(new MatOfByte(imageData), Imgcodecs.IMREAD_COLOR);
+        if (image.empty()) {
+            image.release();
+            return;
+        }
+
+        Mat processedFace = null;
+        for (int r = 0; r < recognizers.size(); r++) {
+            if (vectors.get(r).containsKey(hash)) {
+                continue;
+            }
+            if (processedFace == null) {
+                processedFace = recognizers.getFirst().preprocessFace(image);
+            }
+
+            Recognizer.FaceFeatures features = recognizers.get(r).extractRegionFeatures(processedFace);
+            FeatureVector vector = features.toVector();
+            features.release();
+            vectors.get(r).put(hash, vector);
+            computed.get(r).put(hash, vector);
+        }
+        if (processedFace != null) {
+            processedFace.release();
+        }
+
+        if (embeddings != null && !embeddings.vectors().containsKey(hash)) {
+            float[] embedding = embeddings.recognizer().embedImage(image);
+            if (embedding != null) {
+                embeddings.vectors().put(hash, embedding);
+                embeddings.computed().put(hash, embedding);
+            }
+        }
+        image.release();
+    }
+
+    /**
+     * Galleries built by one pass over the enrolled images.
+     *
+     * @param galleries  One gallery per recognizer, in the same order as the recognizers
+     * @param embeddings Embedding gallery, empty without an embedding recognizer
+     */
+    public record Enrollment(List<FeatureGallery> galleries, EmbeddingGallery embeddings) {
+    }
+
+    /**
+     * Embeddings of one pass: every known one by image hash, and those computed in this pass.
+     */
+    private record Embeddings(EmbeddingRecognizer recognizer, Map<String, float[]> vectors,
+                              Map<String, float[]> computed) {
+    }
+
+    /**
+     * Counts finished images and emits an event each time another whole percent completes,
+     * so large galleries do not flood listeners with one event per image.
+     */
+    private static final class ProgressReporter {
+        private final int total;
+        private final Consumer<EnrollmentProgressEvent> listener;
+        private final AtomicInteger processed = new AtomicInteger();
+        private final AtomicInteger lastPercent = new AtomicInteger(-1);
+
+        ProgressReporter(int total, Consumer<EnrollmentProgressEvent> listener) {
+            this.total = total;
+            this.listener = listener;
+        }
+
+        void advance(int images) {
+            int done = processed.addAndGet(images);
+            if (listener == null) {
+                return;
+            }
+
+            int percent = total == 0 ? 100 : (int) (100L * done / total);
+            int previous;
+            while (percent > (previous = lastPercent.get())) {
+                if (lastPercent.compareAndSet(previous, percent)) {
+                    listener.accept(new EnrollmentProgressEvent(done, total));
+                    return;
+                }
+            }
+        }
+    }
+}
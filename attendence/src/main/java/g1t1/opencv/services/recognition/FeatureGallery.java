@@ -0,0 +1,356 @@
+package g1t1.opencv.services.recognition;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable gallery of enrolled face descriptors packed into one contiguous float[].
+ * Each row is [histogram 128 | LBP 256 | HOG n], and rows of the same recognition id
+ * are stored next to each other so a student's images are scored in one sequential sweep.
+ */
+public final class FeatureGallery {
+    public static final int HISTOGRAM_LENGTH = 128;
+    public static final int LBP_LENGTH = 256;
+
+    private static final FeatureGallery EMPTY = new FeatureGallery(new float[0], 0, new String[0], Map.of(), null);
+
+    private final float[] data;
+    private final int hogLength;
+    private final int rowLength;
+    private final String[] rowIds;
+    private final Map<String, int[]> rowRanges;
+    private final HogProjection hogProjection;
+
+    private FeatureGallery(float[] data, int hogLength, String[] rowIds, Map<String, int[]> rowRanges,
+                           HogProjection hogProjection) {
+        this.data = data;
+        this.hogLength = hogLength;
+        this.rowLength = HISTOGRAM_LENGTH + LBP_LENGTH + hogLength;
+        this.rowIds = rowIds;
+        this.rowRanges = rowRanges;
+        this.hogProjection = hogProjection;
+    }
+
+    public static FeatureGallery empty() {
+        return EMPTY;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Copy of this gallery with every HOG row projected onto the PCA basis.
+     * Probes with full-length HOG are projected the same way when scored.
+     */
+    public FeatureGallery withHogProjection(HogProjection projection) {
+        if (projection == null || hogProjection != null || projection.getInputLength() != hogLength) {
+            return this;
+        }
+
+        int projectedLength = projection.getDimensions();
+        int projectedRowLength = HISTOGRAM_LENGTH + LBP_LENGTH + projectedLength;
+        float[] projectedData = new float[rowIds.length * projectedRowLength];
+        float[] hog = new float[hogLength];
+        for (int row = 0; row < rowIds.length; row++) {
+            int offset = row * rowLength;
+            int projectedOffset = row * projectedRowLength;
+            System.arraycopy(data, offset, projectedData, projectedOffset, HISTOGRAM_LENGTH + LBP_LENGTH);
+            System.arraycopy(data, offset + HISTOGRAM_LENGTH + LBP_LENGTH, hog, 0, hogLength);
+            System.arraycopy(projection.project(hog), 0, projectedData,
+                    projectedOffset + HISTOGRAM_LENGTH + LBP_LENGTH, projectedLength);
+        }
+        return new FeatureGallery(projectedData, projectedLength, rowIds, rowRanges, projection);
+    }
+
+    /**
+     * Copy of this gallery with one student's rows replaced, appended after the other students.
+     * Only the packed rows are copied; no image is reprocessed. This gallery is left unchanged,
+     * so probes still scoring it are unaffected.
+     *
+     * @param rows Gallery holding only the student's new rows, HOG-projected like this one;
+     *             empty to remove the student
+     */
+    public FeatureGallery withStudent(String recognitionId, FeatureGallery rows) {
+        int[] oldRange = rowRanges.get(recognitionId);
+        int removed = oldRange != null ? oldRange[1] - oldRange[0] : 0;
+        int added = rows.rowCount();
+        if (removed == 0 && added == 0) {
+            return this;
+        }
+        if (removed == rowIds.length) {
+            return added == 0 ? EMPTY : rows;
+        }
+        if (added > 0 && (rows.hogLength != hogLength || rows.hogProjection != hogProjection)) {
+            throw new IllegalArgumentException("Rows for " + recognitionId + " do not match the gallery's HOG layout");
+        }
+
+        int rowCount = rowIds.length - removed + added;
+        float[] updatedData = new float[rowCount * rowLength];
+        String[] updatedRowIds = new String[rowCount];
+        Map<String, int[]> updatedRanges = new LinkedHashMap<>();
+        int row = 0;
+        for (Map.Entry<String, int[]> entry : rowRanges.entrySet()) {
+            if (entry.getKey().equals(recognitionId)) {
+                continue;
+            }
+            int[] range = entry.getValue();
+            int count = range[1] - range[0];
+            System.arraycopy(data, range[0] * rowLength, updatedData, row * rowLength, count * rowLength);
+            Arrays.fill(updatedRowIds, row, row + count, entry.getKey());
+            updatedRanges.put(entry.getKey(), new int[]{row, row + count});
+            row += count;
+        }
+        if (added > 0) {
+            System.arraycopy(rows.data, 0, updatedData, row * rowLength, added * rowLength);
+            Arrays.fill(updatedRowIds, row, row + added, recognitionId);
+            updatedRanges.put(recognitionId, new int[]{row, row + added});
+        }
+
+        return new FeatureGallery(updatedData, hogLength, updatedRowIds, Collections.unmodifiableMap(updatedRanges),
+                hogProjection);
+    }
+
+    public HogProjection getHogProjection() {
+        return hogProjection;
+    }
+
+    /**
+     * The probe as scored against this gallery, with its HOG projected if the gallery's is.
+     */
+    public FeatureVector prepareProbe(FeatureVector probe) {
+        if (hogProjection == null || probe.hog.length != hogProjection.getInputLength()) {
+            return probe;
+        }
+        return probe.projectedBy(hogProjection);
+    }
+
+    /**
+     * Whether any enrolled rows exist for the recognition id.
+     */
+    public boolean contains(String recognitionId) {
+        return rowRanges.containsKey(recognitionId);
+    }
+
+    /**
+     * Best similarity of the probe against all rows enrolled for the recognition id.
+     *
+     * @return Similarity score [0, 1], 0 if the id has no rows
+     */
+    public double bestSimilarity(FeatureVector probe, String recognitionId) {
+        int[] range = rowRanges.get(recognitionId);
+        if (range == null) {
+            return 0.0;
+        }
+
+        double bestSimilarity = 0.0;
+        for (int row = range[0]; row < range[1]; row++) {
+            double similarity = scoreRow(probe, row);
+            if (similarity > bestSimilarity) {
+                bestSimilarity = similarity;
+            }
+        }
+        return bestSimilarity;
+    }
+
+    /**
+     * Scores the probe against every row in the gallery.
+     *
+     * @param scores Output array of at least {@link #rowCount()} entries, similarity [0, 1] per row
+     */
+    public void scoreAll(FeatureVector probe, double[] scores) {
+        for (int row = 0; row < rowIds.length; row++) {
+            scores[row] = scoreRow(probe, row);
+        }
+    }
+
+    /**
+     * Combined histogram, LBP and HOG similarity of the probe against a single row.
+     * Matches {@link Recognizer#compareFeatures} on the equivalent Mat features.
+     */
+    public double scoreRow(FeatureVector probe, int row) {
+        return Recognizer.combineScores(histogramScore(probe, row), lbpScore(probe, row), hogScore(probe, row));
+    }
+
+    /**
+     * Intensity histogram similarity [0, 1] of the probe against a single row.
+     */
+    public double histogramScore(FeatureVector probe, int row) {
+        return Recognizer.histogramSimilarity(
+                chiSquare(probe.histogram, probe.inverseHistogram, data, row * rowLength, HISTOGRAM_LENGTH));
+    }
+
+    /**
+     * LBP histogram similarity [0, 1] of the probe against a single row.
+     */
+    public double lbpScore(FeatureVector probe, int row) {
+        return Recognizer.lbpSimilarity(
+                chiSquare(probe.lbp, probe.inverseLbp, data, row * rowLength + HISTOGRAM_LENGTH, LBP_LENGTH));
+    }
+
+    /**
+     * HOG similarity [0, 1] of the probe against a single row, 0 if the descriptor lengths differ.
+     */
+    public double hogScore(FeatureVector probe, int row) {
+        float[] probeHog = prepareProbe(probe).hog;
+        if (probeHog.length != hogLength || hogLength == 0) {
+            return 0.0;
+        }
+        return Recognizer.hogSimilarity(
+                euclidean(probeHog, data, row * rowLength + HISTOGRAM_LENGTH + LBP_LENGTH, hogLength));
+    }
+
+    public int rowCount() {
+        return rowIds.length;
+    }
+
+    public String getRowId(int row) {
+        return rowIds[row];
+    }
+
+    public int getHogLength() {
+        return hogLength;
+    }
+
+    /**
+     * Rows [start, end) enrolled for the recognition id, or null if none. Must not be modified.
+     */
+    int[] rowRange(String recognitionId) {
+        return rowRanges.get(recognitionId);
+    }
+
+    /**
+     * Copy of a single row as a probe-ready vector.
+     */
+    FeatureVector rowVector(int row) {
+        int offset = row * rowLength;
+        return new FeatureVector(
+                Arrays.copyOfRange(data, offset, offset + HISTOGRAM_LENGTH),
+                Arrays.copyOfRange(data, offset + HISTOGRAM_LENGTH, offset + HISTOGRAM_LENGTH + LBP_LENGTH),
+                Arrays.copyOfRange(data, offset + HISTOGRAM_LENGTH + LBP_LENGTH, offset + rowLength));
+    }
+
+    /**
+     * Packed row data, shared with indexes built over this gallery. Must not be modified.
+     */
+    float[] data() {
+        return data;
+    }
+
+    int rowLength() {
+        return rowLength;
+    }
+
+    /**
+     * Recognition ids with at least one row, in enrollment order.
+     */
+    public List<String> getRecognitionIds() {
+        return new ArrayList<>(rowRanges.keySet());
+    }
+
+    /**
+     * Chi-square distance with the probe as the reference histogram, as in HISTCMP_CHISQR.
+     * Four independent accumulators keep the loop free of a serial dependency chain.
+     */
+    private static double chiSquare(float[] probe, double[] inverseProbe, float[] data, int offset, int length) {
+        double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        for (; i + 3 < length; i += 4) {
+            double d0 = (double) probe[i] - data[offset + i];
+            double d1 = (double) probe[i + 1] - data[offset + i + 1];
+            double d2 = (double) probe[i + 2] - data[offset + i + 2];
+            double d3 = (double) probe[i + 3] - data[offset + i + 3];
+            s0 += d0 * d0 * inverseProbe[i];
+            s1 += d1 * d1 * inverseProbe[i + 1];
+            s2 += d2 * d2 * inverseProbe[i + 2];
+            s3 += d3 * d3 * inverseProbe[i + 3];
+        }
+        for (; i < length; i++) {
+            double d = (double) probe[i] - data[offset + i];
+            s0 += d * d * inverseProbe[i];
+        }
+        return s0 + s1 + s2 + s3;
+    }
+
+    /**
+     * Euclidean distance, as Core.norm(Core.subtract(a, b), NORM_L2).
+     */
+    private static double euclidean(float[] probe, float[] data, int offset, int length) {
+        double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        for (; i + 3 < length; i += 4) {
+            float d0 = probe[i] - data[offset + i];
+            float d1 = probe[i + 1] - data[offset + i + 1];
+            float d2 = probe[i + 2] - data[offset + i + 2];
+            float d3 = probe[i + 3] - data[offset + i + 3];
+            s0 += (double) d0 * d0;
+            s1 += (double) d1 * d1;
+            s2 += (double) d2 * d2;
+            s3 += (double) d3 * d3;
+        }
+        for (; i < length; i++) {
+            float d = probe[i] - data[offset + i];
+            s0 += (double) d * d;
+        }
+        return Math.sqrt(s0 + s1 + s2 + s3);
+    }
+
+    /**
+     * Collects rows per recognition id, then packs them contiguously on build().
+     */
+    public static final class Builder {
+        private final Map<String, List<FeatureVector>> rowsById = new LinkedHashMap<>();
+        private int hogLength = -1;
+        private int rowCount = 0;
+
+        private Builder() {
+        }
+
+        public Builder add(String recognitionId, FeatureVector vector) {
+            if (vector.histogram.length != HISTOGRAM_LENGTH || vector.lbp.length != LBP_LENGTH) {
+                throw new IllegalArgumentException("Unexpected histogram or LBP length for " + recognitionId);
+            }
+            if (hogLength < 0) {
+                hogLength = vector.hog.length;
+            } else if (vector.hog.length != hogLength) {
+                throw new IllegalArgumentException("HOG length " + vector.hog.length + " does not match gallery length "
+                        + hogLength + " for " + recognitionId);
+            }
+
+            rowsById.computeIfAbsent(recognitionId, k -> new ArrayList<>()).add(vector);
+            rowCount++;
+            return this;
+        }
+
+        public FeatureGallery build() {
+            if (rowCount == 0) {
+                return EMPTY;
+            }
+
+            int rowLength = HISTOGRAM_LENGTH + LBP_LENGTH + hogLength;
+            float[] data = new float[rowCount * rowLength];
+            String[] rowIds = new String[rowCount];
+            Map<String, int[]> rowRanges = new LinkedHashMap<>();
+
+            int row = 0;
+            for (Map.Entry<String, List<FeatureVector>> entry : rowsById.entrySet()) {
+                int start = row;
+                for (FeatureVector vector : entry.getValue()) {
+                    int offset = row * rowLength;
+                    System.arraycopy(vector.histogram, 0, data, offset, HISTOGRAM_LENGTH);
+                    System.arraycopy(vector.lbp, 0, data, offset + HISTOGRAM_LENGTH, LBP_LENGTH);
+                    System.arraycopy(vector.hog, 0, data, offset + HISTOGRAM_LENGTH + LBP_LENGTH, hogLength);
+                    rowIds[row] = entry.getKey();
+                    row++;
+                }
+                rowRanges.put(entry.getKey(), new int[]{start, row});
+            }
+
+            return new FeatureGallery(data, hogLength, rowIds, Collections.unmodifiableMap(rowRanges), null);
+        }
+    }
+}
@@ -0,0 +1,411 @@
+package g1t1.opencv.services.recognition;
+
+import g1t1.db.DSLInstance;
+import g1t1.db.face_features.FaceFeatureRecord;
+import g1t1.db.face_features.FaceFeatureRepository;
+import g1t1.db.face_features.FaceFeatureRepositoryJooq;
+import g1t1.db.face_prototypes.FacePrototypeRecord;
+import g1t1.db.face_prototypes.FacePrototypeRepository;
+import g1t1.db.face_prototypes.FacePrototypeRepositoryJooq;
+import g1t1.db.hog_projections.HogProjectionRecord;
+import g1t1.db.hog_projections.HogProjectionRepository;
+import g1t1.db.hog_projections.HogProjectionRepositoryJooq;
+import g1t1.features.logger.AppLogger;
+import g1t1.features.logger.LogLevel;
+import org.jooq.exception.DataAccessException;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Persistent cache of extracted recognition features in the face_features table.
+ * Keyed by image content hash, face region and {@link Recognizer#PIPELINE_VERSION}, so
+ * only new or changed images go through the preprocessing pipeline at session start.
+ * Also keeps each student's chosen prototype rows in the face_prototypes table and the HOG
+ * projection of each region in the hog_projections table.
+ * Database failures are logged and treated as cache misses.
+ */
+public class FeatureStore {
+    private static final int HEADER_INTS = 3;
+
+    /**
+     * @return Store kept in memory only, for evaluations that must not touch the real cache
+     */
+    public static FeatureStore scratch() {
+        return new ScratchFeatureStore();
+    }
+
+    /**
+     * SHA-256 hex digest of the encoded image bytes.
+     */
+    public static String hashImage(byte[] imageData) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(imageData));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Loads cached features for the given image hashes.
+     *
+     * @return Features by image hash; hashes without a cached entry are absent
+     */
+    public Map<String, FeatureVector> loadAll(Collection<String> imageHashes, String region) {
+        Map<String, FeatureVector> features = new HashMap<>();
+        loadBlobs(imageHashes, region).forEach((hash, blob) -> {
+            FeatureVector vector = deserialize(blob);
+            if (vector != null) {
+                features.put(hash, vector);
+            }
+        });
+        return features;
+    }
+
+    /**
+     * Stores newly extracted features and drops entries from older pipeline versions.
+     */
+    public void saveAll(Map<String, FeatureVector> features, String region) {
+        Map<String, byte[]> blobs = new HashMap<>();
+        features.forEach((hash, vector) -> blobs.put(hash, serialize(vector)));
+        saveBlobs(blobs, region);
+    }
+
+    /**
+     * Loads cached face embeddings.
+     *
+     * @return Embeddings by image hash; hashes without a cached entry are absent
+     */
+    public Map<String, float[]> loadEmbeddings(Collection<String> imageHashes, String region) {
+        Map<String, float[]> embeddings = new HashMap<>();
+        loadBlobs(imageHashes, region).forEach((hash, blob) -> {
+            float[] embedding = unpackEmbedding(blob);
+            if (embedding != null) {
+                embeddings.put(hash, embedding);
+            }
+        });
+        return embeddings;
+    }
+
+    /**
+     * Stores newly computed face embeddings.
+     */
+    public void saveEmbeddings(Map<String, float[]> embeddings, String region) {
+        Map<String, byte[]> blobs = new HashMap<>();
+        embeddings.forEach((hash, embedding) -> blobs.put(hash, packEmbedding(embedding)));
+        saveBlobs(blobs, region);
+    }
+
+    /**
+     * @return Blobs of the face_features rows by image hash; hashes without a cached entry are absent
+     */
+    protected Map<String, byte[]> loadBlobs(Collection<String> imageHashes, String region) {
+        Map<String, byte[]> blobs = new HashMap<>();
+        if (imageHashes.isEmpty()) {
+            return blobs;
+        }
+
+        try (DSLInstance dslInstance = new DSLInstance()) {
+            FaceFeatureRepository repository = new FaceFeatureRepositoryJooq(dslInstance.dsl);
+            for (FaceFeatureRecord record : repository.fetchByImageHashes(imageHashes, region, Recognizer.PIPELINE_VERSION)) {
+                blobs.put(record.imageHash(), record.features());
+            }
+        } catch (SQLException | DataAccessException e) {
+            AppLogger.logf(LogLevel.Warning, "Feature cache unavailable, recomputing features: %s", e.getMessage());
+        }
+        return blobs;
+    }
+
+    /**
+     * Stores face_features rows and drops entries from older pipeline versions.
+     */
+    protected void saveBlobs(Map<String, byte[]> blobs, String region) {
+        if (blobs.isEmpty()) {
+            return;
+        }
+
+        List<FaceFeatureRecord> records = new ArrayList<>(blobs.size());
+        blobs.forEach((hash, blob) -> records.add(new FaceFeatureRecord(hash, region, Recognizer.PIPELINE_VERSION, blob)));
+
+        try (DSLInstance dslInstance = new DSLInstance()) {
+            dslInstance.dsl.transaction(cfg -> {
+                FaceFeatureRepository repository = new FaceFeatureRepositoryJooq(cfg.dsl());
+                repository.deleteOtherPipelineVersions(Recognizer.PIPELINE_VERSION);
+                repository.createAll(records);
+            });
+        } catch (SQLException | DataAccessException e) {
+            AppLogger.logf(LogLevel.Warning, "Could not save features to cache: %s", e.getMessage());
+        }
+    }
+
+    /**
+     * @return Projection last saved for the region and length, or null if none was saved by this pipeline version
+     */
+    public HogProjection loadHogProjection(String region, int dimensions) {
+        try (DSLInstance dslInstance = new DSLInstance()) {
+            HogProjectionRecord record = new HogProjectionRepositoryJooq(dslInstance.dsl).fetch(region, dimensions);
+            if (record == null || record.pipelineVersion() != Recognizer.PIPELINE_VERSION) {
+                return null;
+            }
+            float[] mean = unpackFloats(record.mean());
+            float[] basis = unpackFloats(record.basis());
+            return mean != null && basis != null
+                    ? HogProjection.restore(record.galleryKey(), record.inputLength(), mean, basis)
+                    : null;
+        } catch (SQLException | DataAccessException e) {
+            AppLogger.logf(LogLevel.Warning, "HOG projection cache unavailable, relearning: %s", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Saves the projection as the region's only one of its length, replacing the previous one.
+     */
+    public void saveHogProjection(String region, int dimensions, HogProjection projection) {
+        HogProjectionRecord record = new HogProjectionRecord(region, dimensions, Recognizer.PIPELINE_VERSION,
+                projection.getGalleryKey(), projection.getInputLength(), packFloats(projection.getMean()),
+                packFloats(projection.getBasis()));
+        try (DSLInstance dslInstance = new DSLInstance()) {
+            dslInstance.dsl.transaction(cfg -> {
+                HogProjectionRepository repository = new HogProjectionRepositoryJooq(cfg.dsl());
+                repository.replace(record);
+            });
+        } catch (SQLException | DataAccessException e) {
+            AppLogger.logf(LogLevel.Warning, "Could not save HOG projection to cache: %s", e.getMessage());
+        }
+    }
+
+    /**
+     * Loads the prototype rows chosen before for each student's current rows.
+     *
+     * @param rowsKeysById Key of each student's gallery rows, see {@link #hashRows}
+     * @return Row offsets by student; students whose rows or prototype count changed since are absent
+     */
+    public Map<String, int[]> loadPrototypes(Map<String, String> rowsKeysById, int perStudent, String region) {
+        Map<String, int[]> prototypes = new HashMap<>();
+        if (rowsKeysById.isEmpty()) {
+            return prototypes;
+        }
+
+        try (DSLInstance dslInstance = new DSLInstance()) {
+            FacePrototypeRepository repository = new FacePrototypeRepositoryJooq(dslInstance.dsl);
+            for (FacePrototypeRecord record : repository.fetchByRecognitionIds(rowsKeysById.keySet(), region)) {
+                int[] rows = unpackInts(record.rowOffsets());
+                if (rows != null && record.pipelineVersion() == Recognizer.PIPELINE_VERSION
+                        && record.perStudent() == perStudent
+                        && record.rowsKey().equals(rowsKeysById.get(record.recognitionId()))) {
+                    prototypes.put(record.recognitionId(), rows);
+                }
+            }
+        } catch (SQLException | DataAccessException e) {
+            AppLogger.logf(LogLevel.Warning, "Prototype cache unavailable, choosing prototypes: %s", e.getMessage());
+        }
+        return prototypes;
+    }
+
+    /**
+     * Saves newly chosen prototype rows, replacing each student's previous choice for the region.
+     *
+     * @param rowsKeysById Key of each student's gallery rows, see {@link #hashRows}
+     * @param rowsById     Chosen row offsets by student
+     */
+    public void savePrototypes(Map<String, String> rowsKeysById, Map<String, int[]> rowsById, int perStudent,
+                               String region) {
+        if (rowsById.isEmpty()) {
+            return;
+        }
+
+        List<FacePrototypeRecord> records = new ArrayList<>(rowsById.size());
+        rowsById.forEach((id, rows) -> records.add(new FacePrototypeRecord(id, region, Recognizer.PIPELINE_VERSION,
+                perStudent, rowsKeysById.get(id), packInts(rows))));
+
+        try (DSLInstance dslInstance = new DSLInstance()) {
+            dslInstance.dsl.transaction(cfg -> {
+                FacePrototypeRepository repository = new FacePrototypeRepositoryJooq(cfg.dsl());
+                repository.replaceAll(records);
+            });
+        } catch (SQLException | DataAccessException e) {
+            AppLogger.logf(LogLevel.Warning, "Could not save prototypes to cache: %s", e.getMessage());
+        }
+    }
+
+    /**
+     * @param imageHashes Hashes of a student's gallery rows, in row order
+     * @return Key identifying exactly that list of rows
+     */
+    public static String hashRows(List<String> imageHashes) {
+        return hashImage(String.join(",", imageHashes).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Packs the descriptors as little-endian [histLen, lbpLen, hogLen, floats...].
+     */
+    static byte[] serialize(FeatureVector vector) {
+        int floats = vector.histogram.length + vector.lbp.length + vector.hog.length;
+        ByteBuffer buffer = ByteBuffer.allocate((HEADER_INTS + floats) * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(vector.histogram.length).putInt(vector.lbp.length).putInt(vector.hog.length);
+        buffer.asFloatBuffer().put(vector.histogram).put(vector.lbp).put(vector.hog);
+        return buffer.array();
+    }
+
+    /**
+     * Packs floats little-endian with no header.
+     */
+    static byte[] packFloats(float[] values) {
+        ByteBuffer buffer = ByteBuffer.allocate(values.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.asFloatBuffer().put(values);
+        return buffer.array();
+    }
+
+    /**
+     * @return Unpacked floats, or null if the blob is not a whole number of floats
+     */
+    static float[] unpackFloats(byte[] data) {
+        if (data == null || data.length % Float.BYTES != 0) {
+            return null;
+        }
+        float[] values = new float[data.length / Float.BYTES];
+        ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(values);
+        return values;
+    }
+
+    /**
+     * Packs an embedding as little-endian [length, floats...].
+     */
+    static byte[] packEmbedding(float[] embedding) {
+        ByteBuffer buffer = ByteBuffer.allocate((1 + embedding.length) * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(embedding.length);
+        buffer.asFloatBuffer().put(embedding);
+        return buffer.array();
+    }
+
+    /**
+     * @return Unpacked embedding, or null if the blob is malformed
+     */
+    static float[] unpackEmbedding(byte[] data) {
+        if (data == null || data.length < Integer.BYTES) {
+            return null;
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+        int length = buffer.getInt();
+        if (length < 0 || buffer.remaining() != (long) length * Float.BYTES) {
+            return null;
+        }
+
+        float[] embedding = new float[length];
+        buffer.asFloatBuffer().get(embedding);
+        return embedding;
+    }
+
+    /**
+     * Packs ints little-endian with no header.
+     */
+    static byte[] packInts(int[] values) {
+        ByteBuffer buffer = ByteBuffer.allocate(values.length * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.asIntBuffer().put(values);
+        return buffer.array();
+    }
+
+    /**
+     * @return Unpacked ints, or null if the blob is not a whole number of ints
+     */
+    static int[] unpackInts(byte[] data) {
+        if (data == null || data.length % Integer.BYTES != 0) {
+            return null;
+        }
+        int[] values = new int[data.length / Integer.BYTES];
+        ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(values);
+        return values;
+    }
+
+    /**
+     * @return Unpacked features, or null if the blob is malformed
+     */
+    static FeatureVector deserialize(byte[] data) {
+        if (data == null || data.length < HEADER_INTS * Integer.BYTES) {
+            return null;
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+        int histogramLength = buffer.getInt();
+        int lbpLength = buffer.getInt();
+        int hogLength = buffer.getInt();
+        if (histogramLength < 0 || lbpLength < 0 || hogLength < 0
+                || buffer.remaining() != (long) (histogramLength + lbpLength + hogLength) * Float.BYTES) {
+            return null;
+        }
+
+        float[] histogram = new float[histogramLength];
+        float[] lbp = new float[lbpLength];
+        float[] hog = new float[hogLength];
+        buffer.asFloatBuffer().get(histogram).get(lbp).get(hog);
+        return new FeatureVector(histogram, lbp, hog);
+    }
+
+    /**
+     * Keeps entries in a map for the life of the store instead of in the database.
+     */
+    private static final class ScratchFeatureStore extends FeatureStore {
+        private final Map<String, byte[]> entries = new ConcurrentHashMap<>();
+        private final Map<String, FacePrototypeRecord> prototypes = new ConcurrentHashMap<>();
+        private final Map<String, HogProjection> projections = new ConcurrentHashMap<>();
+
+        @Override
+        protected Map<String, byte[]> loadBlobs(Collection<String> imageHashes, String region) {
+            Map<String, byte[]> blobs = new HashMap<>();
+            for (String hash : imageHashes) {
+                byte[] blob = entries.get(region + "/" + hash);
+                if (blob != null) {
+                    blobs.put(hash, blob);
+                }
+            }
+            return blobs;
+        }
+
+        @Override
+        protected void saveBlobs(Map<String, byte[]> blobs, String region) {
+            blobs.forEach((hash, blob) -> entries.put(region + "/" + hash, blob));
+        }
+
+        @Override
+        public Map<String, int[]> loadPrototypes(Map<String, String> rowsKeysById, int perStudent, String region) {
+            Map<String, int[]> rowsById = new HashMap<>();
+            rowsKeysById.forEach((id, rowsKey) -> {
+                FacePrototypeRecord record = prototypes.get(region + "/" + id);
+                if (record != null && record.perStudent() == perStudent && record.rowsKey().equals(rowsKey)) {
+                    rowsById.put(id, unpackInts(record.rowOffsets()));
+                }
+            });
+            return rowsById;
+        }
+
+        @Override
+        public void savePrototypes(Map<String, String> rowsKeysById, Map<String, int[]> rowsById, int perStudent,
+                                   String region) {
+            rowsById.forEach((id, rows) -> prototypes.put(region + "/" + id, new FacePrototypeRecord(id, region,
+                    Recognizer.PIPELINE_VERSION, perStudent, rowsKeysById.get(id), packInts(rows))));
+        }
+
+        @Override
+        public HogProjection loadHogProjection(String region, int dimensions) {
+            return projections.get(region + "/" + dimensions);
+        }
+
+        @Override
+        public void saveHogProjection(String region, int dimensions, HogProjection projection) {
+            projections.put(region + "/" + dimensions, projection);
+        }
+    }
+}
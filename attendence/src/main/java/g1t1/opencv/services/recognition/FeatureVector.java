@@ -0,0 +1,66 @@
+package g1t1.opencv.services.recognition;
+
+/**
+ * Primitive copy of a face's histogram, LBP and HOG descriptors.
+ * Holds the reciprocal of each histogram bin so chi-square scoring against
+ * many gallery rows needs no divisions in the inner loop.
+ */
+public final class FeatureVector {
+    private static final double DBL_EPSILON = Math.ulp(1.0);
+
+    final float[] histogram;
+    final float[] lbp;
+    final float[] hog;
+    final double[] inverseHistogram;
+    final double[] inverseLbp;
+    private volatile Projected projected;
+
+    public FeatureVector(float[] histogram, float[] lbp, float[] hog) {
+        this.histogram = histogram;
+        this.lbp = lbp;
+        this.hog = hog;
+        this.inverseHistogram = inverse(histogram);
+        this.inverseLbp = inverse(lbp);
+    }
+
+    public float[] getHistogram() {
+        return histogram;
+    }
+
+    public float[] getLbp() {
+        return lbp;
+    }
+
+    public float[] getHog() {
+        return hog;
+    }
+
+    /**
+     * This vector with its HOG projected onto the basis, computed once per projection and reused.
+     */
+    FeatureVector projectedBy(HogProjection projection) {
+        Projected cached = projected;
+        if (cached != null && cached.projection == projection) {
+            return cached.vector;
+        }
+
+        FeatureVector vector = new FeatureVector(histogram, lbp, projection.project(hog));
+        projected = new Projected(projection, vector);
+        return vector;
+    }
+
+    /**
+     * Reciprocal of each bin, zero where OpenCV's HISTCMP_CHISQR skips the bin.
+     */
+    private static double[] inverse(float[] bins) {
+        double[] inverse = new double[bins.length];
+        for (int i = 0; i < bins.length; i++) {
+            double value = bins[i];
+            inverse[i] = Math.abs(value) > DBL_EPSILON ? 1.0 / value : 0.0;
+        }
+        return inverse;
+    }
+
+    private record Projected(HogProjection projection, FeatureVector vector) {
+    }
+}
@@ -0,0 +1,21 @@
+package g1t1.opencv.services.recognition;
+
+/**
+ * A recognizer's enrolled data: the feature gallery together with the candidate index built
+ * over it, or the embedding gallery. Published as one immutable value and read once per probe,
+ * so a probe never sees a gallery paired with another gallery's index, nor shortlists from one
+ * snapshot and scores against the next.
+ *
+ * @param candidateIndex ANN index over the gallery, or null to scan every student
+ */
+record GallerySnapshot(FeatureGallery gallery, HnswIndex candidateIndex, EmbeddingGallery embeddings) {
+    static final GallerySnapshot EMPTY = new GallerySnapshot(FeatureGallery.empty(), null, EmbeddingGallery.empty());
+
+    static GallerySnapshot of(FeatureGallery gallery, HnswIndex candidateIndex) {
+        return new GallerySnapshot(gallery, candidateIndex, EmbeddingGallery.empty());
+    }
+
+    static GallerySnapshot of(EmbeddingGallery embeddings) {
+        return new GallerySnapshot(FeatureGallery.empty(), null, embeddings);
+    }
+}
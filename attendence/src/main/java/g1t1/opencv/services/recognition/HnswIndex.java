@@ -0,0 +1,387 @@
+package g1t1.opencv.services.recognition;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Hierarchical Navigable Small World graph over the rows of a {@link FeatureGallery}.
+ * Finds the rows closest to a probe (squared L2 over the concatenated hist|LBP|HOG row)
+ * without scanning the whole gallery, so full scoring only runs on a shortlist of students.
+ * <p>
+ * Built once per gallery and read-only afterwards, so concurrent searches are safe. A live
+ * enrollment update patches a copy with {@link #withStudent} instead of rebuilding it.
+ */
+public final class HnswIndex {
+    private static final long LEVEL_SEED = 42L;
+
+    private final float[] data;
+    private final int rowLength;
+    private final int count;
+    private final int recognitionIdCount;
+    private final FeatureGallery gallery;
+    private final int maxConnections;
+    private final int maxConnectionsLevel0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final int[] levels;
+    private final int[][][] links;
+    private final int[][] linkCounts;
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+
+    private HnswIndex(FeatureGallery gallery, int maxConnections, int efConstruction) {
+        this.gallery = gallery;
+        this.data = gallery.data();
+        this.rowLength = gallery.rowLength();
+        this.count = gallery.rowCount();
+        this.recognitionIdCount = gallery.getRecognitionIds().size();
+        this.maxConnections = Math.max(2, maxConnections);
+        this.maxConnectionsLevel0 = this.maxConnections * 2;
+        this.efConstruction = Math.max(this.maxConnections, efConstruction);
+        this.levelMultiplier = 1.0 / Math.log(this.maxConnections);
+        this.levels = new int[count];
+        this.links = new int[count][][];
+        this.linkCounts = new int[count][];
+    }
+
+    /**
+     * Builds an index over every row of the gallery.
+     *
+     * @param maxConnections  Graph degree M; higher improves recall at the cost of memory and build time
+     * @param efConstruction  Candidate list size while inserting; higher builds a better graph, slower
+     */
+    public static HnswIndex build(FeatureGallery gallery, int maxConnections, int efConstruction) {
+        HnswIndex index = new HnswIndex(gallery, maxConnections, efConstruction);
+        Random random = new Random(LEVEL_SEED);
+        for (int row = 0; row < index.count; row++) {
+            index.insert(row, random);
+        }
+        return index;
+    }
+
+    /**
+     * Copy of this index over a gallery made by {@link FeatureGallery#withStudent}. The
+     * student's old rows are unlinked, rows that pointed at them are relinked to their nearest
+     * remaining rows, and the new rows, appended at the end, are inserted. Costs a search per
+     * affected row instead of a full rebuild; this index is left unchanged for running searches.
+     *
+     * @param updated  This index's gallery with the student's rows replaced
+     * @param oldRange Student's row range in this index's gallery, or null if they were not in it
+     */
+    public HnswIndex withStudent(FeatureGallery updated, int[] oldRange) {
+        int removedStart = oldRange != null ? oldRange[0] : count;
+        int removedEnd = oldRange != null ? oldRange[1] : count;
+        int removed = removedEnd - removedStart;
+        HnswIndex index = new HnswIndex(updated, maxConnections, efConstruction);
+
+        // Surviving rows keep their levels and links, renumbered past the removed range
+        List<int[]> depleted = new ArrayList<>(); // {row, level} that lost a neighbour
+        for (int row = 0; row < count; row++) {
+            if (row >= removedStart && row < removedEnd) {
+                continue;
+            }
+            int target = row < removedStart ? row : row - removed;
+            index.levels[target] = levels[row];
+            index.links[target] = new int[levels[row] + 1][];
+            index.linkCounts[target] = new int[levels[row] + 1];
+            for (int level = 0; level <= levels[row]; level++) {
+                int[] neighbours = new int[links[row][level].length];
+                int size = 0;
+                for (int i = 0; i < linkCounts[row][level]; i++) {
+                    int neighbour = links[row][level][i];
+                    if (neighbour < removedStart) {
+                        neighbours[size++] = neighbour;
+                    } else if (neighbour >= removedEnd) {
+                        neighbours[size++] = neighbour - removed;
+                    }
+                }
+                index.links[target][level] = neighbours;
+                index.linkCounts[target][level] = size;
+                if (size < linkCounts[row][level]) {
+                    depleted.add(new int[]{target, level});
+                }
+            }
+            if (levels[row] > index.maxLevel) {
+                index.maxLevel = levels[row];
+                index.entryPoint = target;
+            }
+        }
+
+        for (int[] link : depleted) {
+            index.relink(link[0], link[1]);
+        }
+        Random random = new Random(LEVEL_SEED + index.count);
+        for (int row = count - removed; row < index.count; row++) {
+            index.insert(row, random);
+        }
+        return index;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Recognition ids of the closest rows, nearest first, deduplicated. Students have several
+     * rows each, so the search is widened until it yields topK distinct students or has
+     * reached every row.
+     *
+     * @param topK Number of distinct recognition ids to return, fewer only if the gallery has fewer
+     * @param ef   Initial search breadth; higher raises recall and latency
+     * @return Recognition ids, or null if the probe cannot be compared with this index, so the
+     * caller scores every student instead
+     */
+    public Set<String> searchRecognitionIds(FeatureVector probe, int topK, int ef) {
+        FeatureVector prepared = gallery.prepareProbe(probe);
+        if (prepared.hog.length != gallery.getHogLength()) {
+            return null;
+        }
+
+        Set<String> ids = new LinkedHashSet<>();
+        if (count == 0) {
+            return ids;
+        }
+
+        float[] query = concatenate(prepared);
+        int wanted = Math.min(topK, recognitionIdCount);
+        int breadth = Math.max(ef, topK);
+        while (true) {
+            ids.clear();
+            for (int row : search(query, breadth)) {
+                ids.add(gallery.getRowId(row));
+                if (ids.size() >= wanted) {
+                    return ids;
+                }
+            }
+            if (breadth >= count) {
+                return ids;
+            }
+            breadth = Math.min(count, breadth * 2);
+        }
+    }
+
+    /**
+     * Rows closest to the query, nearest first.
+     *
+     * @param query Concatenated row-layout vector
+     * @param ef    Number of rows to return; also the search breadth at level 0
+     */
+    public int[] search(float[] query, int ef) {
+        if (entryPoint < 0) {
+            return new int[0];
+        }
+
+        int current = entryPoint;
+        for (int level = maxLevel; level > 0; level--) {
+            current = greedyClosest(query, current, level);
+        }
+
+        List<Candidate> nearest = searchLayer(query, current, ef, 0);
+        int[] rows = new int[nearest.size()];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = nearest.get(i).row;
+        }
+        return rows;
+    }
+
+    private void insert(int row, Random random) {
+        int level = (int) Math.floor(-Math.log(1.0 - random.nextDouble()) * levelMultiplier);
+        levels[row] = level;
+        links[row] = new int[level + 1][];
+        linkCounts[row] = new int[level + 1];
+        for (int l = 0; l <= level; l++) {
+            links[row][l] = new int[(l == 0 ? maxConnectionsLevel0 : maxConnections) + 1];
+        }
+
+        if (entryPoint < 0) {
+            entryPoint = row;
+            maxLevel = level;
+            return;
+        }
+
+        float[] query = rowVector(row);
+        int current = entryPoint;
+        for (int l = maxLevel; l > level; l--) {
+            current = greedyClosest(query, current, l);
+        }
+
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            List<Candidate> nearest = searchLayer(query, current, efConstruction, l);
+            int limit = Math.min(maxConnections, nearest.size());
+            for (int i = 0; i < limit; i++) {
+                int neighbour = nearest.get(i).row;
+                connect(row, neighbour, l);
+                connect(neighbour, row, l);
+            }
+            current = nearest.getFirst().row;
+        }
+
+        if (level > maxLevel) {
+            maxLevel = level;
+            entryPoint = row;
+        }
+    }
+
+    /**
+     * Links a row that lost neighbours to its nearest rows on the level, as an insert would.
+     */
+    private void relink(int row, int level) {
+        float[] query = rowVector(row);
+        int current = entryPoint;
+        for (int l = maxLevel; l > level; l--) {
+            current = greedyClosest(query, current, l);
+        }
+
+        for (Candidate candidate : searchLayer(query, current, efConstruction, level)) {
+            if (linkCounts[row][level] >= maxConnections) {
+                break;
+            }
+            if (candidate.row != row && !isLinked(row, candidate.row, level)) {
+                connect(row, candidate.row, level);
+                connect(candidate.row, row, level);
+            }
+        }
+    }
+
+    private boolean isLinked(int from, int to, int level) {
+        for (int i = 0; i < linkCounts[from][level]; i++) {
+            if (links[from][level][i] == to) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds a directed link, keeping only the closest neighbours when the list overflows.
+     */
+    private void connect(int from, int to, int level) {
+        int[] neighbours = links[from][level];
+        int size = linkCounts[from][level];
+        int limit = level == 0 ? maxConnectionsLevel0 : maxConnections;
+        neighbours[size++] = to;
+
+        if (size > limit) {
+            List<Candidate> sorted = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                sorted.add(new Candidate(neighbours[i], distance(from, neighbours[i])));
+            }
+            sorted.sort(Comparator.comparingDouble(Candidate::distance));
+            for (int i = 0; i < limit; i++) {
+                neighbours[i] = sorted.get(i).row;
+            }
+            size = limit;
+        }
+        linkCounts[from][level] = size;
+    }
+
+    private int greedyClosest(float[] query, int start, int level) {
+        int current = start;
+        double currentDistance = distance(query, current);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            int[] neighbours = links[current][level];
+            int size = linkCounts[current][level];
+            for (int i = 0; i < size; i++) {
+                double d = distance(query, neighbours[i]);
+                if (d < currentDistance) {
+                    currentDistance = d;
+                    current = neighbours[i];
+                    improved = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Best-first search on one layer, returning up to ef rows nearest first.
+     */
+    private List<Candidate> searchLayer(float[] query, int entry, int ef, int level) {
+        BitSet visited = new BitSet(count);
+        PriorityQueue<Candidate> candidates = new PriorityQueue<>(Comparator.comparingDouble(Candidate::distance));
+        PriorityQueue<Candidate> results = new PriorityQueue<>(
+                Comparator.comparingDouble(Candidate::distance).reversed());
+
+        Candidate start = new Candidate(entry, distance(query, entry));
+        visited.set(entry);
+        candidates.add(start);
+        results.add(start);
+
+        while (!candidates.isEmpty()) {
+            Candidate closest = candidates.poll();
+            if (results.size() >= ef && closest.distance > results.peek().distance) {
+                break;
+            }
+
+            int[] neighbours = links[closest.row][level];
+            int size = linkCounts[closest.row][level];
+            for (int i = 0; i < size; i++) {
+                int neighbour = neighbours[i];
+                if (visited.get(neighbour)) {
+                    continue;
+                }
+                visited.set(neighbour);
+
+                double d = distance(query, neighbour);
+                if (results.size() < ef || d < results.peek().distance) {
+                    Candidate candidate = new Candidate(neighbour, d);
+                    candidates.add(candidate);
+                    results.add(candidate);
+                    if (results.size() > ef) {
+                        results.poll();
+                    }
+                }
+            }
+        }
+
+        List<Candidate> nearest = new ArrayList<>(results);
+        nearest.sort(Comparator.comparingDouble(Candidate::distance));
+        return nearest;
+    }
+
+    private double distance(float[] query, int row) {
+        int offset = row * rowLength;
+        double sum = 0;
+        for (int i = 0; i < rowLength; i++) {
+            float d = query[i] - data[offset + i];
+            sum += (double) d * d;
+        }
+        return sum;
+    }
+
+    private double distance(int rowA, int rowB) {
+        int offsetA = rowA * rowLength;
+        int offsetB = rowB * rowLength;
+        double sum = 0;
+        for (int i = 0; i < rowLength; i++) {
+            float d = data[offsetA + i] - data[offsetB + i];
+            sum += (double) d * d;
+        }
+        return sum;
+    }
+
+    private float[] rowVector(int row) {
+        float[] vector = new float[rowLength];
+        System.arraycopy(data, row * rowLength, vector, 0, rowLength);
+        return vector;
+    }
+
+    private static float[] concatenate(FeatureVector probe) {
+        float[] vector = new float[probe.histogram.length + probe.lbp.length + probe.hog.length];
+        System.arraycopy(probe.histogram, 0, vector, 0, probe.histogram.length);
+        System.arraycopy(probe.lbp, 0, vector, probe.histogram.length, probe.lbp.length);
+        System.arraycopy(probe.hog, 0, vector, probe.histogram.length + probe.lbp.length, probe.hog.length);
+        return vector;
+    }
+
+    private record Candidate(int row, double distance) {
+    }
+}
@@ -0,0 +1,186 @@
+package g1t1.opencv.services.recognition;
+
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * PCA basis that projects 3780-float HOG descriptors down to a compact embedding.
+ * Learned from the enrolled gallery with Core.PCACompute and saved in the {@link FeatureStore}
+ * with a hash of the gallery's HOG data, so the same class does not relearn it every session.
+ * Each region keeps one saved basis per length, replaced when its gallery changes.
+ * Immutable, so one instance can project probes from several threads.
+ */
+public final class HogProjection {
+    private static final int MAX_TRAINING_ROWS = 512;
+
+    private final String galleryKey;
+    private final int inputLength;
+    private final int dimensions;
+    private final float[] mean;
+    private final float[] basis;
+
+    private HogProjection(String galleryKey, int inputLength, int dimensions, float[] mean, float[] basis) {
+        this.galleryKey = galleryKey;
+        this.inputLength = inputLength;
+        this.dimensions = dimensions;
+        this.mean = mean;
+        this.basis = basis;
+    }
+
+    /**
+     * Loads the basis saved for this gallery, or learns and saves a new one.
+     *
+     * @param dimensions Target embedding length; capped at the number of training rows
+     * @param region     Face region of the gallery, so each region keeps its own basis
+     * @return Projection, or null if the gallery has no HOG rows to learn from
+     */
+    public static HogProjection loadOrLearn(FeatureGallery gallery, int dimensions, FeatureStore store,
+                                            String region) {
+        if (gallery.rowCount() < 2 || gallery.getHogLength() == 0) {
+            return null;
+        }
+
+        String key = galleryKey(gallery);
+        HogProjection saved = store.loadHogProjection(region, dimensions);
+        if (saved != null && saved.galleryKey.equals(key) && saved.inputLength == gallery.getHogLength()
+                && saved.dimensions == Math.min(dimensions, Math.min(gallery.rowCount(), MAX_TRAINING_ROWS))) {
+            return saved;
+        }
+
+        HogProjection learned = learn(gallery, dimensions, key);
+        store.saveHogProjection(region, dimensions, learned);
+        return learned;
+    }
+
+    /**
+     * Learns the top principal components of the gallery's HOG rows.
+     * Large galleries are sampled down to an even spread of rows first, since PCA cost grows
+     * with the square of the row count.
+     */
+    public static HogProjection learn(FeatureGallery gallery, int dimensions) {
+        return learn(gallery, dimensions, galleryKey(gallery));
+    }
+
+    private static HogProjection learn(FeatureGallery gallery, int dimensions, String key) {
+        int rows = Math.min(gallery.rowCount(), MAX_TRAINING_ROWS);
+        int hogLength = gallery.getHogLength();
+        int hogOffset = FeatureGallery.HISTOGRAM_LENGTH + FeatureGallery.LBP_LENGTH;
+        float[] data = gallery.data();
+
+        float[] hogRows = new float[rows * hogLength];
+        for (int i = 0; i < rows; i++) {
+            int row = (int) ((long) i * gallery.rowCount() / rows);
+            System.arraycopy(data, row * gallery.rowLength() + hogOffset, hogRows, i * hogLength, hogLength);
+        }
+
+        Mat samples = new Mat(rows, hogLength, CvType.CV_32FC1);
+        samples.put(0, 0, hogRows);
+        Mat meanMat = new Mat();
+        Mat eigenvectors = new Mat();
+        Core.PCACompute(samples, meanMat, eigenvectors, Math.min(dimensions, rows));
+
+        float[] mean = new float[hogLength];
+        meanMat.get(0, 0, mean);
+        float[] basis = new float[eigenvectors.rows() * hogLength];
+        eigenvectors.get(0, 0, basis);
+        int learnedDimensions = eigenvectors.rows();
+
+        samples.release();
+        meanMat.release();
+        eigenvectors.release();
+        return new HogProjection(key, hogLength, learnedDimensions, mean, basis);
+    }
+
+    /**
+     * Projects one HOG descriptor onto the basis: (hog - mean) . eigenvector for each component.
+     */
+    public float[] project(float[] hog) {
+        float[] centred = new float[inputLength];
+        for (int i = 0; i < inputLength; i++) {
+            centred[i] = hog[i] - mean[i];
+        }
+
+        float[] projected = new float[dimensions];
+        for (int d = 0; d < dimensions; d++) {
+            int offset = d * inputLength;
+            float s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+            int i = 0;
+            for (; i + 3 < inputLength; i += 4) {
+                s0 += centred[i] * basis[offset + i];
+                s1 += centred[i + 1] * basis[offset + i + 1];
+                s2 += centred[i + 2] * basis[offset + i + 2];
+                s3 += centred[i + 3] * basis[offset + i + 3];
+            }
+            for (; i < inputLength; i++) {
+                s0 += centred[i] * basis[offset + i];
+            }
+            projected[d] = s0 + s1 + s2 + s3;
+        }
+        return projected;
+    }
+
+    public int getInputLength() {
+        return inputLength;
+    }
+
+    public int getDimensions() {
+        return dimensions;
+    }
+
+    /**
+     * SHA-256 over the HOG part of every gallery row, identifying the data the basis was learned from.
+     */
+    static String galleryKey(FeatureGallery gallery) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            int hogLength = gallery.getHogLength();
+            int hogOffset = FeatureGallery.HISTOGRAM_LENGTH + FeatureGallery.LBP_LENGTH;
+            ByteBuffer buffer = ByteBuffer.allocate(hogLength * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            for (int row = 0; row < gallery.rowCount(); row++) {
+                buffer.clear();
+                buffer.asFloatBuffer().put(gallery.data(), row * gallery.rowLength() + hogOffset, hogLength);
+                digest.update(buffer.array());
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Rebuilds a projection saved by the {@link FeatureStore}.
+     *
+     * @return Projection, or null if the mean and basis do not fit the input length
+     */
+    static HogProjection restore(String galleryKey, int inputLength, float[] mean, float[] basis) {
+        if (inputLength <= 0 || mean.length != inputLength || basis.length == 0 || basis.length % inputLength != 0) {
+            return null;
+        }
+        return new HogProjection(galleryKey, inputLength, basis.length / inputLength, mean, basis);
+    }
+
+    String getGalleryKey() {
+        return galleryKey;
+    }
+
+    float[] getMean() {
+        return mean;
+    }
+
+    float[] getBasis() {
+        return basis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("HogProjection{%d -> %d, key=%s}", inputLength, dimensions,
+                galleryKey.substring(0, 12));
+    }
+}
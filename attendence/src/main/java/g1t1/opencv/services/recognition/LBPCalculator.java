@@ -0,0 +1,112 @@
+package g1t1.opencv.services.recognition;
+
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+
+import java.util.Arrays;
+
+/**
+ * Local Binary Pattern histogram kernel working on plain Java arrays.
+ * Pulls the face into a reused byte[] with a single bulk get and writes the
+ * 256-bin histogram directly, so no per-pixel JNI calls or intermediate Mat.
+ * Buffers are reused per thread, so concurrent callers never share state.
+ */
+public final class LBPCalculator {
+    public static final int BINS = 256;
+
+    private static final ThreadLocal<Buffers> BUFFERS = ThreadLocal.withInitial(Buffers::new);
+
+    private LBPCalculator() {
+    }
+
+    /**
+     * Calculates the L2-normalized LBP histogram as a 256x1 CV_32F Mat.
+     * Returns an empty Mat when the image is smaller than 3x3.
+     *
+     * @param image 8-bit single channel face image
+     */
+    public static Mat calculateHistogram(Mat image) {
+        float[] histogram = calculateHistogramArray(image);
+        if (histogram == null) {
+            return new Mat();
+        }
+
+        Mat histogramMat = new Mat(BINS, 1, CvType.CV_32FC1);
+        histogramMat.put(0, 0, histogram);
+        return histogramMat;
+    }
+
+    /**
+     * Calculates the L2-normalized LBP histogram as a float[256].
+     *
+     * @param image 8-bit single channel face image
+     * @return Normalized histogram, or null when the image is smaller than 3x3
+     */
+    public static float[] calculateHistogramArray(Mat image) {
+        int height = image.rows();
+        int width = image.cols();
+        if (height < 3 || width < 3) {
+            return null;
+        }
+
+        Buffers buffers = BUFFERS.get();
+        byte[] pixels = buffers.pixels(width * height);
+        int[] counts = buffers.counts();
+        image.get(0, 0, pixels);
+
+        for (int i = 1; i < height - 1; i++) {
+            int row = i * width;
+            int above = row - width;
+            int below = row + width;
+
+            for (int j = 1; j < width - 1; j++) {
+                int center = pixels[row + j] & 0xFF;
+                int lbpValue = 0;
+
+                lbpValue |= ((pixels[above + j - 1] & 0xFF) >= center ? 1 : 0) << 7;
+                lbpValue |= ((pixels[above + j] & 0xFF) >= center ? 1 : 0) << 6;
+                lbpValue |= ((pixels[above + j + 1] & 0xFF) >= center ? 1 : 0) << 5;
+                lbpValue |= ((pixels[row + j + 1] & 0xFF) >= center ? 1 : 0) << 4;
+                lbpValue |= ((pixels[below + j + 1] & 0xFF) >= center ? 1 : 0) << 3;
+                lbpValue |= ((pixels[below + j] & 0xFF) >= center ? 1 : 0) << 2;
+                lbpValue |= ((pixels[below + j - 1] & 0xFF) >= center ? 1 : 0) << 1;
+                lbpValue |= ((pixels[row + j - 1] & 0xFF) >= center ? 1 : 0);
+
+                counts[lbpValue]++;
+            }
+        }
+
+        // Same L2 normalization as Core.normalize(hist, hist, 1, 0, NORM_L2)
+        double sumOfSquares = 0.0;
+        for (int count : counts) {
+            sumOfSquares += (double) count * count;
+        }
+        float scale = sumOfSquares > 0 ? (float) (1.0 / Math.sqrt(sumOfSquares)) : 0f;
+
+        float[] histogram = new float[BINS];
+        for (int bin = 0; bin < BINS; bin++) {
+            histogram[bin] = counts[bin] * scale;
+        }
+        return histogram;
+    }
+
+    /**
+     * Per-thread scratch buffers, grown on demand and reused across calls.
+     */
+    private static final class Buffers {
+        private final int[] counts = new int[BINS];
+        private byte[] pixels = new byte[0];
+
+        byte[] pixels(int size) {
+            if (pixels.length < size) {
+                pixels = new byte[size];
+            }
+            return pixels;
+        }
+
+        int[] counts() {
+            Arrays.fill(counts, 0);
+            return counts;
+        }
+    }
+}
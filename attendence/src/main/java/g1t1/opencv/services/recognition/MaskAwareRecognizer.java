@@ -1,17 +1,14 @@
 package g1t1.opencv.services.recognition;
 
-import g1t1.features.logger.AppLogger;
-import g1t1.opencv.config.FaceConfig;
 import g1t1.opencv.models.Recognisable;
 import org.opencv.core.Mat;
 import org.opencv.core.MatOfByte;
 import org.opencv.core.Rect;
 import org.opencv.imgcodecs.Imgcodecs;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Set;
 
 /**
  * Mask-aware face recognition using histogram, LBP, and HOG features on upper face region.
@@ -21,87 +18,102 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 public class MaskAwareRecognizer extends Recognizer {
 
-    private final Map<String, List<FaceFeatures>> studentFeatures = new ConcurrentHashMap<>();
+    private volatile GallerySnapshot snapshot = GallerySnapshot.EMPTY;
 
     /**
-     * Pre-computes features for upper face region of all enrolled students.
+     * Pre-computes features for upper face region of all enrolled students, reusing cached features where available.
      */
     public void precomputeEnrollmentData(List<? extends Recognisable> recognisableList) {
-        long startTime = System.currentTimeMillis();
-        studentFeatures.clear();
+        setGallery(new EnrollmentPrecomputer().precompute(recognisableList, List.of(this), null).getFirst());
+    }
 
-        for (Recognisable student : recognisableList) {
-            if (student.getFaceData() == null || student.getFaceData().getFaceImages() == null) {
-                continue;
-            }
+    /**
+     * Uses a gallery pre-computed by a shared {@link EnrollmentPrecomputer}.
+     */
+    public synchronized void setGallery(FeatureGallery gallery) {
+        this.snapshot = GallerySnapshot.of(gallery, buildCandidateIndex(gallery));
+    }
 
-            List<FaceFeatures> features = new ArrayList<>();
-            for (byte[] imageData : student.getFaceData().getFaceImages()) {
-                Mat image = Imgcodecs.imdecode(new MatOfByte(imageData), Imgcodecs.IMREAD_COLOR);
-                if (!image.empty()) {
-                    Mat processedFace = preprocessFace(image);
-                    Mat upperRegion = extractUpperFaceRegion(processedFace);
-                    features.add(extractFeatures(upperRegion));
-                    upperRegion.release();
-                    processedFace.release();
-                    image.release();
-                }
-            }
+    /**
+     * Replaces one student's rows, leaving every other student's features as they are.
+     * Probes already running keep the previous snapshot; later probes see the update.
+     *
+     * @param rows Student's rows from {@link EnrollmentPrecomputer#precomputeStudent}, empty to remove the student
+     */
+    public synchronized void updateStudent(String recognitionId, FeatureGallery rows) {
+        FeatureGallery gallery = snapshot.gallery().withStudent(recognitionId, rows);
+        this.snapshot = GallerySnapshot.of(gallery, updateCandidateIndex(snapshot, gallery, recognitionId));
+    }
 
-            if (!features.isEmpty()) {
-                studentFeatures.put(student.getRecognitionId(), features);
-            }
-        }
+    public FeatureGallery getGallery() {
+        return snapshot.gallery();
+    }
 
-        long duration = System.currentTimeMillis() - startTime;
-        if (FaceConfig.getInstance().isLoggingEnabled()) {
-            AppLogger.log("Pre-computed mask-aware features for " + recognisableList.size() +
-                    " students in " + duration + "ms");
-        }
+    @Override
+    protected GallerySnapshot currentSnapshot() {
+        return snapshot;
     }
 
     /**
-     * Compares preprocessed face against enrolled student using upper face region.
-     *
-     * @param processedFace Preprocessed face image
-     * @param recognisable Student to compare against
-     * @return Confidence percentage [0-100]
+     * Extracts upper face region features.
      */
     @Override
-    public double compareWithRecognisable(Mat processedFace, Recognisable recognisable) {
-        String recognitionId = recognisable.getRecognitionId();
-        List<FaceFeatures> precomputedFeatures = studentFeatures.get(recognitionId);
+    protected FaceFeatures extractRegionFeatures(Mat processedFace) {
+        Mat upperRegion = extractUpperFaceRegion(processedFace);
+        FaceFeatures features = extractFeatures(upperRegion);
+        upperRegion.release();
+        return features;
+    }
 
-        if (precomputedFeatures == null || precomputedFeatures.isEmpty()) {
-            return fallbackCompare(processedFace, recognisable);
-        }
+    @Override
+    protected String getFeatureRegion() {
+        return "upper";
+    }
 
-        Mat upperRegion = extractUpperFaceRegion(processedFace);
-        FaceFeatures detectedFeatures = extractFeatures(upperRegion);
-        double bestSimilarity = 0.0;
+    /**
+     * Narrows large galleries down to the nearest students via the ANN index, if built.
+     */
+    @Override
+    protected Set<String> findCandidates(GallerySnapshot snapshot, FaceFeatures probeFeatures) {
+        return searchCandidates(snapshot.candidateIndex(), probeFeatures);
+    }
 
-        for (FaceFeatures enrolledFeatures : precomputedFeatures) {
-            double similarity = compareFeatures(detectedFeatures, enrolledFeatures);
-            if (similarity > bestSimilarity) {
-                bestSimilarity = similarity;
-            }
+    /**
+     * Scores the gallery coarse-to-fine, only computing HOG for the best candidates.
+     */
+    @Override
+    protected Map<String, Double> scoreCascade(GallerySnapshot snapshot, FaceFeatures probeFeatures,
+                                               Set<String> candidates) {
+        return runCascade(snapshot.gallery(), probeFeatures, candidates);
+    }
+
+    /**
+     * Compares upper face probe features against enrolled student.
+     *
+     * @param snapshot      Gallery this probe is scored against
+     * @param probeFeatures Upper face features of the detected face
+     * @param recognisable Student to compare against
+     * @return Confidence percentage [0-100]
+     */
+    @Override
+    protected double compareWithRecognisable(GallerySnapshot snapshot, FaceFeatures probeFeatures,
+                                             Recognisable recognisable) {
+        FeatureGallery currentGallery = snapshot.gallery();
+        if (!currentGallery.contains(recognisable.getRecognitionId())) {
+            return fallbackCompare(probeFeatures, recognisable);
         }
 
-        detectedFeatures.release();
-        upperRegion.release();
-        return bestSimilarity * 100.0;
+        return currentGallery.bestSimilarity(probeFeatures.toVector(), recognisable.getRecognitionId()) * 100.0;
     }
 
     /**
      * Fallback comparison when pre-computed data unavailable.
      */
-    private double fallbackCompare(Mat processedFace, Recognisable recognisable) {
+    private double fallbackCompare(FaceFeatures detectedFeatures, Recognisable recognisable) {
         if (recognisable.getFaceData() == null || recognisable.getFaceData().getFaceImages() == null) {
             return 0.0;
         }
 
-        Mat upperRegion = extractUpperFaceRegion(processedFace);
-        FaceFeatures detectedFeatures = extractFeatures(upperRegion);
         double bestSimilarity = 0.0;
 
         for (byte[] imageData : recognisable.getFaceData().getFaceImages()) {
@@ -123,8 +135,6 @@ public class MaskAwareRecognizer extends Recognizer {
             }
         }
 
-        detectedFeatures.release();
-        upperRegion.release();
         return bestSimilarity * 100.0;
     }
 
@@ -138,14 +148,9 @@ public class MaskAwareRecognizer extends Recognizer {
     }
 
     /**
-     * Releases all pre-computed data.
+     * Drops the pre-computed gallery.
      */
     public void cleanup() {
-        for (List<FaceFeatures> features : studentFeatures.values()) {
-            for (FaceFeatures feature : features) {
-                feature.release();
-            }
-        }
-        studentFeatures.clear();
+        snapshot = GallerySnapshot.EMPTY;
     }
 }
@@ -0,0 +1,222 @@
+package g1t1.opencv.services.recognition;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Compacts a gallery to a few prototype images per student using k-medoids, so matching
+ * compares against k rows per student instead of every enrolled image.
+ * Prototypes are real enrolled rows (medoids), clustered with 1 - the combined similarity
+ * used for matching, so prototype scores mean the same as full-gallery scores.
+ */
+public final class PrototypeSelector {
+    private static final long SEED = 42L;
+    private static final int MAX_ITERATIONS = 20;
+
+    private PrototypeSelector() {
+    }
+
+    /**
+     * Keeps at most prototypesPerStudent rows per student.
+     *
+     * @param prototypesPerStudent Prototypes per student, 0 or less keeps every row
+     * @return Compacted gallery, or the same gallery if no student has more rows than that
+     */
+    public static FeatureGallery compress(FeatureGallery gallery, int prototypesPerStudent) {
+        return compress(gallery, prototypesPerStudent, new HashMap<>());
+    }
+
+    /**
+     * Keeps at most prototypesPerStudent rows per student, reusing medoids chosen before.
+     *
+     * @param prototypesPerStudent Prototypes per student, 0 or less keeps every row
+     * @param medoids              Known medoids by recognition id, as row offsets within the student's rows;
+     *                             medoids chosen for the other compacted students are added to it
+     * @return Compacted gallery, or the same gallery if no student has more rows than that
+     */
+    public static FeatureGallery compress(FeatureGallery gallery, int prototypesPerStudent,
+                                          Map<String, int[]> medoids) {
+        if (prototypesPerStudent <= 0) {
+            return gallery;
+        }
+
+        FeatureGallery.Builder builder = FeatureGallery.builder();
+        boolean compacted = false;
+
+        for (String id : gallery.getRecognitionIds()) {
+            int[] range = gallery.rowRange(id);
+            int count = range[1] - range[0];
+            if (count <= prototypesPerStudent) {
+                for (int row = range[0]; row < range[1]; row++) {
+                    builder.add(id, gallery.rowVector(row));
+                }
+                continue;
+            }
+
+            compacted = true;
+            int[] chosen = medoids.get(id);
+            if (!isValid(chosen, prototypesPerStudent, count)) {
+                // Seeded per student so a student's prototypes do not depend on who else is enrolled
+                double[][] distances = distanceMatrix(gallery, range[0], count);
+                chosen = kMedoids(distances, prototypesPerStudent, new Random(SEED));
+                medoids.put(id, chosen);
+            }
+            for (int medoid : chosen) {
+                builder.add(id, gallery.rowVector(range[0] + medoid));
+            }
+        }
+
+        return compacted ? builder.build() : gallery;
+    }
+
+    private static boolean isValid(int[] medoids, int prototypesPerStudent, int count) {
+        if (medoids == null || medoids.length != prototypesPerStudent) {
+            return false;
+        }
+        for (int medoid : medoids) {
+            if (medoid < 0 || medoid >= count) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * distances[i][j] = 1 - similarity of row i as the probe against row j, as in matching.
+     */
+    private static double[][] distanceMatrix(FeatureGallery gallery, int firstRow, int count) {
+        double[][] distances = new double[count][count];
+        for (int i = 0; i < count; i++) {
+            FeatureVector probe = gallery.rowVector(firstRow + i);
+            for (int j = 0; j < count; j++) {
+                distances[i][j] = i == j ? 0.0 : 1.0 - gallery.scoreRow(probe, firstRow + j);
+            }
+        }
+        return distances;
+    }
+
+    /**
+     * Voronoi-iteration k-medoids with k-means++ style seeding.
+     *
+     * @return Indices of the chosen medoids, ascending
+     */
+    static int[] kMedoids(double[][] distances, int k, Random random) {
+        int count = distances.length;
+        int[] medoids = seed(distances, k, random);
+        int[] assignment = new int[count];
+
+        for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+            for (int i = 0; i < count; i++) {
+                assignment[i] = nearest(distances, i, medoids);
+            }
+
+            boolean changed = false;
+            for (int c = 0; c < k; c++) {
+                int best = medoids[c];
+                double bestCost = clusterCost(distances, assignment, c, best);
+                for (int candidate = 0; candidate < count; candidate++) {
+                    if (assignment[candidate] != c || candidate == best) {
+                        continue;
+                    }
+                    double cost = clusterCost(distances, assignment, c, candidate);
+                    if (cost < bestCost) {
+                        bestCost = cost;
+                        best = candidate;
+                    }
+                }
+                if (best != medoids[c]) {
+                    medoids[c] = best;
+                    changed = true;
+                }
+            }
+
+            if (!changed) {
+                break;
+            }
+        }
+
+        Arrays.sort(medoids);
+        return medoids;
+    }
+
+    /**
+     * Starts from the most central row, then picks each next medoid with probability
+     * proportional to its squared distance from the nearest medoid chosen so far.
+     */
+    private static int[] seed(double[][] distances, int k, Random random) {
+        int count = distances.length;
+        int[] medoids = new int[k];
+        boolean[] chosen = new boolean[count];
+
+        int central = 0;
+        double centralCost = Double.MAX_VALUE;
+        for (int i = 0; i < count; i++) {
+            double cost = 0.0;
+            for (int j = 0; j < count; j++) {
+                cost += distances[j][i];
+            }
+            if (cost < centralCost) {
+                centralCost = cost;
+                central = i;
+            }
+        }
+        medoids[0] = central;
+        chosen[central] = true;
+
+        double[] nearestDistance = new double[count];
+        for (int i = 0; i < count; i++) {
+            nearestDistance[i] = distances[i][central];
+        }
+
+        for (int c = 1; c < k; c++) {
+            double total = 0.0;
+            for (int i = 0; i < count; i++) {
+                if (!chosen[i]) {
+                    total += nearestDistance[i] * nearestDistance[i];
+                }
+            }
+
+            int next = -1;
+            double target = random.nextDouble() * total;
+            for (int i = 0; i < count; i++) {
+                if (chosen[i]) {
+                    continue;
+                }
+                next = i;
+                target -= nearestDistance[i] * nearestDistance[i];
+                if (target <= 0) {
+                    break;
+                }
+            }
+
+            medoids[c] = next;
+            chosen[next] = true;
+            for (int i = 0; i < count; i++) {
+                nearestDistance[i] = Math.min(nearestDistance[i], distances[i][next]);
+            }
+        }
+        return medoids;
+    }
+
+    private static int nearest(double[][] distances, int row, int[] medoids) {
+        int best = 0;
+        for (int c = 1; c < medoids.length; c++) {
+            if (distances[row][medoids[c]] < distances[row][medoids[best]]) {
+                best = c;
+            }
+        }
+        return best;
+    }
+
+    private static double clusterCost(double[][] distances, int[] assignment, int cluster, int medoid) {
+        double cost = 0.0;
+        for (int i = 0; i < assignment.length; i++) {
+            if (assignment[i] == cluster) {
+                cost += distances[i][medoid];
+            }
+        }
+        return cost;
+    }
+}
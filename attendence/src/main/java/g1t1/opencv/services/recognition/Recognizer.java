@@ -1,5 +1,6 @@
 package g1t1.opencv.services.recognition;
 
+import g1t1.features.logger.AppLogger;
 import g1t1.opencv.config.FaceConfig;
 import g1t1.opencv.models.Recognisable;
 import g1t1.opencv.models.RecognitionResult;
@@ -9,7 +10,10 @@ import org.opencv.imgproc.Imgproc;
 import org.opencv.objdetect.HOGDescriptor;
 
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Abstract base class for face recognition algorithms using Template Method pattern.
@@ -17,13 +21,21 @@ import java.util.List;
  * Subclasses specify which face region to analyze.
  */
 public abstract class Recognizer {
+    /**
+     * Version of the preprocessing and feature extraction pipeline.
+     * Bump whenever either changes so features cached by {@link FeatureStore} are recomputed.
+     */
+    public static final int PIPELINE_VERSION = 1;
+
     protected final FaceConfig config;
     protected final GrayscaleProcessor grayscale;
     protected final BilateralFilterProcessor bilateralFilter;
     protected final NormalizerProcessor normalizer;
     protected final CLAHEProcessor clahe;
     protected final ResizeProcessor resizer;
-    protected final HOGDescriptor hogDescriptor;
+    // HOGDescriptor keeps scratch buffers between calls, so each thread gets its own instance
+    private final ThreadLocal<HOGDescriptor> hogDescriptor = ThreadLocal.withInitial(Recognizer::createHogDescriptor);
+    private final CascadeScorer cascadeScorer;
 
     public Recognizer() {
         this.config = FaceConfig.getInstance();
@@ -32,7 +44,11 @@ public abstract class Recognizer {
         this.normalizer = new NormalizerProcessor();
         this.clahe = new CLAHEProcessor();
         this.resizer = new ResizeProcessor();
-        this.hogDescriptor = new HOGDescriptor(
+        this.cascadeScorer = new CascadeScorer();
+    }
+
+    private static HOGDescriptor createHogDescriptor() {
+        return new HOGDescriptor(
                 new Size(64, 128),
                 new Size(16, 16),
                 new Size(8, 8),
@@ -49,7 +65,13 @@ public abstract class Recognizer {
             return null;
         }
 
-        Mat processedFace = preprocessFace(detectedFace);
+        Mat processedFace = preprocessProbe(detectedFace);
+        FaceFeatures probeFeatures = extractRegionFeatures(processedFace);
+        processedFace.release();
+
+        GallerySnapshot snapshot = currentSnapshot();
+        Set<String> candidates = findCandidates(snapshot, probeFeatures);
+        Map<String, Double> cascadeScores = scoreCascade(snapshot, probeFeatures, candidates);
         Recognisable bestMatch = null;
         double bestConfidence = 0.0;
 
@@ -57,15 +79,21 @@ public abstract class Recognizer {
             if (recognisable.getFaceData() == null || recognisable.getFaceData().getFaceImages() == null) {
                 continue;
             }
+            if (candidates != null && !candidates.contains(recognisable.getRecognitionId())) {
+                continue;
+            }
 
-            double confidence = compareWithRecognisable(processedFace, recognisable);
+            Double cascadeScore = cascadeScores != null ? cascadeScores.get(recognisable.getRecognitionId()) : null;
+            double confidence = cascadeScore != null
+                    ? cascadeScore * 100.0
+                    : compareWithRecognisable(snapshot, probeFeatures, recognisable);
             if (confidence > bestConfidence && confidence >= config.getRecognitionThreshold()) {
                 bestConfidence = confidence;
                 bestMatch = recognisable;
             }
         }
 
-        processedFace.release();
+        probeFeatures.release();
 
         if (bestMatch != null) {
             return new RecognitionResult(bestMatch, bestConfidence, null);
@@ -86,18 +114,42 @@ public abstract class Recognizer {
      */
     protected final Mat preprocessFace(Mat face) {
         Mat step1 = grayscale.process(face);
-        Mat step2 = clahe.process(step1);
+        Mat result = preprocessGrayFace(step1);
+        step1.release();
+        return result;
+    }
+
+    /**
+     * The {@link #preprocessFace} pipeline from the CLAHE step on, for a face already in grayscale.
+     */
+    protected final Mat preprocessGrayFace(Mat grayFace) {
+        Mat step2 = clahe.process(grayFace);
         Mat step3 = bilateralFilter.process(step2);
         Mat step4 = normalizer.process(step3);
         Mat result = resizer.process(step4);
 
-        step1.release();
         step2.release();
         step3.release();
         step4.release();
         return result;
     }
 
+    /**
+     * Prepares a detected face for {@link #extractRegionFeatures}.
+     * Defaults to the handcrafted-feature pipeline; recognizers with another input format override it.
+     */
+    protected Mat preprocessProbe(Mat face) {
+        return preprocessFace(face);
+    }
+
+    /**
+     * Prepares an analysed face for {@link #extractRegionFeatures}, reusing its grayscale plane.
+     * Must give the same result as {@link #preprocessProbe(Mat)} on the face.
+     */
+    protected Mat preprocessProbe(FaceAnalysis analysis) {
+        return preprocessGrayFace(analysis.gray());
+    }
+
     /**
      * Get best match without threshold filtering (for visual feedback).
      */
@@ -106,7 +158,66 @@ public abstract class Recognizer {
             return null;
         }
 
-        Mat processedFace = preprocessFace(detectedFace);
+        FaceAnalysis analysis = new FaceAnalysis(detectedFace);
+        RecognitionResult result = getBestMatch(analysis, recognisableList);
+        analysis.release();
+        return result;
+    }
+
+    /**
+     * Get best match without threshold filtering, reusing planes of a shared face analysis.
+     */
+    public final RecognitionResult getBestMatch(FaceAnalysis analysis, List<? extends Recognisable> recognisableList) {
+        return getBestMatch(analysis, recognisableList, List.of(), 0.0);
+    }
+
+    /**
+     * Get best match without threshold filtering, scoring the fallback students only when no
+     * primary student reaches the given confidence. The probe's features are extracted once,
+     * and both tiers are scored against the same gallery snapshot.
+     * Whenever the fallback is scored the better of the two tiers wins, as in a single scan.
+     *
+     * @param primary       Students scored first
+     * @param fallback      Students scored only when the best primary match is too weak
+     * @param fallbackBelow Confidence percentage below which the fallback students are scored too
+     */
+    public final RecognitionResult getBestMatch(FaceAnalysis analysis, List<? extends Recognisable> primary,
+                                                List<? extends Recognisable> fallback, double fallbackBelow) {
+        if (analysis == null || analysis.face() == null || analysis.face().empty() || primary == null) {
+            return null;
+        }
+
+        Mat processedFace = preprocessProbe(analysis);
+        FaceFeatures probeFeatures = extractRegionFeatures(processedFace);
+        processedFace.release();
+
+        GallerySnapshot snapshot = currentSnapshot();
+        Set<String> nearest = findCandidates(snapshot, probeFeatures);
+        RecognitionResult best = findBestMatch(snapshot, probeFeatures, primary, nearest);
+        if ((best == null || best.getConfidence() < fallbackBelow) && fallback != null && !fallback.isEmpty()) {
+            RecognitionResult fallbackBest = findBestMatch(snapshot, probeFeatures, fallback, nearest);
+            if (fallbackBest != null && (best == null || fallbackBest.getConfidence() > best.getConfidence())) {
+                best = fallbackBest;
+            }
+        }
+
+        probeFeatures.release();
+        return best;
+    }
+
+    /**
+     * Best match among the listed students, scoring only those the candidate index shortlisted.
+     */
+    private RecognitionResult findBestMatch(GallerySnapshot snapshot, FaceFeatures probeFeatures,
+                                            List<? extends Recognisable> recognisableList, Set<String> nearest) {
+        // The cascade scores every id it is given, so limit it to the listed students
+        Set<String> candidates = new HashSet<>();
+        for (Recognisable recognisable : recognisableList) {
+            if (nearest == null || nearest.contains(recognisable.getRecognitionId())) {
+                candidates.add(recognisable.getRecognitionId());
+            }
+        }
+        Map<String, Double> cascadeScores = scoreCascade(snapshot, probeFeatures, candidates);
         Recognisable bestMatch = null;
         double bestConfidence = 0.0;
 
@@ -114,16 +225,20 @@ public abstract class Recognizer {
             if (recognisable.getFaceData() == null || recognisable.getFaceData().getFaceImages() == null) {
                 continue;
             }
+            if (!candidates.contains(recognisable.getRecognitionId())) {
+                continue;
+            }
 
-            double confidence = compareWithRecognisable(processedFace, recognisable);
+            Double cascadeScore = cascadeScores != null ? cascadeScores.get(recognisable.getRecognitionId()) : null;
+            double confidence = cascadeScore != null
+                    ? cascadeScore * 100.0
+                    : compareWithRecognisable(snapshot, probeFeatures, recognisable);
             if (confidence > bestConfidence) {
                 bestConfidence = confidence;
                 bestMatch = recognisable;
             }
         }
 
-        processedFace.release();
-
         if (bestMatch != null && bestConfidence > 0.0) {
             return new RecognitionResult(bestMatch, bestConfidence, null);
         }
@@ -162,45 +277,7 @@ public abstract class Recognizer {
      * Calculates Local Binary Pattern histogram for texture features.
      */
     protected final Mat calculateLBP(Mat image) {
-        int height = image.rows();
-        int width = image.cols();
-        if (height < 3 || width < 3) {
-            return new Mat();
-        }
-
-        Mat lbpImage = new Mat(height - 2, width - 2, CvType.CV_8UC1);
-
-        for (int i = 1; i < height - 1; i++) {
-            for (int j = 1; j < width - 1; j++) {
-                double center = image.get(i, j)[0];
-                int lbpValue = 0;
-
-                lbpValue |= (image.get(i - 1, j - 1)[0] >= center ? 1 : 0) << 7;
-                lbpValue |= (image.get(i - 1, j)[0] >= center ? 1 : 0) << 6;
-                lbpValue |= (image.get(i - 1, j + 1)[0] >= center ? 1 : 0) << 5;
-                lbpValue |= (image.get(i, j + 1)[0] >= center ? 1 : 0) << 4;
-                lbpValue |= (image.get(i + 1, j + 1)[0] >= center ? 1 : 0) << 3;
-                lbpValue |= (image.get(i + 1, j)[0] >= center ? 1 : 0) << 2;
-                lbpValue |= (image.get(i + 1, j - 1)[0] >= center ? 1 : 0) << 1;
-                lbpValue |= (image.get(i, j - 1)[0] >= center ? 1 : 0);
-
-                lbpImage.put(i - 1, j - 1, lbpValue);
-            }
-        }
-
-        Mat lbpHistogram = new Mat();
-        Imgproc.calcHist(
-                Arrays.asList(lbpImage),
-                new MatOfInt(0),
-                new Mat(),
-                lbpHistogram,
-                new MatOfInt(256),
-                new MatOfFloat(0f, 256f)
-        );
-        Core.normalize(lbpHistogram, lbpHistogram, 1, 0, Core.NORM_L2);
-
-        lbpImage.release();
-        return lbpHistogram;
+        return LBPCalculator.calculateHistogram(image);
     }
 
     /**
@@ -211,7 +288,7 @@ public abstract class Recognizer {
         Imgproc.resize(image, resized, new Size(64, 128));
 
         MatOfFloat descriptors = new MatOfFloat();
-        hogDescriptor.compute(resized, descriptors);
+        hogDescriptor.get().compute(resized, descriptors);
 
         Mat hogMat = descriptors.clone();
         Core.normalize(hogMat, hogMat, 1, 0, Core.NORM_L2);
@@ -233,28 +310,21 @@ public abstract class Recognizer {
         double lbpScore = compareLBP(f1.lbp, f2.lbp);
         double hogScore = compareHOG(f1.hog, f2.hog);
 
-        double minScore = Math.min(Math.min(histScore, lbpScore), hogScore);
-        double geometricMean = Math.pow(histScore * lbpScore * hogScore, 1.0 / 3.0);
-
-        return geometricMean * (0.5 + 0.5 * minScore);
+        return combineScores(histScore, lbpScore, hogScore);
     }
 
     /**
      * Compares histograms using chi-square distance.
      */
     protected final double compareHistograms(Mat hist1, Mat hist2) {
-        double chiSquare = Imgproc.compareHist(hist1, hist2, Imgproc.HISTCMP_CHISQR);
-        double similarity = Math.exp(-chiSquare / 5.0);
-        return Math.pow(similarity, 1.5);
+        return histogramSimilarity(Imgproc.compareHist(hist1, hist2, Imgproc.HISTCMP_CHISQR));
     }
 
     /**
      * Compares LBP histograms using chi-square distance.
      */
     protected final double compareLBP(Mat lbp1, Mat lbp2) {
-        double chiSquare = Imgproc.compareHist(lbp1, lbp2, Imgproc.HISTCMP_CHISQR);
-        double similarity = Math.exp(-chiSquare / 3.0);
-        return Math.pow(similarity, 2.0);
+        return lbpSimilarity(Imgproc.compareHist(lbp1, lbp2, Imgproc.HISTCMP_CHISQR));
     }
 
     /**
@@ -270,28 +340,221 @@ public abstract class Recognizer {
         double distance = Core.norm(diff, Core.NORM_L2);
         diff.release();
 
+        return hogSimilarity(distance);
+    }
+
+    /**
+     * Geometric mean of the three scores, scaled down by the weakest one.
+     */
+    static double combineScores(double histScore, double lbpScore, double hogScore) {
+        double minScore = Math.min(Math.min(histScore, lbpScore), hogScore);
+        double geometricMean = Math.pow(histScore * lbpScore * hogScore, 1.0 / 3.0);
+
+        return geometricMean * (0.5 + 0.5 * minScore);
+    }
+
+    /**
+     * Maps intensity histogram chi-square distance to a similarity [0, 1].
+     */
+    static double histogramSimilarity(double chiSquare) {
+        double similarity = Math.exp(-chiSquare / 5.0);
+        return Math.pow(similarity, 1.5);
+    }
+
+    /**
+     * Maps LBP histogram chi-square distance to a similarity [0, 1].
+     */
+    static double lbpSimilarity(double chiSquare) {
+        double similarity = Math.exp(-chiSquare / 3.0);
+        return Math.pow(similarity, 2.0);
+    }
+
+    /**
+     * Maps HOG Euclidean distance to a similarity [0, 1].
+     */
+    static double hogSimilarity(double distance) {
         double similarity = Math.exp(-distance / 20.0);
         return Math.pow(similarity, 2.5);
     }
 
     /**
-     * Algorithm-specific comparison between processed face and student's enrolled data.
+     * Extracts the features of a preprocessed face from the region this recognizer analyzes.
+     * Used for enrolled images and, once per detected face, for the probe.
+     */
+    protected abstract FaceFeatures extractRegionFeatures(Mat processedFace);
+
+    /**
+     * Name of the analyzed face region, part of the feature cache key.
+     */
+    protected abstract String getFeatureRegion();
+
+    /**
+     * Enrolled data to score the next probe against. Read once per probe and passed to every
+     * scoring step, so a gallery swapped in mid-probe is only seen by later probes.
+     */
+    protected GallerySnapshot currentSnapshot() {
+        return GallerySnapshot.EMPTY;
+    }
+
+    /**
+     * Shortlist of recognition ids worth fully scoring for this probe.
+     * Default scans every student; subclasses with a candidate index narrow it down.
+     *
+     * @return Recognition ids to score, or null to score all students
+     */
+    protected Set<String> findCandidates(GallerySnapshot snapshot, FaceFeatures probeFeatures) {
+        return null;
+    }
+
+    /**
+     * Builds an ANN candidate index over the gallery when enabled and the gallery is large enough.
+     *
+     * @return Index, or null to keep scanning every student
+     */
+    protected final HnswIndex buildCandidateIndex(FeatureGallery gallery) {
+        if (!config.isAnnEnabled() || gallery.rowCount() < config.getAnnMinRows()) {
+            return null;
+        }
+
+        long startTime = System.currentTimeMillis();
+        HnswIndex index = HnswIndex.build(gallery, config.getAnnMaxConnections(), config.getAnnEfConstruction());
+        if (config.isLoggingEnabled()) {
+            AppLogger.log("Built ANN index over " + index.size() + " gallery rows in " +
+                    (System.currentTimeMillis() - startTime) + "ms");
+        }
+        return index;
+    }
+
+    /**
+     * Candidate index for a gallery that differs from the snapshot's in one student's rows.
+     * Patches a copy of the snapshot's index when it has one, so a live update costs a search
+     * per affected row rather than a rebuild.
+     *
+     * @return Index, or null to keep scanning every student
+     */
+    protected final HnswIndex updateCandidateIndex(GallerySnapshot current, FeatureGallery updated,
+                                                   String recognitionId) {
+        if (!config.isAnnEnabled() || updated.rowCount() < config.getAnnMinRows()) {
+            return null;
+        }
+        HnswIndex index = current.candidateIndex();
+        if (index == null || updated.getHogLength() != current.gallery().getHogLength()) {
+            return buildCandidateIndex(updated);
+        }
+        if (updated == current.gallery()) {
+            return index;
+        }
+
+        long startTime = System.currentTimeMillis();
+        HnswIndex patched = index.withStudent(updated, current.gallery().rowRange(recognitionId));
+        if (config.isLoggingEnabled()) {
+            AppLogger.log("Updated ANN index for " + recognitionId + " in " +
+                    (System.currentTimeMillis() - startTime) + "ms");
+        }
+        return patched;
+    }
+
+    /**
+     * Queries the candidate index for the students closest to the probe.
+     *
+     * @return Candidate recognition ids, or null when there is no index
+     */
+    protected final Set<String> searchCandidates(HnswIndex index, FaceFeatures probeFeatures) {
+        if (index == null) {
+            return null;
+        }
+        return index.searchRecognitionIds(probeFeatures.toVector(), config.getAnnTopK(), config.getAnnEfSearch());
+    }
+
+    /**
+     * Coarse-to-fine similarities for the candidate students, so only the best get the full score.
+     * Default runs no cascade; subclasses with a gallery delegate to {@link #runCascade}.
+     *
+     * @return Similarity [0, 1] by recognition id (0 if pruned), or null to compare every student directly
+     */
+    protected Map<String, Double> scoreCascade(GallerySnapshot snapshot, FaceFeatures probeFeatures,
+                                               Set<String> candidates) {
+        return null;
+    }
+
+    /**
+     * Runs the cascaded scorer over the gallery when enabled.
+     *
+     * @return Similarity by recognition id, or null when the cascade is disabled or the gallery is empty
+     */
+    protected final Map<String, Double> runCascade(FeatureGallery gallery, FaceFeatures probeFeatures,
+                                                   Set<String> candidates) {
+        if (!config.isCascadeEnabled() || gallery.rowCount() == 0) {
+            return null;
+        }
+        return cascadeScorer.score(gallery, probeFeatures.toVector(), candidates,
+                config.getCascadeHistogramTopK(), config.getCascadeHistogramMinScore(),
+                config.getCascadeLbpTopK(), config.getCascadeLbpMinScore());
+    }
+
+    /**
+     * How many students each cascade stage pruned since the last reset.
+     */
+    public final CascadeScorer.Stats getCascadeStats() {
+        return cascadeScorer.getStats();
+    }
+
+    public final void resetCascadeStats() {
+        cascadeScorer.resetStats();
+    }
+
+    /**
+     * Algorithm-specific comparison between the probe features and student's enrolled data.
      * Subclasses implement their specific recognition algorithm here.
+     *
+     * @return Confidence percentage [0-100]
      */
-    public abstract double compareWithRecognisable(Mat processedFace, Recognisable recognisable);
+    protected abstract double compareWithRecognisable(GallerySnapshot snapshot, FaceFeatures probeFeatures,
+                                                      Recognisable recognisable);
 
     /**
-     * Container for face feature data.
+     * Container for face feature data: the handcrafted descriptors, or a DNN embedding.
      */
     protected static class FaceFeatures {
         final Mat histogram;
         final Mat lbp;
         final Mat hog;
+        final float[] embedding;
+        private FeatureVector vector;
 
         FaceFeatures(Mat histogram, Mat lbp, Mat hog) {
             this.histogram = histogram;
             this.lbp = lbp;
             this.hog = hog;
+            this.embedding = null;
+        }
+
+        /**
+         * Embedding-only features, for recognizers that do not use the handcrafted descriptors.
+         */
+        FaceFeatures(float[] embedding) {
+            this.histogram = new Mat();
+            this.lbp = new Mat();
+            this.hog = new Mat();
+            this.embedding = embedding;
+        }
+
+        /**
+         * Primitive copy of the descriptors for gallery scoring, created once and reused.
+         */
+        FeatureVector toVector() {
+            if (vector == null) {
+                vector = new FeatureVector(toArray(histogram), toArray(lbp), toArray(hog));
+            }
+            return vector;
+        }
+
+        private static float[] toArray(Mat descriptor) {
+            float[] values = new float[(int) descriptor.total()];
+            if (values.length > 0) {
+                descriptor.get(0, 0, values);
+            }
+            return values;
         }
 
         void release() {
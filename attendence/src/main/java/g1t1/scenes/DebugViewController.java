@@ -1,10 +1,18 @@
 package g1t1.scenes;
 
 import g1t1.models.scenes.PageController;
+import g1t1.opencv.FaceRecognitionService;
+import g1t1.utils.ExpiringCache;
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
 import javafx.fxml.FXML;
 import javafx.scene.control.Label;
+import javafx.util.Duration;
 import org.opencv.core.Core;
 
+import java.util.stream.Collectors;
+
 public class DebugViewController extends PageController {
     @FXML
     Label lbl_javaVersion;
@@ -12,7 +20,11 @@ public class DebugViewController extends PageController {
     Label lbl_opencvVersion;
     @FXML
     Label lbl_javafxVersion;
-    
+    @FXML
+    Label lbl_faceCaches;
+
+    private final Timeline statsTimer = new Timeline(new KeyFrame(Duration.seconds(1), event -> updateCacheStats()));
+
     @FXML
     public void initialize() {
         String javaVersion = System.getProperty("java.version");
@@ -22,5 +34,25 @@ public class DebugViewController extends PageController {
         lbl_javaVersion.setText("Java version: " + javaVersion);
         lbl_opencvVersion.setText("Opencv version: " + opencvVersion);
         lbl_javafxVersion.setText("JavaFX version: " + javafxVersion);
+
+        statsTimer.setCycleCount(Animation.INDEFINITE);
+    }
+
+    @Override
+    public void onMount() {
+        updateCacheStats();
+        statsTimer.play();
+    }
+
+    @Override
+    public void onUnmount() {
+        statsTimer.stop();
+    }
+
+    private void updateCacheStats() {
+        String stats = FaceRecognitionService.getInstance().getCacheStats().stream()
+                .map(ExpiringCache.Stats::toString)
+                .collect(Collectors.joining("\n"));
+        lbl_faceCaches.setText("Face caches:\n" + stats);
     }
 }
@@ -9,14 +9,13 @@ import g1t1.models.scenes.Router;
 import g1t1.models.sessions.ClassSession;
 import g1t1.models.sessions.ModuleSection;
 import g1t1.opencv.FaceRecognitionService;
-import g1t1.opencv.config.FaceConfig;
 import g1t1.opencv.models.DetectionBoundingBox;
-import g1t1.utils.ImageUtils;
+import g1t1.opencv.pipeline.FramePipeline;
+import g1t1.utils.PixelBufferRenderer;
 import g1t1.utils.ThreadWithRunnable;
 import javafx.animation.Animation;
 import javafx.animation.KeyFrame;
 import javafx.animation.Timeline;
-import javafx.application.Platform;
 import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.SimpleBooleanProperty;
 import javafx.fxml.FXML;
@@ -32,27 +31,26 @@ import org.opencv.videoio.VideoCapture;
 
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
-import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * Capture stage of the frame pipeline: reads the camera at its own rate and hands every frame
+ * to a {@link FramePipeline}, which detects, recognises and renders on separate threads.
+ */
 class CameraRunnable implements Runnable {
     private static final int MAX_FAILS = 100;
 
     private final VideoCapture camera;
-    private final ImageView display;
+    private final PixelBufferRenderer display;
     private final BooleanProperty isTeacherInView;
     private final BooleanProperty cameraFailure;
     private final FaceRecognitionService service;
-    private final List<DetectionBoundingBox> boxes = new ArrayList<>();
-    private final int msPerProcess;
-    private long previousTick;
 
     public CameraRunnable(ImageView display, BooleanProperty isTeacherInView, BooleanProperty cameraFailure) {
         this.camera = SettingsManager.getInstance().getConfiguredCamera();
         this.isTeacherInView = isTeacherInView;
-        this.display = display;
+        this.display = new PixelBufferRenderer(display);
         this.service = FaceRecognitionService.getInstance();
-        this.msPerProcess = 1000 / FaceConfig.getInstance().getTargetFps();
         this.cameraFailure = cameraFailure;
     }
 
@@ -68,6 +66,9 @@ class CameraRunnable implements Runnable {
             return;
         }
 
+        FramePipeline pipeline = new FramePipeline(this.service, this::render);
+        pipeline.start();
+
         while (camera.isOpened()) {
             if (Thread.currentThread().isInterrupted()) {
                 break;
@@ -83,31 +84,33 @@ class CameraRunnable implements Runnable {
             }
             consecutiveFailures = 0;
 
-            long currentTime = System.currentTimeMillis();
-            if (currentTime - previousTick >= msPerProcess) {
-                previousTick = currentTime;
-                this.service.processFrame(frame, this.boxes);
-            }
-
-            boolean teacherFound = false;
-            for (DetectionBoundingBox boundingBox : this.boxes) {
-                boundingBox.drawOnFrame(frame);
-                if (boundingBox.getIsTeacher()) {
-                    teacherFound = true;
-                }
-            }
-
-            this.isTeacherInView.set(teacherFound);
-            Platform.runLater(() -> {
-                display.setImage(ImageUtils.matToImage(frame));
-            });
+            pipeline.submit(frame);
         }
 
+        pipeline.stop();
         camera.release();
+        frame.release();
+        display.release();
         if (consecutiveFailures >= MAX_FAILS) {
             this.cameraFailure.set(true);
         }
     }
+
+    /**
+     * Render stage, on the pipeline's render thread.
+     */
+    private void render(Mat frame, List<DetectionBoundingBox> boxes) {
+        boolean teacherFound = false;
+        for (DetectionBoundingBox boundingBox : boxes) {
+            boundingBox.drawOnFrame(frame);
+            if (boundingBox.getIsTeacher()) {
+                teacherFound = true;
+            }
+        }
+
+        this.isTeacherInView.set(teacherFound);
+        display.present(frame);
+    }
 }
 
 public class DuringSessionViewController extends PageController {
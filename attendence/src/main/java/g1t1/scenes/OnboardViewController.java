@@ -11,6 +11,7 @@ import g1t1.db.student_face_images.StudentFaceImageRepository;
 import g1t1.db.student_face_images.StudentFaceImageRepositoryJooq;
 import g1t1.db.students.StudentRepository;
 import g1t1.db.students.StudentRepositoryJooq;
+import g1t1.features.attendencetaking.AttendanceTaker;
 import g1t1.features.authentication.AuthenticationContext;
 import g1t1.models.interfaces.HasProperty;
 import g1t1.models.scenes.PageController;
@@ -152,6 +153,7 @@ public class OnboardViewController extends PageController {
             // Update module section in memory
             Student student = DbUtils.getStudentById(studentId, this.registerStudent.getModuleSection());
             this.registerStudent.getModuleSection().addStudent(student);
+            AttendanceTaker.refreshStudent(student);
 
             return true;
         } catch (SQLException e) {
@@ -289,6 +289,11 @@ public class SettingsViewController extends PageController {
         }
     }
 
+    @FXML
+    public void openDiagnostics() {
+        Router.changePage(PageName.Debug);
+    }
+
     @FXML
     public void logout() {
         AuthenticationContext.logout();
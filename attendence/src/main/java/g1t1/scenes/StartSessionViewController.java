@@ -12,10 +12,15 @@ import g1t1.models.scenes.PageName;
 import g1t1.models.scenes.Router;
 import g1t1.models.sessions.ModuleSection;
 import g1t1.models.users.Teacher;
+import g1t1.opencv.FaceRecognitionService;
 import g1t1.utils.events.authentication.OnUserUpdateEvent;
+import g1t1.utils.events.opencv.EnrollmentProgressEvent;
+import javafx.application.Platform;
 import javafx.beans.binding.BooleanBinding;
+import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.IntegerProperty;
 import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.SimpleBooleanProperty;
 import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.fxml.FXML;
@@ -24,11 +29,13 @@ import javafx.scene.control.DatePicker;
 import javafx.scene.control.Label;
 import javafx.scene.control.MenuButton;
 import javafx.scene.control.MenuItem;
+import javafx.scene.control.ProgressBar;
 
 public class StartSessionViewController extends PageController {
     private final int TOTAL_WEEKS = 13;
     private final IntegerProperty weekValue = new SimpleIntegerProperty(0);
     private final ObjectProperty<ModuleSection> moduleSectionValue = new SimpleObjectProperty<>();
+    private final BooleanProperty isPreparing = new SimpleBooleanProperty(false);
 
     @FXML
     private MenuButton mbWeek;
@@ -46,16 +53,23 @@ public class StartSessionViewController extends PageController {
     private Button btnStartSession;
 
     @FXML
-    private Label lblRoom, lblExpectedStudents, lblTiming;
+    private Label lblRoom, lblExpectedStudents, lblTiming, lblPreparing;
+
+    @FXML
+    private ProgressBar pbPreparing;
 
     @FXML
     public void startSession() {
         LocalDate localDate = dpClassDate.getValue();
         LocalDateTime sessionStartTime = tpStartTime.addToDate(localDate);
 
-        AttendanceTaker.start(moduleSectionValue.get(), weekValue.get(), sessionStartTime);
-        Router.changePage(PageName.DuringSession);
-        Toast.show("Session started!", Toast.ToastType.SUCCESS);
+        pbPreparing.setProgress(0);
+        isPreparing.set(true);
+        AttendanceTaker.start(moduleSectionValue.get(), weekValue.get(), sessionStartTime, () -> {
+            isPreparing.set(false);
+            Router.changePage(PageName.DuringSession);
+            Toast.show("Session started!", Toast.ToastType.SUCCESS);
+        }, () -> isPreparing.set(false));
     }
 
     @FXML
@@ -81,9 +95,14 @@ public class StartSessionViewController extends PageController {
             moduleSectionValue.set(temp);
         });
 
+        FaceRecognitionService.getInstance().getEventEmitter().subscribe(EnrollmentProgressEvent.class,
+                (e) -> Platform.runLater(() -> pbPreparing.setProgress(e.getProgress())));
+
         BooleanBinding shouldDisable = moduleSectionValue.isNull().or(weekValue.lessThanOrEqualTo(0))
-                .or(dpClassDate.valueProperty().isNull());
+                .or(dpClassDate.valueProperty().isNull()).or(isPreparing);
         btnStartSession.disableProperty().bind(shouldDisable);
+        pbPreparing.visibleProperty().bind(isPreparing);
+        lblPreparing.visibleProperty().bind(isPreparing);
 
         lblRoom.textProperty().bind(moduleSectionValue.map(ms -> String.format("Room: %s", ms.getRoom())));
         lblExpectedStudents.textProperty().bind(
@@ -0,0 +1,145 @@
+package g1t1.testing;
+
+import g1t1.opencv.services.recognition.FeatureGallery;
+import g1t1.opencv.services.recognition.FeatureVector;
+import g1t1.opencv.services.recognition.HnswIndex;
+
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * ANN Candidate Search Benchmark
+ * <p>
+ * PURPOSE: Shows the latency curve of linear gallery scoring versus HNSW
+ * candidate search + full scoring of the shortlist, from 100 to 10,000
+ * students, and the recall of the shortlist at several ef.search values.
+ * <p>
+ * HOW TO RUN: mvn compile exec:java -Dexec.mainClass="g1t1.testing.AnnBenchmark"
+ * -Dexec.args="[imagesPerStudent] [hogLength]"
+ * <p>
+ * Uses synthetic descriptors (per-student centre + noise) so it needs no
+ * camera or photos. Recall = how often the true best student from the linear
+ * scan is inside the ANN shortlist. Students default to 8 images each, as many
+ * as recognition.prototypes.per.student keeps in a real gallery.
+ */
+public class AnnBenchmark {
+    private static final int[] STUDENT_COUNTS = {100, 500, 1000, 2500, 5000, 10000};
+    private static final int[] EF_SEARCH_VALUES = {16, 64, 128};
+    private static final int TOP_K = 10;
+    private static final int PROBES = 50;
+    private static final int MAX_CONNECTIONS = 16;
+    private static final int EF_CONSTRUCTION = 100;
+
+    public static void main(String[] args) {
+        int imagesPerStudent = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int hogLength = args.length > 1 ? Integer.parseInt(args[1]) : 3780;
+
+        System.out.println("=== ANN CANDIDATE SEARCH BENCHMARK ===");
+        System.out.printf("Images per student: %d, HOG length: %d, top-K: %d, probes: %d%n%n",
+                imagesPerStudent, hogLength, TOP_K, PROBES);
+        System.out.printf("%8s %8s %10s %12s %8s %12s %8s%n",
+                "students", "rows", "build ms", "linear ms", "ef", "ann ms", "recall");
+
+        Random random = new Random(7);
+        for (int students : STUDENT_COUNTS) {
+            FeatureVector[] centres = new FeatureVector[students];
+            FeatureGallery.Builder builder = FeatureGallery.builder();
+            for (int s = 0; s < students; s++) {
+                centres[s] = randomVector(random, hogLength);
+                for (int i = 0; i < imagesPerStudent; i++) {
+                    builder.add("S" + s, perturb(centres[s], random, 0.3f));
+                }
+            }
+            FeatureGallery gallery = builder.build();
+
+            long buildStart = System.nanoTime();
+            HnswIndex index = HnswIndex.build(gallery, MAX_CONNECTIONS, EF_CONSTRUCTION);
+            double buildMs = (System.nanoTime() - buildStart) / 1e6;
+
+            FeatureVector[] probes = new FeatureVector[PROBES];
+            String[] expected = new String[PROBES];
+            double[] scores = new double[gallery.rowCount()];
+            long linearStart = System.nanoTime();
+            for (int p = 0; p < PROBES; p++) {
+                probes[p] = perturb(centres[random.nextInt(students)], random, 0.3f);
+                gallery.scoreAll(probes[p], scores);
+                expected[p] = gallery.getRowId(argMax(scores));
+            }
+            double linearMs = (System.nanoTime() - linearStart) / 1e6 / PROBES;
+
+            for (int ef : EF_SEARCH_VALUES) {
+                int hits = 0;
+                long annStart = System.nanoTime();
+                for (int p = 0; p < PROBES; p++) {
+                    Set<String> candidates = index.searchRecognitionIds(probes[p], TOP_K, ef);
+                    double best = 0.0;
+                    for (String id : candidates) {
+                        best = Math.max(best, gallery.bestSimilarity(probes[p], id));
+                    }
+                    if (candidates.contains(expected[p])) {
+                        hits++;
+                    }
+                }
+                double annMs = (System.nanoTime() - annStart) / 1e6 / PROBES;
+
+                System.out.printf("%8d %8d %10.0f %12.3f %8d %12.3f %7.1f%%%n",
+                        students, gallery.rowCount(), buildMs, linearMs, ef, annMs, 100.0 * hits / PROBES);
+            }
+        }
+
+        System.out.println();
+        System.out.println("BENCHMARK COMPLETE");
+    }
+
+    private static FeatureVector randomVector(Random random, int hogLength) {
+        return new FeatureVector(
+                normalized(randomPositive(random, FeatureGallery.HISTOGRAM_LENGTH)),
+                normalized(randomPositive(random, FeatureGallery.LBP_LENGTH)),
+                normalized(randomPositive(random, hogLength)));
+    }
+
+    private static FeatureVector perturb(FeatureVector centre, Random random, float noise) {
+        return new FeatureVector(
+                perturb(centre.getHistogram(), random, noise),
+                perturb(centre.getLbp(), random, noise),
+                perturb(centre.getHog(), random, noise));
+    }
+
+    private static float[] perturb(float[] values, Random random, float noise) {
+        float[] result = new float[values.length];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = Math.max(0f, values[i] * (1f + noise * (float) random.nextGaussian()));
+        }
+        return normalized(result);
+    }
+
+    private static float[] randomPositive(Random random, int length) {
+        float[] values = new float[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = random.nextFloat();
+        }
+        return values;
+    }
+
+    private static float[] normalized(float[] values) {
+        double sum = 0.0;
+        for (float value : values) {
+            sum += (double) value * value;
+        }
+        float scale = sum > 0 ? (float) (1.0 / Math.sqrt(sum)) : 0f;
+        for (int i = 0; i < values.length; i++) {
+            values[i] *= scale;
+        }
+        return values;
+    }
+
+    private static int argMax(double[] scores) {
+        int best = 0;
+        for (int i = 1; i < scores.length; i++) {
+            if (scores[i] > scores[best]) {
+                best = i;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,210 @@
+package g1t1.testing;
+
+import g1t1.models.ids.StudentID;
+import g1t1.models.sessions.ModuleSection;
+import g1t1.models.users.FaceData;
+import g1t1.models.users.Student;
+import g1t1.opencv.FaceRecognitionService;
+import g1t1.opencv.config.FaceConfig;
+import g1t1.opencv.models.DetectedFace;
+import g1t1.opencv.models.DetectionBoundingBox;
+import nu.pattern.OpenCV;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfByte;
+import org.opencv.core.Scalar;
+import org.opencv.imgcodecs.Imgcodecs;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency Stress Test
+ * <p>
+ * PURPOSE: Checks that FaceRecognitionService gives the same answers when
+ * frames are processed from several threads (cameras) at once as it does on a
+ * single thread.
+ * <p>
+ * HOW TO RUN: 1. Add student photos to test-photos/[name]/ folders 2. Run: mvn
+ * compile exec:java -Dexec.mainClass="g1t1.testing.ConcurrencyStressTest"
+ * -Dexec.args="[threads] [rounds]"
+ * <p>
+ * Every enrollment photo is used as a camera frame. Before each photo the
+ * thread feeds blank frames until its tracks end, so each photo starts a new
+ * track and its result depends only on the photo. The single-threaded results
+ * are the baseline; every thread then runs all photos for the given rounds
+ * (default: 8 threads, 5 rounds) and must reproduce the baseline exactly.
+ * Meanwhile another thread keeps re-enrolling the same students through
+ * updateRecognisable, so probes run across gallery swaps; since the swapped-in
+ * rows are the same, any difference means a probe mixed two snapshots.
+ * <p>
+ * EXPECTED OUTPUT: 0 mismatches and 0 errors.
+ */
+public class ConcurrencyStressTest {
+    private static final String TEST_PHOTOS_BASE = "test-photos";
+
+    public static void main(String[] args) throws Exception {
+        OpenCV.loadLocally();
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        System.out.println("=== FACE RECOGNITION CONCURRENCY STRESS TEST ===");
+        List<Student> students = loadTestStudents();
+        if (students.isEmpty()) {
+            System.out.println("[ERROR] No test students found.");
+            System.out.println("[INFO] Add photos to test-photos/[name]/ folders and try again");
+            return;
+        }
+
+        List<Mat> frames = new ArrayList<>();
+        for (Student student : students) {
+            for (byte[] photo : student.getFaceData().getFaceImages()) {
+                Mat frame = Imgcodecs.imdecode(new MatOfByte(photo), Imgcodecs.IMREAD_COLOR);
+                if (!frame.empty()) {
+                    frames.add(frame);
+                }
+            }
+        }
+        System.out.printf("Students: %d, frames: %d, threads: %d, rounds: %d%n%n", students.size(), frames.size(),
+                threads, rounds);
+
+        FaceRecognitionService service = FaceRecognitionService.getInstance();
+        service.start(students);
+
+        List<String> baseline = processAll(service, frames);
+        long recognised = baseline.stream().filter(result -> !result.equals("[]")).count();
+        System.out.printf("[INFO] Baseline: %d of %d frames with a recognised face%n", recognised, frames.size());
+
+        AtomicInteger mismatches = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+        AtomicInteger swaps = new AtomicInteger();
+        AtomicBoolean processing = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+        Future<?> mutator = executor.submit(() -> {
+            for (int i = 0; processing.get(); i++) {
+                try {
+                    service.updateRecognisable(students.get(i % students.size()));
+                    swaps.incrementAndGet();
+                } catch (RuntimeException e) {
+                    errors.incrementAndGet();
+                    System.out.println("   [ERROR] update: " + e);
+                }
+            }
+        });
+        List<Future<?>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                for (int round = 0; round < rounds; round++) {
+                    List<String> results;
+                    try {
+                        results = processAll(service, frames);
+                    } catch (RuntimeException e) {
+                        errors.incrementAndGet();
+                        System.out.println("   [ERROR] " + e);
+                        continue;
+                    }
+                    for (int i = 0; i < results.size(); i++) {
+                        if (!results.get(i).equals(baseline.get(i))) {
+                            mismatches.incrementAndGet();
+                            System.out.printf("   [MISMATCH] frame %d: expected %s, got %s%n", i, baseline.get(i),
+                                    results.get(i));
+                        }
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        processing.set(false);
+        mutator.get();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        executor.shutdown();
+        service.stop();
+
+        long processed = (long) threads * rounds * frames.size();
+        System.out.printf("%nProcessed %d frames in %.1fs (%.1f frames/sec)%n", processed, seconds,
+                processed / seconds);
+        System.out.printf("Gallery swaps during the run: %d%n", swaps.get());
+        System.out.printf("Mismatches: %d, errors: %d%n", mismatches.get(), errors.get());
+        System.out.println(mismatches.get() == 0 && errors.get() == 0
+                ? "[SUCCESS] Concurrent results match the single-threaded baseline"
+                : "[ERROR] Concurrent results differ from the single-threaded baseline");
+
+        for (Mat frame : frames) {
+            frame.release();
+        }
+    }
+
+    /**
+     * Runs every frame through detection and recognition on the calling thread.
+     *
+     * @return Sorted names recognised in each frame, "PHOTO" for faces failing liveness
+     */
+    private static List<String> processAll(FaceRecognitionService service, List<Mat> frames) {
+        int blankFrames = FaceConfig.getInstance().getTrackingMaxMissedDetections() + 1;
+        List<String> results = new ArrayList<>(frames.size());
+        for (Mat frame : frames) {
+            Mat blank = new Mat(frame.size(), CvType.CV_8UC3, new Scalar(0, 0, 0));
+            for (int i = 0; i < blankFrames; i++) {
+                service.detectFaces(blank);
+            }
+            blank.release();
+
+            List<String> names = new ArrayList<>();
+            for (DetectedFace face : service.detectFaces(frame)) {
+                DetectionBoundingBox box = service.recognizeFace(frame, face);
+                if (box != null && (box.isPicture() || box.getName() != null)) {
+                    names.add(box.isPicture() ? "PHOTO" : box.getName());
+                }
+            }
+            Collections.sort(names);
+            results.add(names.toString());
+        }
+        return results;
+    }
+
+    // Helper methods for loading test data
+    private static List<Student> loadTestStudents() throws IOException {
+        List<Student> students = new ArrayList<>();
+        File[] studentDirs = new File(TEST_PHOTOS_BASE).listFiles(File::isDirectory);
+        if (studentDirs == null) {
+            return students;
+        }
+
+        Arrays.sort(studentDirs);
+        for (File studentDir : studentDirs) {
+            File[] files = studentDir.listFiles((dir, name) -> name.toLowerCase().matches(".*\\.(jpg|jpeg)$"));
+            if (files == null || files.length == 0) {
+                continue;
+            }
+
+            Arrays.sort(files);
+            List<byte[]> photos = new ArrayList<>();
+            for (File file : files) {
+                photos.add(Files.readAllBytes(file.toPath()));
+            }
+
+            String id = "S" + String.format("%03d", students.size() + 1);
+            Student student = new Student(new StudentID(id), studentDir.getName(),
+                    new ModuleSection("CS102", "T01", "AY25-26T1", "SCIS1 2-4", 3, "08:00", "11:30"),
+                    studentDir.getName().toLowerCase() + "@school.edu");
+            FaceData faceData = new FaceData();
+            faceData.setFaceImages(photos);
+            student.setFaceData(faceData);
+            students.add(student);
+        }
+        return students;
+    }
+}
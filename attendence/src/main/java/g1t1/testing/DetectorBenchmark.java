@@ -0,0 +1,109 @@
+package g1t1.testing;
+
+import g1t1.opencv.config.FaceConfig;
+import g1t1.opencv.services.detection.DetectorBackend;
+import g1t1.opencv.services.detection.DetectorBackends;
+import nu.pattern.OpenCV;
+import org.opencv.core.Mat;
+import org.opencv.imgcodecs.Imgcodecs;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Face Detector Backend Benchmark
+ * <p>
+ * PURPOSE: Compares detection throughput and recall of the Haar cascade, LBP
+ * cascade and YuNet backends on a folder of stills.
+ * <p>
+ * HOW TO RUN: mvn compile exec:java -Dexec.mainClass="g1t1.testing.DetectorBenchmark"
+ * -Dexec.args="[photoFolder]"
+ * <p>
+ * The folder (default: test-photos/) is searched recursively for JPG and PNG
+ * files, each assumed to show exactly one face, as enrollment photos do.
+ * Recall = share of photos with at least one face found; extra = faces found
+ * beyond one per photo, i.e. likely false positives. Backends whose model is
+ * missing are skipped.
+ */
+public class DetectorBenchmark {
+    private static final String TEST_PHOTOS_BASE = "test-photos";
+    private static final String[] BACKENDS = {DetectorBackends.HAAR, DetectorBackends.LBP, DetectorBackends.YUNET};
+    private static final int WARMUP_IMAGES = 3;
+
+    public static void main(String[] args) {
+        OpenCV.loadLocally();
+        File folder = new File(args.length > 0 ? args[0] : TEST_PHOTOS_BASE);
+        int minSize = FaceConfig.getInstance().getMinSize();
+
+        System.out.println("=== FACE DETECTOR BACKEND BENCHMARK ===");
+        List<Mat> images = new ArrayList<>();
+        loadImages(folder, images);
+        if (images.isEmpty()) {
+            System.out.println("[ERROR] No photos found in " + folder.getPath());
+            return;
+        }
+        System.out.printf("Photos: %d, min face size: %dpx%n%n", images.size(), minSize);
+        System.out.printf("%8s %10s %12s %10s %8s%n", "backend", "ms/image", "images/sec", "recall", "extra");
+
+        for (String name : BACKENDS) {
+            DetectorBackend backend;
+            try {
+                backend = DetectorBackends.load(name);
+            } catch (IOException | RuntimeException e) {
+                System.out.printf("%8s %s%n", name, "skipped: " + e.getMessage());
+                continue;
+            }
+
+            for (int i = 0; i < Math.min(WARMUP_IMAGES, images.size()); i++) {
+                detect(backend, images.get(i), minSize);
+            }
+
+            int found = 0;
+            int extra = 0;
+            long start = System.nanoTime();
+            for (Mat image : images) {
+                int faces = detect(backend, image, minSize);
+                if (faces > 0) {
+                    found++;
+                    extra += faces - 1;
+                }
+            }
+            double totalMs = (System.nanoTime() - start) / 1e6;
+
+            System.out.printf("%8s %10.1f %12.1f %9.1f%% %8d%n", name, totalMs / images.size(),
+                    1000.0 * images.size() / totalMs, 100.0 * found / images.size(), extra);
+        }
+
+        for (Mat image : images) {
+            image.release();
+        }
+        System.out.println();
+        System.out.println("BENCHMARK COMPLETE");
+    }
+
+    private static int detect(DetectorBackend backend, Mat image, int minSize) {
+        Mat prepared = backend.prepare(image);
+        int faces = backend.detect(prepared, minSize, 0).size();
+        prepared.release();
+        return faces;
+    }
+
+    private static void loadImages(File folder, List<Mat> images) {
+        File[] files = folder.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.isDirectory()) {
+                loadImages(file, images);
+            } else if (file.getName().toLowerCase().matches(".*\\.(jpg|jpeg|png)$")) {
+                Mat image = Imgcodecs.imread(file.getPath());
+                if (!image.empty()) {
+                    images.add(image);
+                }
+            }
+        }
+    }
+}
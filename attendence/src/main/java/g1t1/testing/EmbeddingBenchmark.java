@@ -0,0 +1,153 @@
+package g1t1.testing;
+
+import g1t1.models.ids.StudentID;
+import g1t1.models.sessions.ModuleSection;
+import g1t1.models.users.FaceData;
+import g1t1.models.users.Student;
+import g1t1.opencv.config.FaceConfig;
+import g1t1.opencv.models.RecognitionResult;
+import g1t1.opencv.services.recognition.EmbeddingRecognizer;
+import g1t1.opencv.services.recognition.EnrollmentPrecomputer;
+import g1t1.opencv.services.recognition.FeatureGallery;
+import g1t1.opencv.services.recognition.HistogramRecognizer;
+import g1t1.opencv.services.recognition.Recognizer;
+import nu.pattern.OpenCV;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfByte;
+import org.opencv.imgcodecs.Imgcodecs;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Embedding vs Histogram Recognizer Benchmark
+ * <p>
+ * PURPOSE: Compares per-face latency, accuracy and gallery size of the DNN
+ * embedding recognizer against the handcrafted histogram recognizer.
+ * <p>
+ * HOW TO RUN: mvn compile exec:java -Dexec.mainClass="g1t1.testing.EmbeddingBenchmark"
+ * -Dexec.args="[modelPath]"
+ * <p>
+ * Uses the test-photos/[name]/ folders from SystemValidationTest. Even-numbered
+ * photos of each student are enrolled, odd-numbered photos are the probes.
+ * The model defaults to recognition.embedding.model from face-recognition.properties.
+ */
+public class EmbeddingBenchmark {
+    private static final String TEST_PHOTOS_BASE = "test-photos";
+    private static final int WARMUP_PROBES = 3;
+
+    public static void main(String[] args) throws IOException {
+        OpenCV.loadLocally();
+        String modelPath = args.length > 0 ? args[0] : FaceConfig.getInstance().getEmbeddingModelPath();
+
+        System.out.println("=== EMBEDDING RECOGNIZER BENCHMARK ===");
+
+        List<Student> enrolled = new ArrayList<>();
+        List<Student> probeOwners = new ArrayList<>();
+        List<byte[]> probes = new ArrayList<>();
+        loadSplit(enrolled, probeOwners, probes);
+        if (enrolled.isEmpty()) {
+            System.out.println("[ERROR] No test students found.");
+            System.out.println("[INFO] Add photos to test-photos/[name]/ folders and try again");
+            return;
+        }
+        System.out.printf("Students: %d, probes: %d%n%n", enrolled.size(), probes.size());
+        System.out.printf("%12s %10s %10s %10s %12s%n", "recognizer", "rows", "KB", "accuracy", "ms/probe");
+
+        HistogramRecognizer histogramRecognizer = new HistogramRecognizer();
+        FeatureGallery gallery = new EnrollmentPrecomputer().precompute(enrolled, List.of(histogramRecognizer), null)
+                .getFirst();
+        histogramRecognizer.setGallery(gallery);
+        long histogramBytes = (long) gallery.rowCount()
+                * (FeatureGallery.HISTOGRAM_LENGTH + FeatureGallery.LBP_LENGTH + gallery.getHogLength()) * Float.BYTES;
+        printRow("histogram", gallery.rowCount(), histogramBytes, histogramRecognizer, enrolled, probeOwners, probes);
+
+        EmbeddingRecognizer embeddingRecognizer = new EmbeddingRecognizer(modelPath);
+        if (!embeddingRecognizer.isAvailable()) {
+            System.out.printf("%12s  [SKIPPED] model or YuNet alignment model not found: %s%n", "embedding",
+                    modelPath);
+            System.out.println("[INFO] Download face_recognition_sface_2021dec.onnx from the OpenCV model zoo");
+            System.out.println("[INFO] and pass its path, or place it at the configured model path; faces are");
+            System.out.println("[INFO] aligned with the model at detection.yunet.model");
+        } else {
+            long startTime = System.currentTimeMillis();
+            embeddingRecognizer.precomputeEnrollmentData(enrolled);
+            System.out.printf("[INFO] Embedding enrollment took %dms%n", System.currentTimeMillis() - startTime);
+            int rows = embeddingRecognizer.getGallery().rowCount();
+            long embeddingBytes = (long) rows * embeddingRecognizer.getGallery().getDimensions() * Float.BYTES;
+            printRow("embedding", rows, embeddingBytes, embeddingRecognizer, enrolled, probeOwners, probes);
+        }
+
+        System.out.println();
+        System.out.println("BENCHMARK COMPLETE");
+    }
+
+    private static void printRow(String label, int rows, long bytes, Recognizer recognizer, List<Student> enrolled,
+                                 List<Student> probeOwners, List<byte[]> probes) {
+        for (int i = 0; i < Math.min(WARMUP_PROBES, probes.size()); i++) {
+            Mat probe = Imgcodecs.imdecode(new MatOfByte(probes.get(i)), Imgcodecs.IMREAD_COLOR);
+            recognizer.getBestMatch(probe, enrolled);
+            probe.release();
+        }
+
+        int correct = 0;
+        long totalNanos = 0;
+        for (int i = 0; i < probes.size(); i++) {
+            Mat probe = Imgcodecs.imdecode(new MatOfByte(probes.get(i)), Imgcodecs.IMREAD_COLOR);
+            long startTime = System.nanoTime();
+            RecognitionResult result = recognizer.getBestMatch(probe, enrolled);
+            totalNanos += System.nanoTime() - startTime;
+            probe.release();
+
+            if (result != null && result.getMatchedObject() == probeOwners.get(i)) {
+                correct++;
+            }
+        }
+
+        System.out.printf("%12s %10d %10.1f %9.1f%% %12.2f%n", label, rows, bytes / 1024.0,
+                100.0 * correct / probes.size(), totalNanos / 1e6 / probes.size());
+    }
+
+    private static void loadSplit(List<Student> enrolled, List<Student> probeOwners, List<byte[]> probes)
+            throws IOException {
+        File[] studentDirs = new File(TEST_PHOTOS_BASE).listFiles(File::isDirectory);
+        if (studentDirs == null) {
+            return;
+        }
+        Arrays.sort(studentDirs);
+
+        for (File studentDir : studentDirs) {
+            File[] files = studentDir.listFiles((dir, name) -> name.toLowerCase().matches(".*\\.(jpg|jpeg)$"));
+            if (files == null || files.length < 2) {
+                continue;
+            }
+            Arrays.sort(files);
+
+            List<byte[]> enrolledPhotos = new ArrayList<>();
+            List<byte[]> probePhotos = new ArrayList<>();
+            for (int i = 0; i < files.length; i++) {
+                byte[] photo = Files.readAllBytes(files[i].toPath());
+                (i % 2 == 0 ? enrolledPhotos : probePhotos).add(photo);
+            }
+
+            String name = studentDir.getName();
+            String id = "S" + String.format("%03d", enrolled.size() + 1);
+            Student student = new Student(new StudentID(id), name,
+                    new ModuleSection("CS102", "T01", "AY25-26T1", "SCIS1 2-4", 3, "08:00", "11:30"),
+                    name.toLowerCase() + "@school.edu");
+            FaceData faceData = new FaceData();
+            faceData.setFaceImages(enrolledPhotos);
+            student.setFaceData(faceData);
+
+            enrolled.add(student);
+            for (byte[] probe : probePhotos) {
+                probeOwners.add(student);
+                probes.add(probe);
+            }
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package g1t1.testing;
+
+import g1t1.models.ids.StudentID;
+import g1t1.models.sessions.ModuleSection;
+import g1t1.models.users.FaceData;
+import g1t1.models.users.Student;
+import g1t1.opencv.models.RecognitionResult;
+import g1t1.opencv.services.recognition.EnrollmentPrecomputer;
+import g1t1.opencv.services.recognition.FeatureGallery;
+import g1t1.opencv.services.recognition.FeatureVector;
+import g1t1.opencv.services.recognition.HistogramRecognizer;
+import g1t1.opencv.services.recognition.HogProjection;
+import nu.pattern.OpenCV;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfByte;
+import org.opencv.imgcodecs.Imgcodecs;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * HOG PCA Projection Benchmark
+ * <p>
+ * PURPOSE: Compares the unprojected 3780-float HOG path against PCA-projected
+ * HOG at several dimensions: gallery memory, scoring latency on a synthetic
+ * gallery, and recognition accuracy on the test-photos set.
+ * <p>
+ * HOW TO RUN: mvn compile exec:java -Dexec.mainClass="g1t1.testing.HogPcaBenchmark"
+ * -Dexec.args="[syntheticRows] [dimensions...]"
+ * <p>
+ * Accuracy enrolls the even-numbered test-photos of each student and probes
+ * with the odd-numbered ones. PCA cannot learn more components than there are
+ * enrolled rows, so small photo sets cap the projected length.
+ */
+public class HogPcaBenchmark {
+    private static final String TEST_PHOTOS_BASE = "test-photos";
+    private static final int[] DEFAULT_DIMENSIONS = {64, 128, 256};
+    private static final int HOG_LENGTH = 3780;
+    private static final int PROBES = 50;
+
+    public static void main(String[] args) throws IOException {
+        OpenCV.loadLocally();
+        int syntheticRows = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int[] dimensions = args.length > 1
+                ? Arrays.stream(args, 1, args.length).mapToInt(Integer::parseInt).toArray()
+                : DEFAULT_DIMENSIONS;
+
+        System.out.println("=== HOG PCA PROJECTION BENCHMARK ===");
+        benchmarkLatency(syntheticRows, dimensions);
+        benchmarkAccuracy(dimensions);
+        System.out.println("BENCHMARK COMPLETE");
+    }
+
+    /**
+     * Scoring latency and memory on a synthetic gallery, including the probe projection.
+     */
+    private static void benchmarkLatency(int rows, int[] dimensions) {
+        Random random = new Random(7);
+        FeatureGallery.Builder builder = FeatureGallery.builder();
+        for (int row = 0; row < rows; row++) {
+            builder.add("S" + (row / 8), randomVector(random));
+        }
+        FeatureGallery gallery = builder.build();
+
+        FeatureVector[] probes = new FeatureVector[PROBES];
+        for (int p = 0; p < PROBES; p++) {
+            probes[p] = randomVector(random);
+        }
+
+        System.out.printf("%nSynthetic gallery: %d rows, %d probes%n", rows, PROBES);
+        System.out.printf("%10s %10s %12s %14s%n", "hog dims", "KB", "learn ms", "score ms/probe");
+        System.out.printf("%10d %10.0f %12s %14.3f%n", HOG_LENGTH, kilobytes(gallery), "-",
+                scoreAllMs(gallery, probes));
+
+        for (int dims : dimensions) {
+            long learnStart = System.nanoTime();
+            HogProjection projection = HogProjection.learn(gallery, dims);
+            FeatureGallery projected = gallery.withHogProjection(projection);
+            double learnMs = (System.nanoTime() - learnStart) / 1e6;
+
+            System.out.printf("%10d %10.0f %12.0f %14.3f%n", projected.getHogLength(), kilobytes(projected),
+                    learnMs, scoreAllMs(projected, freshCopies(probes)));
+        }
+    }
+
+    /**
+     * Recognition accuracy on test-photos with and without projection.
+     */
+    private static void benchmarkAccuracy(int[] dimensions) throws IOException {
+        List<Student> enrolled = new ArrayList<>();
+        List<Student> probeOwners = new ArrayList<>();
+        List<byte[]> probes = new ArrayList<>();
+        loadSplit(enrolled, probeOwners, probes);
+        if (enrolled.isEmpty()) {
+            System.out.println("[INFO] No test-photos found, skipping accuracy comparison");
+            return;
+        }
+
+        HistogramRecognizer recognizer = new HistogramRecognizer();
+        FeatureGallery gallery = new EnrollmentPrecomputer(Runtime.getRuntime().availableProcessors(), 0, 0)
+                .precompute(enrolled, List.of(recognizer), null).getFirst();
+
+        System.out.printf("%nTest photos: %d students, %d enrolled rows, %d probes%n",
+                enrolled.size(), gallery.rowCount(), probes.size());
+        System.out.printf("%10s %10s %12s%n", "hog dims", "accuracy", "ms/probe");
+        printAccuracy(recognizer, gallery, enrolled, probeOwners, probes);
+        for (int dims : dimensions) {
+            printAccuracy(recognizer, gallery.withHogProjection(HogProjection.learn(gallery, dims)),
+                    enrolled, probeOwners, probes);
+        }
+        System.out.println();
+    }
+
+    private static void printAccuracy(HistogramRecognizer recognizer, FeatureGallery gallery, List<Student> enrolled,
+                                      List<Student> probeOwners, List<byte[]> probes) {
+        recognizer.setGallery(gallery);
+
+        int correct = 0;
+        long totalNanos = 0;
+        for (int i = 0; i < probes.size(); i++) {
+            Mat probe = Imgcodecs.imdecode(new MatOfByte(probes.get(i)), Imgcodecs.IMREAD_COLOR);
+            long startTime = System.nanoTime();
+            RecognitionResult result = recognizer.getBestMatch(probe, enrolled);
+            totalNanos += System.nanoTime() - startTime;
+            probe.release();
+
+            if (result != null && result.getMatchedObject() == probeOwners.get(i)) {
+                correct++;
+            }
+        }
+
+        System.out.printf("%10d %9.1f%% %12.2f%n", gallery.getHogLength(), 100.0 * correct / probes.size(),
+                totalNanos / 1e6 / probes.size());
+    }
+
+    private static double scoreAllMs(FeatureGallery gallery, FeatureVector[] probes) {
+        double[] scores = new double[gallery.rowCount()];
+        long start = System.nanoTime();
+        for (FeatureVector probe : probes) {
+            gallery.scoreAll(probe, scores);
+        }
+        return (System.nanoTime() - start) / 1e6 / probes.length;
+    }
+
+    private static double kilobytes(FeatureGallery gallery) {
+        return (double) gallery.rowCount()
+                * (FeatureGallery.HISTOGRAM_LENGTH + FeatureGallery.LBP_LENGTH + gallery.getHogLength())
+                * Float.BYTES / 1024.0;
+    }
+
+    /**
+     * New vectors with the same values, so each run pays for its own probe projection.
+     */
+    private static FeatureVector[] freshCopies(FeatureVector[] probes) {
+        FeatureVector[] copies = new FeatureVector[probes.length];
+        for (int i = 0; i < probes.length; i++) {
+            copies[i] = new FeatureVector(probes[i].getHistogram(), probes[i].getLbp(), probes[i].getHog());
+        }
+        return copies;
+    }
+
+    private static FeatureVector randomVector(Random random) {
+        return new FeatureVector(
+                normalized(randomPositive(random, FeatureGallery.HISTOGRAM_LENGTH)),
+                normalized(randomPositive(random, FeatureGallery.LBP_LENGTH)),
+                normalized(randomPositive(random, HOG_LENGTH)));
+    }
+
+    private static float[] randomPositive(Random random, int length) {
+        float[] values = new float[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = random.nextFloat();
+        }
+        return values;
+    }
+
+    private static float[] normalized(float[] values) {
+        double sum = 0.0;
+        for (float value : values) {
+            sum += (double) value * value;
+        }
+        float scale = sum > 0 ? (float) (1.0 / Math.sqrt(sum)) : 0f;
+        for (int i = 0; i < values.length; i++) {
+            values[i] *= scale;
+        }
+        return values;
+    }
+
+    private static void loadSplit(List<Student> enrolled, List<Student> probeOwners, List<byte[]> probes)
+            throws IOException {
+        File[] studentDirs = new File(TEST_PHOTOS_BASE).listFiles(File::isDirectory);
+        if (studentDirs == null) {
+            return;
+        }
+        Arrays.sort(studentDirs);
+
+        for (File studentDir : studentDirs) {
+            File[] files = studentDir.listFiles((dir, name) -> name.toLowerCase().matches(".*\\.(jpg|jpeg)$"));
+            if (files == null || files.length < 2) {
+                continue;
+            }
+            Arrays.sort(files);
+
+            List<byte[]> enrolledPhotos = new ArrayList<>();
+            List<byte[]> probePhotos = new ArrayList<>();
+            for (int i = 0; i < files.length; i++) {
+                byte[] photo = Files.readAllBytes(files[i].toPath());
+                (i % 2 == 0 ? enrolledPhotos : probePhotos).add(photo);
+            }
+
+            String name = studentDir.getName();
+            String id = "S" + String.format("%03d", enrolled.size() + 1);
+            Student student = new Student(new StudentID(id), name,
+                    new ModuleSection("CS102", "T01", "AY25-26T1", "SCIS1 2-4", 3, "08:00", "11:30"),
+                    name.toLowerCase() + "@school.edu");
+            FaceData faceData = new FaceData();
+            faceData.setFaceImages(enrolledPhotos);
+            student.setFaceData(faceData);
+
+            enrolled.add(student);
+            for (byte[] probe : probePhotos) {
+                probeOwners.add(student);
+                probes.add(probe);
+            }
+        }
+    }
+}
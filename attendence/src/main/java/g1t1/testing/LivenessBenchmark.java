@@ -0,0 +1,117 @@
+package g1t1.testing;
+
+import g1t1.opencv.config.FaceConfig;
+import g1t1.opencv.services.liveness.BlinkLivenessTracker;
+import g1t1.opencv.services.liveness.LivenessChecker;
+import g1t1.opencv.services.preprocessing.FaceAligner;
+import g1t1.opencv.services.preprocessing.FaceAnalysis;
+import nu.pattern.OpenCV;
+import org.opencv.core.Mat;
+import org.opencv.imgcodecs.Imgcodecs;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Liveness Cost Benchmark
+ * <p>
+ * PURPOSE: Compares the per-frame cost of texture liveness against blink
+ * liveness, with the landmarks searched on every sample and at the configured
+ * liveness.blink.locate.interval.
+ * <p>
+ * HOW TO RUN: mvn compile exec:java -Dexec.mainClass="g1t1.testing.LivenessBenchmark"
+ * -Dexec.args="[frames]"
+ * <p>
+ * Uses every photo in the test-photos/[name]/ folders as a face crop, cycled
+ * through as the frames of one track (default: 300 frames). Blink liveness
+ * needs the YuNet model at detection.yunet.model and is skipped without it.
+ */
+public class LivenessBenchmark {
+    private static final String TEST_PHOTOS_BASE = "test-photos";
+    private static final int WARMUP_FRAMES = 10;
+
+    public static void main(String[] args) {
+        OpenCV.loadLocally();
+        int frames = args.length > 0 ? Integer.parseInt(args[0]) : 300;
+        FaceConfig config = FaceConfig.getInstance();
+
+        System.out.println("=== LIVENESS COST BENCHMARK ===");
+        List<Mat> faces = loadFaces();
+        if (faces.isEmpty()) {
+            System.out.println("[ERROR] No test photos found.");
+            System.out.println("[INFO] Add photos to test-photos/[name]/ folders and try again");
+            return;
+        }
+        System.out.printf("Face crops: %d, frames: %d%n%n", faces.size(), frames);
+        System.out.printf("%24s %12s%n", "liveness", "ms/frame");
+
+        LivenessChecker texture = new LivenessChecker();
+        printRow("texture", faces, frames, (analysis, now) -> texture.checkLiveness(analysis));
+
+        FaceAligner aligner = FaceAligner.create();
+        if (aligner == null) {
+            System.out.printf("%24s  [SKIPPED] YuNet model not found: %s%n", "blink",
+                    config.getYuNetModelPath());
+        } else {
+            for (int interval : new int[]{1, config.getBlinkLocateInterval()}) {
+                // Long timeout so the track stays undecided and every frame is sampled
+                BlinkLivenessTracker blink = new BlinkLivenessTracker(aligner, interval, Integer.MAX_VALUE,
+                        config.getBlinkClosedDrop(), config.getBlinkMaxMs(), Long.MAX_VALUE / 2, 1);
+                printRow("blink, locate every " + interval, faces, frames,
+                        (analysis, now) -> blink.update("track", analysis, now));
+            }
+        }
+
+        for (Mat face : faces) {
+            face.release();
+        }
+        System.out.println();
+        System.out.println("BENCHMARK COMPLETE");
+    }
+
+    private static void printRow(String label, List<Mat> faces, int frames, Check check) {
+        long totalNanos = 0;
+        for (int frame = -WARMUP_FRAMES; frame < frames; frame++) {
+            Mat face = faces.get(Math.floorMod(frame, faces.size()));
+            long startTime = System.nanoTime();
+            FaceAnalysis analysis = new FaceAnalysis(face);
+            check.run(analysis, System.currentTimeMillis());
+            analysis.release();
+            if (frame >= 0) {
+                totalNanos += System.nanoTime() - startTime;
+            }
+        }
+        System.out.printf("%24s %12.2f%n", label, totalNanos / 1e6 / Math.max(1, frames));
+    }
+
+    private static List<Mat> loadFaces() {
+        List<Mat> faces = new ArrayList<>();
+        File[] studentDirs = new File(TEST_PHOTOS_BASE).listFiles(File::isDirectory);
+        if (studentDirs == null) {
+            return faces;
+        }
+
+        Arrays.sort(studentDirs);
+        for (File studentDir : studentDirs) {
+            File[] files = studentDir.listFiles((dir, name) -> name.toLowerCase().matches(".*\\.(jpg|jpeg)$"));
+            if (files == null) {
+                continue;
+            }
+            Arrays.sort(files);
+            for (File file : files) {
+                Mat face = Imgcodecs.imread(file.getPath());
+                if (!face.empty()) {
+                    faces.add(face);
+                }
+            }
+        }
+        return faces;
+    }
+
+    @FunctionalInterface
+    private interface Check {
+        void run(FaceAnalysis analysis, long now);
+    }
+}
@@ -0,0 +1,157 @@
+package g1t1.testing;
+
+import g1t1.models.ids.StudentID;
+import g1t1.models.sessions.ModuleSection;
+import g1t1.models.users.FaceData;
+import g1t1.models.users.Student;
+import g1t1.opencv.models.RecognitionResult;
+import g1t1.opencv.services.recognition.EnrollmentPrecomputer;
+import g1t1.opencv.services.recognition.FeatureGallery;
+import g1t1.opencv.services.recognition.FeatureStore;
+import g1t1.opencv.services.recognition.HistogramRecognizer;
+import g1t1.opencv.services.recognition.MaskAwareRecognizer;
+import g1t1.opencv.services.recognition.PrototypeSelector;
+import g1t1.opencv.services.recognition.Recognizer;
+import nu.pattern.OpenCV;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfByte;
+import org.opencv.imgcodecs.Imgcodecs;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Prototype Compression Evaluation
+ * <p>
+ * PURPOSE: Reports the accuracy, gallery size and matching time of k-medoids
+ * prototype galleries against the full gallery of every enrolled image.
+ * <p>
+ * HOW TO RUN: mvn compile exec:java -Dexec.mainClass="g1t1.testing.PrototypeEvaluation"
+ * -Dexec.args="[prototypeCounts...]"
+ * <p>
+ * Uses the test-photos/[name]/ folders from SystemValidationTest. Even-numbered
+ * photos of each student are enrolled, odd-numbered photos are the probes.
+ */
+public class PrototypeEvaluation {
+    private static final String TEST_PHOTOS_BASE = "test-photos";
+    private static final int[] DEFAULT_PROTOTYPE_COUNTS = {1, 2, 4, 8, 16};
+
+    public static void main(String[] args) throws IOException {
+        OpenCV.loadLocally();
+        int[] prototypeCounts = args.length > 0
+                ? Arrays.stream(args).mapToInt(Integer::parseInt).toArray()
+                : DEFAULT_PROTOTYPE_COUNTS;
+
+        System.out.println("=== PROTOTYPE COMPRESSION EVALUATION ===");
+
+        List<Student> enrolled = new ArrayList<>();
+        List<Student> probeOwners = new ArrayList<>();
+        List<byte[]> probes = new ArrayList<>();
+        loadSplit(enrolled, probeOwners, probes);
+        if (enrolled.isEmpty()) {
+            System.out.println("[ERROR] No test students found.");
+            System.out.println("[INFO] Add photos to test-photos/[name]/ folders and try again");
+            return;
+        }
+        System.out.printf("Students: %d, probes: %d%n%n", enrolled.size(), probes.size());
+
+        evaluate("Full face", new HistogramRecognizer(), enrolled, probeOwners, probes, prototypeCounts);
+        evaluate("Mask aware", new MaskAwareRecognizer(), enrolled, probeOwners, probes, prototypeCounts);
+
+        System.out.println("EVALUATION COMPLETE");
+    }
+
+    private static void evaluate(String label, Recognizer recognizer, List<Student> enrolled,
+                                 List<Student> probeOwners, List<byte[]> probes, int[] prototypeCounts) {
+        // A scratch store keeps the probe split's features out of the app's feature cache
+        FeatureGallery fullGallery = new EnrollmentPrecomputer(FeatureStore.scratch(),
+                Runtime.getRuntime().availableProcessors(), 0, 0)
+                .precompute(enrolled, List.of(recognizer), null).getFirst();
+
+        System.out.println(label);
+        System.out.printf("%12s %8s %10s %10s %12s%n", "prototypes", "rows", "KB", "accuracy", "ms/probe");
+        printRow("all", fullGallery, recognizer, enrolled, probeOwners, probes);
+        for (int count : prototypeCounts) {
+            long startTime = System.currentTimeMillis();
+            FeatureGallery compacted = PrototypeSelector.compress(fullGallery, count);
+            long compactMs = System.currentTimeMillis() - startTime;
+            printRow(count + " (" + compactMs + "ms)", compacted, recognizer, enrolled, probeOwners, probes);
+        }
+        System.out.println();
+    }
+
+    private static void printRow(String label, FeatureGallery gallery, Recognizer recognizer, List<Student> enrolled,
+                                 List<Student> probeOwners, List<byte[]> probes) {
+        setGallery(recognizer, gallery);
+
+        int correct = 0;
+        long totalNanos = 0;
+        for (int i = 0; i < probes.size(); i++) {
+            Mat probe = Imgcodecs.imdecode(new MatOfByte(probes.get(i)), Imgcodecs.IMREAD_COLOR);
+            long startTime = System.nanoTime();
+            RecognitionResult result = recognizer.getBestMatch(probe, enrolled);
+            totalNanos += System.nanoTime() - startTime;
+            probe.release();
+
+            if (result != null && result.getMatchedObject() == probeOwners.get(i)) {
+                correct++;
+            }
+        }
+
+        long bytes = (long) gallery.rowCount()
+                * (FeatureGallery.HISTOGRAM_LENGTH + FeatureGallery.LBP_LENGTH + gallery.getHogLength()) * Float.BYTES;
+        System.out.printf("%12s %8d %10.1f %9.1f%% %12.2f%n", label, gallery.rowCount(), bytes / 1024.0,
+                probes.isEmpty() ? 0.0 : 100.0 * correct / probes.size(), totalNanos / 1e6 / Math.max(1, probes.size()));
+    }
+
+    private static void setGallery(Recognizer recognizer, FeatureGallery gallery) {
+        if (recognizer instanceof HistogramRecognizer histogramRecognizer) {
+            histogramRecognizer.setGallery(gallery);
+        } else if (recognizer instanceof MaskAwareRecognizer maskAwareRecognizer) {
+            maskAwareRecognizer.setGallery(gallery);
+        }
+    }
+
+    private static void loadSplit(List<Student> enrolled, List<Student> probeOwners, List<byte[]> probes)
+            throws IOException {
+        File[] studentDirs = new File(TEST_PHOTOS_BASE).listFiles(File::isDirectory);
+        if (studentDirs == null) {
+            return;
+        }
+        Arrays.sort(studentDirs);
+
+        for (File studentDir : studentDirs) {
+            File[] files = studentDir.listFiles((dir, name) -> name.toLowerCase().matches(".*\\.(jpg|jpeg)$"));
+            if (files == null || files.length < 2) {
+                continue;
+            }
+            Arrays.sort(files);
+
+            List<byte[]> enrolledPhotos = new ArrayList<>();
+            List<byte[]> probePhotos = new ArrayList<>();
+            for (int i = 0; i < files.length; i++) {
+                byte[] photo = Files.readAllBytes(files[i].toPath());
+                (i % 2 == 0 ? enrolledPhotos : probePhotos).add(photo);
+            }
+
+            String name = studentDir.getName();
+            String id = "S" + String.format("%03d", enrolled.size() + 1);
+            Student student = new Student(new StudentID(id), name,
+                    new ModuleSection("CS102", "T01", "AY25-26T1", "SCIS1 2-4", 3, "08:00", "11:30"),
+                    name.toLowerCase() + "@school.edu");
+            FaceData faceData = new FaceData();
+            faceData.setFaceImages(enrolledPhotos);
+            student.setFaceData(faceData);
+
+            enrolled.add(student);
+            for (byte[] probe : probePhotos) {
+                probeOwners.add(student);
+                probes.add(probe);
+            }
+        }
+    }
+}
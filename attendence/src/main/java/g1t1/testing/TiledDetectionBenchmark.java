@@ -0,0 +1,160 @@
+package g1t1.testing;
+
+import g1t1.opencv.config.FaceConfig;
+import g1t1.opencv.models.FaceInFrame;
+import g1t1.opencv.services.FaceDetector;
+import g1t1.opencv.services.TiledFaceDetector;
+import g1t1.opencv.services.detection.DetectorBackend;
+import g1t1.opencv.services.detection.DetectorBackends;
+import nu.pattern.OpenCV;
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+import org.opencv.core.Scalar;
+import org.opencv.core.Size;
+import org.opencv.imgcodecs.Imgcodecs;
+import org.opencv.imgproc.Imgproc;
+
+import java.io.File;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Tiled Face Detection Benchmark
+ * <p>
+ * PURPOSE: Compares latency and faces found by a single full-frame
+ * detection pass against tiled parallel detection, from 640x360 up to 4K.
+ * <p>
+ * HOW TO RUN: mvn compile exec:java -Dexec.mainClass="g1t1.testing.TiledDetectionBenchmark"
+ * -Dexec.args="[photoPath] [threads]"
+ * <p>
+ * A lecture hall is simulated by pasting the face from one photo (default: the
+ * first photo in test-photos/) into a 4K scene in rows, small at the back and
+ * large at the front. The same scene is then downscaled to each resolution, so
+ * lower resolutions lose the back rows. Detector backend, detection settings
+ * and tile size come from face-recognition.properties.
+ */
+public class TiledDetectionBenchmark {
+    private static final String TEST_PHOTOS_BASE = "test-photos";
+    private static final Size[] RESOLUTIONS = {
+            new Size(640, 360), new Size(1280, 720), new Size(1920, 1080), new Size(2560, 1440), new Size(3840, 2160)};
+    private static final int[] ROW_FACE_SIZES = {48, 64, 96, 128, 192, 256};
+    private static final int SCENE_WIDTH = 3840;
+    private static final int SCENE_HEIGHT = 2160;
+    private static final int WARMUP_RUNS = 1;
+    private static final int RUNS = 5;
+
+    public static void main(String[] args) {
+        OpenCV.loadLocally();
+        FaceDetector faceDetector = new FaceDetector();
+        FaceConfig config = FaceConfig.getInstance();
+        String photoPath = args.length > 0 ? args[0] : firstTestPhoto();
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : config.getTiledDetectionThreads();
+
+        System.out.println("=== TILED FACE DETECTION BENCHMARK ===");
+        if (photoPath == null) {
+            System.out.println("[ERROR] No photo given and none found in test-photos/");
+            return;
+        }
+        Mat photo = Imgcodecs.imread(photoPath);
+        FaceInFrame face = photo.empty() ? null : faceDetector.getFaceFromMatrix(photo, 10);
+        if (face == null) {
+            System.out.println("[ERROR] No face found in " + photoPath);
+            return;
+        }
+
+        int[] pasted = new int[1];
+        Mat scene = buildScene(face.faceBounds(), pasted);
+        DetectorBackend singlePass = DetectorBackends.create();
+        String backendName = singlePass.getName();
+        ExecutorService pool = TiledFaceDetector.newPool(threads);
+        TiledFaceDetector tiled = new TiledFaceDetector(backendName, pool, config.getDetectionTileSize(),
+                config.getDetectionTileOverlap(), config.getMinSize(), config.getTiledNmsIou());
+
+        System.out.printf("Photo: %s, backend: %s, faces in scene: %d, tile: %dpx, overlap: %dpx, threads: %s%n%n",
+                photoPath, backendName, pasted[0], config.getDetectionTileSize(), config.getDetectionTileOverlap(),
+                threads > 0 ? threads : "auto");
+        System.out.printf("%11s %12s %8s %12s %8s %9s%n", "resolution", "single ms", "faces", "tiled ms", "faces",
+                "speedup");
+
+        for (Size resolution : RESOLUTIONS) {
+            Mat resized = new Mat();
+            Imgproc.resize(scene, resized, resolution, 0, 0, Imgproc.INTER_AREA);
+            Mat frame = singlePass.prepare(resized);
+            resized.release();
+
+            int singleFaces = 0;
+            int tiledFaces = 0;
+            double singleMs = 0;
+            double tiledMs = 0;
+            for (int run = 0; run < WARMUP_RUNS + RUNS; run++) {
+                long start = System.nanoTime();
+                List<DetectorBackend.ScoredBox> detections = singlePass.detect(frame, config.getMinSize(), 0);
+                long middle = System.nanoTime();
+                List<Rect> tiledDetections = tiled.detect(frame);
+                long end = System.nanoTime();
+
+                if (run >= WARMUP_RUNS) {
+                    singleMs += (middle - start) / 1e6;
+                    tiledMs += (end - middle) / 1e6;
+                }
+                singleFaces = detections.size();
+                tiledFaces = tiledDetections.size();
+            }
+
+            singleMs /= RUNS;
+            tiledMs /= RUNS;
+            System.out.printf("%5.0fx%-5.0f %12.1f %8d %12.1f %8d %8.2fx%n", resolution.width, resolution.height,
+                    singleMs, singleFaces, tiledMs, tiledFaces, singleMs / tiledMs);
+            frame.release();
+        }
+
+        pool.shutdown();
+        scene.release();
+        photo.release();
+        System.out.println();
+        System.out.println("BENCHMARK COMPLETE");
+    }
+
+    /**
+     * Grayscale 4K scene with rows of faces, the smallest at the top.
+     */
+    private static Mat buildScene(Mat faceImage, int[] pasted) {
+        Mat grayFace = new Mat();
+        Imgproc.cvtColor(faceImage, grayFace, Imgproc.COLOR_BGR2GRAY);
+        Mat scene = new Mat(SCENE_HEIGHT, SCENE_WIDTH, grayFace.type(), new Scalar(110));
+        Random random = new Random(7);
+
+        int y = 20;
+        for (int faceSize : ROW_FACE_SIZES) {
+            int gap = faceSize;
+            int x = random.nextInt(gap);
+            Mat resized = new Mat();
+            Imgproc.resize(grayFace, resized, new Size(faceSize, faceSize), 0, 0, Imgproc.INTER_AREA);
+            while (x + faceSize <= SCENE_WIDTH && y + faceSize <= SCENE_HEIGHT) {
+                resized.copyTo(scene.submat(new Rect(x, y, faceSize, faceSize)));
+                pasted[0]++;
+                x += faceSize + gap;
+            }
+            resized.release();
+            y += faceSize + faceSize / 2;
+        }
+
+        grayFace.release();
+        return scene;
+    }
+
+    private static String firstTestPhoto() {
+        File[] studentDirs = new File(TEST_PHOTOS_BASE).listFiles(File::isDirectory);
+        if (studentDirs == null) {
+            return null;
+        }
+        for (File studentDir : studentDirs) {
+            File[] files = studentDir.listFiles((dir, name) -> name.toLowerCase().matches(".*\\.(jpg|jpeg|png)$"));
+            if (files != null && files.length > 0) {
+                return files[0].getPath();
+            }
+        }
+        return null;
+    }
+}
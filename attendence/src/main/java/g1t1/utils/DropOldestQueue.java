@@ -0,0 +1,87 @@
+package g1t1.utils;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Bounded hand-off queue that never blocks the producer: when full, the oldest item is
+ * evicted to make room, so consumers always work on the freshest data.
+ */
+public class DropOldestQueue<T> {
+    private final ArrayDeque<T> items;
+    private final int capacity;
+    private final Consumer<T> onDrop;
+    private long dropped;
+
+    /**
+     * @param onDrop Called with each evicted or cleared item, e.g. to release native memory
+     */
+    public DropOldestQueue(int capacity, Consumer<T> onDrop) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1");
+        }
+        this.items = new ArrayDeque<>(capacity);
+        this.capacity = capacity;
+        this.onDrop = onDrop;
+    }
+
+    public void offer(T item) {
+        T evicted = null;
+        synchronized (this) {
+            if (items.size() >= capacity) {
+                evicted = items.pollFirst();
+                dropped++;
+            }
+            items.addLast(item);
+            notifyAll();
+        }
+        if (evicted != null) {
+            onDrop.accept(evicted);
+        }
+    }
+
+    /**
+     * Waits up to the timeout for an item.
+     *
+     * @return Oldest queued item, or null on timeout
+     */
+    public synchronized T poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (items.isEmpty()) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return null;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        return items.pollFirst();
+    }
+
+    public synchronized int size() {
+        return items.size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return Items evicted because the queue was full
+     */
+    public synchronized long getDropped() {
+        return dropped;
+    }
+
+    /**
+     * Removes every queued item, passing each to the drop callback.
+     */
+    public void clear() {
+        ArrayDeque<T> removed;
+        synchronized (this) {
+            removed = new ArrayDeque<>(items);
+            items.clear();
+        }
+        removed.forEach(onDrop);
+    }
+}
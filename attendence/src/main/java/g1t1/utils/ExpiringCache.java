@@ -0,0 +1,132 @@
+package g1t1.utils;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Thread-safe key-value cache with a size bound and per-entry expiry. Expired entries are
+ * never returned and are purged on access; once full, the least recently used entry is
+ * evicted. Hit, miss, expiry and eviction counts accumulate until {@link #clear()}.
+ */
+public class ExpiringCache<K, V> {
+    private final String name;
+    private final int maxEntries;
+    private final long defaultTtlMs;
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long hits;
+    private long misses;
+    private long expirations;
+    private long evictions;
+
+    /**
+     * @param name         Shown in {@link Stats}
+     * @param maxEntries   Entries kept before the least recently used one is evicted
+     * @param defaultTtlMs Lifetime of entries put without an explicit TTL
+     */
+    public ExpiringCache(String name, int maxEntries, long defaultTtlMs) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("Cache must hold at least one entry");
+        }
+        this.name = name;
+        this.maxEntries = maxEntries;
+        this.defaultTtlMs = defaultTtlMs;
+    }
+
+    /**
+     * @return Live value, or null if absent or expired
+     */
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        if (entry.isExpired(System.currentTimeMillis())) {
+            entries.remove(key);
+            expirations++;
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.value;
+    }
+
+    public void put(K key, V value) {
+        put(key, value, defaultTtlMs);
+    }
+
+    public synchronized void put(K key, V value, long ttlMs) {
+        long now = System.currentTimeMillis();
+        entries.put(key, new Entry<>(value, now + ttlMs));
+        if (entries.size() > maxEntries) {
+            purgeExpired(now);
+        }
+
+        Iterator<Map.Entry<K, Entry<V>>> iterator = entries.entrySet().iterator();
+        while (entries.size() > maxEntries && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            evictions++;
+        }
+    }
+
+    public synchronized void remove(K key) {
+        entries.remove(key);
+    }
+
+    /**
+     * Removes every entry and resets the counters.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        hits = 0;
+        misses = 0;
+        expirations = 0;
+        evictions = 0;
+    }
+
+    /**
+     * @return Entries held, including expired ones not purged yet
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized Stats getStats() {
+        return new Stats(name, entries.size(), maxEntries, hits, misses, expirations, evictions);
+    }
+
+    private void purgeExpired(long now) {
+        Iterator<Entry<V>> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().isExpired(now)) {
+                iterator.remove();
+                expirations++;
+            }
+        }
+    }
+
+    private record Entry<V>(V value, long expiresAt) {
+        boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+
+    /**
+     * Snapshot of a cache's size and counters.
+     */
+    public record Stats(String name, int size, int maxEntries, long hits, long misses, long expirations,
+                        long evictions) {
+        public double hitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0.0 : (double) hits / lookups;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s{size=%d/%d, hits=%d, misses=%d (%.1f%% hit), expired=%d, evicted=%d}", name, size,
+                    maxEntries, hits, misses, 100.0 * hitRate(), expirations, evictions);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package g1t1.utils;
+
+import javafx.application.Platform;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelBuffer;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import org.opencv.core.Mat;
+import org.opencv.imgproc.Imgproc;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Shows OpenCV frames in an ImageView without encoding them. Frames are converted to BGRA
+ * into a reused staging array, then copied into a WritableImage backed by a direct-buffer
+ * PixelBuffer on the FX thread. Frames presented faster than the FX thread picks them up
+ * are coalesced, so only the latest one is shown per pulse.
+ * <p>
+ * {@link #present} may be called from any thread; buffers are reallocated only when the
+ * frame size changes.
+ */
+public class PixelBufferRenderer {
+    private final ImageView display;
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+    private final Mat bgra = new Mat();
+
+    // Latest converted frame, guarded by this
+    private byte[] staging = new byte[0];
+    private int stagingWidth;
+    private int stagingHeight;
+
+    // FX thread only
+    private PixelBuffer<ByteBuffer> pixelBuffer;
+
+    public PixelBufferRenderer(ImageView display) {
+        this.display = display;
+    }
+
+    /**
+     * Queues a frame for display. The frame is copied, so the caller may reuse or release it.
+     *
+     * @param frame BGR, BGRA or grayscale 8-bit frame
+     */
+    public void present(Mat frame) {
+        if (frame == null || frame.empty()) {
+            return;
+        }
+
+        synchronized (this) {
+            switch (frame.channels()) {
+                case 1 -> Imgproc.cvtColor(frame, bgra, Imgproc.COLOR_GRAY2BGRA);
+                case 3 -> Imgproc.cvtColor(frame, bgra, Imgproc.COLOR_BGR2BGRA);
+                default -> frame.copyTo(bgra);
+            }
+
+            int length = bgra.cols() * bgra.rows() * 4;
+            if (staging.length != length) {
+                staging = new byte[length];
+            }
+            bgra.get(0, 0, staging);
+            stagingWidth = bgra.cols();
+            stagingHeight = bgra.rows();
+        }
+
+        if (flushScheduled.compareAndSet(false, true)) {
+            Platform.runLater(this::flush);
+        }
+    }
+
+    /**
+     * Copies the latest staged frame into the pixel buffer and marks it dirty.
+     */
+    private void flush() {
+        flushScheduled.set(false);
+
+        synchronized (this) {
+            if (staging.length == 0) {
+                return;
+            }
+
+            if (pixelBuffer == null || pixelBuffer.getWidth() != stagingWidth
+                    || pixelBuffer.getHeight() != stagingHeight) {
+                ByteBuffer buffer = ByteBuffer.allocateDirect(staging.length);
+                pixelBuffer = new PixelBuffer<>(stagingWidth, stagingHeight, buffer,
+                        PixelFormat.getByteBgraPreInstance());
+                display.setImage(new WritableImage(pixelBuffer));
+            }
+
+            pixelBuffer.getBuffer().put(0, staging);
+        }
+        pixelBuffer.updateBuffer(updated -> null);
+    }
+
+    /**
+     * Frees the native conversion buffer. Call once the camera has stopped presenting.
+     */
+    public synchronized void release() {
+        bgra.release();
+    }
+}
@@ -0,0 +1,45 @@
+package g1t1.utils.events.opencv;
+
+/**
+ * Event for enrollment feature pre-computation progress at session start.
+ * Emitted from worker threads, so listeners updating the UI must use Platform.runLater.
+ */
+public class EnrollmentProgressEvent {
+    private final int processedImages;
+    private final int totalImages;
+    private final long timestamp;
+
+    public EnrollmentProgressEvent(int processedImages, int totalImages) {
+        this.processedImages = processedImages;
+        this.totalImages = totalImages;
+        this.timestamp = System.currentTimeMillis();
+    }
+
+    public int getProcessedImages() {
+        return processedImages;
+    }
+
+    public int getTotalImages() {
+        return totalImages;
+    }
+
+    /**
+     * @return Fraction done [0, 1], 1 when there is nothing to process
+     */
+    public double getProgress() {
+        return totalImages == 0 ? 1.0 : (double) processedImages / totalImages;
+    }
+
+    public boolean isComplete() {
+        return processedImages >= totalImages;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("EnrollmentProgressEvent{processed=%d, total=%d}", processedImages, totalImages);
+    }
+}
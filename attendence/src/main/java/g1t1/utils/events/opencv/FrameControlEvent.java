@@ -0,0 +1,30 @@
+package g1t1.utils.events.opencv;
+
+import g1t1.opencv.services.AdaptiveFrameController;
+
+/**
+ * Event for a change of detection interval or detection scale by the adaptive frame controller.
+ * Emitted from processing threads, so listeners updating the UI must use Platform.runLater.
+ */
+public class FrameControlEvent {
+    private final AdaptiveFrameController.Decision decision;
+    private final long timestamp;
+
+    public FrameControlEvent(AdaptiveFrameController.Decision decision) {
+        this.decision = decision;
+        this.timestamp = System.currentTimeMillis();
+    }
+
+    public AdaptiveFrameController.Decision getDecision() {
+        return decision;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return "FrameControlEvent{" + decision + "}";
+    }
+}
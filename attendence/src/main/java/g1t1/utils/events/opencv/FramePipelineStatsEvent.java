@@ -0,0 +1,35 @@
+package g1t1.utils.events.opencv;
+
+import g1t1.opencv.pipeline.StageStats;
+
+import java.util.List;
+
+/**
+ * Event carrying periodic queue depth and latency snapshots of the frame pipeline stages.
+ * Emitted from the pipeline's render thread, so listeners updating the UI must use Platform.runLater.
+ */
+public class FramePipelineStatsEvent {
+    private final List<StageStats> stages;
+    private final long timestamp;
+
+    public FramePipelineStatsEvent(List<StageStats> stages) {
+        this.stages = List.copyOf(stages);
+        this.timestamp = System.currentTimeMillis();
+    }
+
+    /**
+     * @return Stages in pipeline order: capture, detect, recognise, render
+     */
+    public List<StageStats> getStages() {
+        return stages;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return "FramePipelineStatsEvent" + stages;
+    }
+}